@@ -0,0 +1,135 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * BatchMath does the same arithmetic to many values at once, for workloads
+ * which handle thousands of positions per tick. Values are passed as separate
+ * arrays of X-, Y- and Z-coordinates (like Entities stores them) rather than
+ * as Vectors, and each kernel is a simple counted loop which does exactly the
+ * same operations to neighbouring elements of the arrays.
+ * <p>
+ * Loops of that shape are what the HotSpot server compiler turns into SIMD
+ * instructions (its superword optimization), so these kernels are vectorized
+ * where the JVM and the processor allow it and run as ordinary scalar code
+ * where they do not, with the same results either way. Keeping the bodies
+ * that simple is the point: an early exit, a call which is not inlined or an
+ * access through an index array stops a loop from being vectorized.
+ * {@code BatchMathTool} measures the difference.
+ * <p>
+ * Every kernel works on the elements from {@code from} up to (but not
+ * including) {@code to}. Output arrays may be the same as input arrays.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see BatchMathTool
+ */
+final class BatchMath {
+    
+    /**
+     * Not instantiable.
+     */
+    private BatchMath() {}
+    
+    /**
+     * Moves positions by their velocities: {@code x += vx * dt} and so on.
+     * 
+     * @param x the X-coordinates
+     * @param y the Y-coordinates
+     * @param z the Z-coordinates
+     * @param vx the X velocities
+     * @param vy the Y velocities
+     * @param vz the Z velocities
+     * @param dt the length of the step
+     * @param from the first element
+     * @param to one past the last element
+     */
+    static void integrate(float[] x, float[] y, float[] z,
+            float[] vx, float[] vy, float[] vz, float dt, int from, int to) {
+        for (int i = from; i < to; i++) {
+            x[i] += vx[i] * dt;
+        }
+        for (int i = from; i < to; i++) {
+            y[i] += vy[i] * dt;
+        }
+        for (int i = from; i < to; i++) {
+            z[i] += vz[i] * dt;
+        }
+    }
+    
+    /**
+     * Adds a multiple of one array to another: {@code a += b * s}.
+     * 
+     * @param a the array to add to
+     * @param b the array to add
+     * @param s the multiple
+     * @param from the first element
+     * @param to one past the last element
+     */
+    static void addScaled(float[] a, float[] b, float s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            a[i] += b[i] * s;
+        }
+    }
+    
+    /**
+     * Tests boxes against one query box. The boxes are in Entities' form: a
+     * position at the centre of the bottom face, a half width along X and Z
+     * and a height. Touching counts as overlapping.
+     * 
+     * @param minX the query box's minimum X-coordinate
+     * @param minY the query box's minimum Y-coordinate
+     * @param minZ the query box's minimum Z-coordinate
+     * @param maxX the query box's maximum X-coordinate
+     * @param maxY the query box's maximum Y-coordinate
+     * @param maxZ the query box's maximum Z-coordinate
+     * @param x the X-coordinates of the boxes
+     * @param y the Y-coordinates of the boxes
+     * @param z the Z-coordinates of the boxes
+     * @param halfWidth the half widths of the boxes
+     * @param height the heights of the boxes
+     * @param overlaps receives 1 for each box which overlaps the query box and
+     *        0 for each one which does not
+     * @param from the first element
+     * @param to one past the last element
+     */
+    static void overlapBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+            float[] x, float[] y, float[] z, float[] halfWidth, float[] height,
+            byte[] overlaps, int from, int to) {
+        for (int i = from; i < to; i++) {
+            float w = halfWidth[i];
+            // Non-short-circuit operators, so that there is nothing to branch on
+            boolean overlap = (x[i] + w >= minX) & (x[i] - w <= maxX)
+                    & (y[i] + height[i] >= minY) & (y[i] <= maxY)
+                    & (z[i] + w >= minZ) & (z[i] - w <= maxZ);
+            overlaps[i] = (byte)(overlap ? 1 : 0);
+        }
+    }
+    
+    /**
+     * Transforms points by the affine part of a matrix (ignoring its bottom
+     * row): {@code out = m * (x, y, z, 1)}.
+     * 
+     * @param m the matrix
+     * @param x the X-coordinates of the points
+     * @param y the Y-coordinates of the points
+     * @param z the Z-coordinates of the points
+     * @param outX receives the transformed X-coordinates
+     * @param outY receives the transformed Y-coordinates
+     * @param outZ receives the transformed Z-coordinates
+     * @param from the first element
+     * @param to one past the last element
+     */
+    static void transform(Matrix4f m, float[] x, float[] y, float[] z,
+            float[] outX, float[] outY, float[] outZ, int from, int to) {
+        float m00 = m.m[0], m01 = m.m[4], m02 = m.m[8],  m03 = m.m[12];
+        float m10 = m.m[1], m11 = m.m[5], m12 = m.m[9],  m13 = m.m[13];
+        float m20 = m.m[2], m21 = m.m[6], m22 = m.m[10], m23 = m.m[14];
+        for (int i = from; i < to; i++) {
+            float px = x[i], py = y[i], pz = z[i];
+            outX[i] = m00*px + m01*py + m02*pz + m03;
+            outY[i] = m10*px + m11*py + m12*pz + m13;
+            outZ[i] = m20*px + m21*py + m22*pz + m23;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * BatchMathTool is a command line tool which measures the BatchMath kernels
+ * against the same work done one Vector at a time, the way the rest of the
+ * game has done it. Both versions are checked to give exactly the same
+ * results. Running it again with the JVM option {@code -XX:-UseSuperWord}
+ * turns off the compiler's vectorization, which shows how much of the
+ * difference comes from SIMD instructions and how much from the layout alone.
+ * <p>
+ * Usage: {@code BatchMathTool [options]}
+ * <ul>
+ * <li>{@code -count N} use N elements (default 100000)</li>
+ * <li>{@code -repeat N} measure N times and report the fastest (default 50)</li>
+ * </ul>
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see BatchMath
+ */
+final class BatchMathTool {
+    
+    /**
+     * Not instantiable.
+     */
+    private BatchMathTool() {}
+    
+    /**
+     * The main method.
+     * 
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int count = 100000;
+        int repeat = 50;
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-count")) count = Math.max(1, Integer.parseInt(args[++i]));
+                else if (args[i].equals("-repeat")) repeat = Math.max(1, Integer.parseInt(args[++i]));
+                else throw new IllegalArgumentException(args[i]);
+            }
+        } catch (RuntimeException re) {
+            System.err.println("Usage: BatchMathTool [-count N] [-repeat N]");
+            System.exit(2);
+        }
+        
+        Random random = new Random(count);
+        float[] x = new float[count], y = new float[count], z = new float[count];
+        float[] vx = new float[count], vy = new float[count], vz = new float[count];
+        float[] halfWidth = new float[count], height = new float[count];
+        Vector[] positions = new Vector[count], velocities = new Vector[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = random.nextFloat() * World.SIZE;
+            y[i] = random.nextFloat() * World.SIZE;
+            z[i] = random.nextFloat() * World.SIZE;
+            vx[i] = random.nextFloat() - 0.5f;
+            vy[i] = random.nextFloat() - 0.5f;
+            vz[i] = random.nextFloat() - 0.5f;
+            halfWidth[i] = 0.3f;
+            height[i] = 0.9f;
+            positions[i] = new Vector(x[i], y[i], z[i]);
+            velocities[i] = new Vector(vx[i], vy[i], vz[i]);
+        }
+        Matrix4f matrix = new Matrix4f().setLookAt(10, 20, 30, 11, 19, 32, 0, 1, 0);
+        
+        float[] outX = new float[count], outY = new float[count], outZ = new float[count];
+        byte[] overlaps = new byte[count];
+        Vector[] transformed = new Vector[count];
+        for (int i = 0; i < count; i++) {
+            transformed[i] = new Vector();
+        }
+        byte[] vectorOverlaps = new byte[count];
+        Vector step = new Vector();
+        float dt = 1.f / 60;
+        float lo = World.SIZE * 0.25f, hi = World.SIZE * 0.75f;
+        
+        long[] batch = new long[3], single = new long[3];
+        Arrays.fill(batch, Long.MAX_VALUE);
+        Arrays.fill(single, Long.MAX_VALUE);
+        for (int r = 0; r < repeat; r++) {
+            // Integrate forwards and backwards on alternate repeats, so that
+            // the positions stay put however many times it is measured
+            long start = System.nanoTime();
+            BatchMath.integrate(x, y, z, vx, vy, vz, (r % 2 == 0) ? dt : -dt, 0, count);
+            long integrated = System.nanoTime();
+            BatchMath.overlapBox(lo, lo, lo, hi, hi, hi, x, y, z, halfWidth, height, overlaps, 0, count);
+            long tested = System.nanoTime();
+            BatchMath.transform(matrix, x, y, z, outX, outY, outZ, 0, count);
+            long done = System.nanoTime();
+            batch[0] = Math.min(batch[0], integrated - start);
+            batch[1] = Math.min(batch[1], tested - integrated);
+            batch[2] = Math.min(batch[2], done - tested);
+            
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                positions[i].add(velocities[i].scaled((r % 2 == 0) ? dt : -dt, step));
+            }
+            integrated = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                Vector p = positions[i];
+                boolean overlap = p.x + 0.3f >= lo && p.x - 0.3f <= hi
+                        && p.y + 0.9f >= lo && p.y <= hi
+                        && p.z + 0.3f >= lo && p.z - 0.3f <= hi;
+                vectorOverlaps[i] = (byte)(overlap ? 1 : 0);
+            }
+            tested = System.nanoTime();
+            float[] m = matrix.m;
+            for (int i = 0; i < count; i++) {
+                Vector p = positions[i];
+                transformed[i].set(m[0]*p.x + m[4]*p.y + m[8]*p.z + m[12],
+                        m[1]*p.x + m[5]*p.y + m[9]*p.z + m[13],
+                        m[2]*p.x + m[6]*p.y + m[10]*p.z + m[14]);
+            }
+            done = System.nanoTime();
+            single[0] = Math.min(single[0], integrated - start);
+            single[1] = Math.min(single[1], tested - integrated);
+            single[2] = Math.min(single[2], done - tested);
+        }
+        
+        int mismatches = 0;
+        for (int i = 0; i < count; i++) {
+            Vector p = positions[i], t = transformed[i];
+            if (p.x != x[i] || p.y != y[i] || p.z != z[i] || overlaps[i] != vectorOverlaps[i]
+                    || t.x != outX[i] || t.y != outY[i] || t.z != outZ[i]) mismatches++;
+        }
+        
+        String[] names = {"integrate", "overlapBox", "transform"};
+        System.out.println("kernel      batch ns/elem  vector ns/elem  speedup");
+        for (int k = 0; k < names.length; k++) {
+            System.out.printf("%-10s  %13.2f  %14.2f  %6.1fx%n", names[k], (double)batch[k] / count,
+                    (double)single[k] / count, (double)single[k] / batch[k]);
+        }
+        if (mismatches > 0) {
+            System.out.println("MISMATCH in " + mismatches + " elements");
+            System.exit(1);
+        }
+    }
+}
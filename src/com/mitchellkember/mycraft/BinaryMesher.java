@@ -0,0 +1,409 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * BinaryMesher produces the same faces as ChunkMesher, but works on whole
+ * columns of blocks at a time instead of one block at a time.
+ * <p>
+ * The padded neighbourhood is turned into bitmasks: one long per column of 18
+ * blocks along the Z axis, with a bit set for every solid block. The blocks of
+ * a column with a visible face towards +Z are then simply
+ * {@code column & ~(column >>> 1)}, and the ones with a visible face towards +X
+ * are {@code column & ~next}, where {@code next} is the column beside it. Each
+ * of these finds the faces of 16 blocks with a handful of instructions and no
+ * branches. The visible faces are gathered into one 16 by 16 bit plane per
+ * slice of the Chunk and per Face, one int per row.
+ * <p>
+ * The quads are emitted from those planes. Normally every face gets its own
+ * quad, which gives exactly the faces ChunkMesher does (in a different order)
+ * and lets the faces be recorded for PatchableMesh. When greedy merging is
+ * requested, runs of set bits in a row are found with
+ * {@code numberOfTrailingZeros} and grown across the following rows for as long
+ * as they contain the whole run, so that each rectangle of faces becomes one
+ * stretched quad with a repeating texture. Greedy meshes cover the same faces
+ * with far fewer quads, but cannot be patched in place.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see ChunkMesher
+ */
+final class BinaryMesher {
+    
+    /**
+     * The number of blocks along each side of the padded neighbourhood.
+     */
+    private static final int PADDED_SIZE = ChunkMesher.PADDED_SIZE;
+    
+    /**
+     * The bits of a column which belong to the Chunk itself rather than to the
+     * border taken from its neighbours.
+     */
+    private static final long INNER = ((1L << Chunk.SIZE) - 1) << 1;
+    
+    /**
+     * The number of ints in the face planes of one Face: 16 slices of 16 rows.
+     */
+    private static final int PLANES_SIZE = Chunk.SIZE * Chunk.SIZE;
+    
+    /**
+     * The number of quads staged in an array before they are put in the
+     * buffer together.
+     */
+    private static final int STAGED_QUADS = 256;
+    
+    /**
+     * Whether each block type is opaque, and whether it is translucent, as 1
+     * or 0, so that columns can be built by shifting without branching.
+     */
+    private static final long[] OPAQUE_BIT = new long[256], TRANSLUCENT_BIT = new long[256];
+    
+    static {
+        for (int type = 0; type < 256; type++) {
+            OPAQUE_BIT[type] = BlockType.isOpaque((byte)type) ? 1 : 0;
+            TRANSLUCENT_BIT[type] = BlockType.isTranslucent((byte)type) ? 1 : 0;
+        }
+    }
+    
+    /**
+     * A thread's reusable arrays.
+     */
+    private static final class Scratch {
+        
+        /**
+         * The padded neighbourhood, as used by ChunkMesher.
+         */
+        final byte[] padded = new byte[PADDED_SIZE * PADDED_SIZE * PADDED_SIZE];
+        
+        /**
+         * The columns of opaque blocks along the Z axis, in the format
+         * {@code opaque[x * PADDED_SIZE + y]}. Bit z is set if the block at
+         * padded index z is opaque.
+         */
+        final long[] opaque = new long[PADDED_SIZE * PADDED_SIZE];
+        
+        /**
+         * The columns of blocks of a single translucent type, in the same format.
+         */
+        final long[] translucent = new long[PADDED_SIZE * PADDED_SIZE];
+        
+        /**
+         * The columns of blocks which hide the faces of that translucent type:
+         * blocks of the same type, and opaque blocks.
+         */
+        final long[] hiding = new long[PADDED_SIZE * PADDED_SIZE];
+        
+        /**
+         * The visible faces, in the format
+         * {@code planes[face.ordinal() * PLANES_SIZE + slice * 16 + u]} with one
+         * bit per v. Every plane is cleared again as its quads are emitted.
+         */
+        final int[] planes = new int[Face.VALUES.length * PLANES_SIZE];
+        
+        /**
+         * Whether each translucent block type occurs in the Chunk.
+         */
+        final boolean[] translucentTypes = new boolean[256];
+        
+        /**
+         * Quads waiting to be put in the buffer, in the buffer's format.
+         * Writing to an array and then bulk copying is much faster than
+         * putting every int into a direct buffer by itself.
+         */
+        final int[] staged = new int[STAGED_QUADS * ChunkMesher.QUAD_SIZE];
+    }
+    
+    /**
+     * Each thread's reusable arrays, so that several Chunks can be meshed at once.
+     */
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+    
+    /**
+     * Not instantiable.
+     */
+    private BinaryMesher() {}
+    
+    /**
+     * Meshes {@code chunk} in the same format and under the same rules as
+     * {@code ChunkMesher.mesh}.
+     * 
+     * @param world the World containing the Chunk
+     * @param chunk the Chunk to mesh
+     * @param opaque the buffer for opaque quads, with room for {@code ChunkMesher.MAX_QUADS}
+     * @param translucent the buffer for translucent quads, with room for
+     *        {@code ChunkMesher.MAX_QUADS}
+     * @param faceSlots if not null, receives the index of the opaque quad of each
+     *        face as described in {@code ChunkMesher.mesh}; must be null when
+     *        {@code greedy} is true
+     * @param greedy true to merge faces into as few quads as possible
+     */
+    static void mesh(World world, Chunk chunk, IntBuffer opaque, IntBuffer translucent,
+            int[] faceSlots, boolean greedy) {
+        if (greedy && faceSlots != null) {
+            throw new IllegalArgumentException("Greedy meshes have no face slots");
+        }
+        
+        if (faceSlots != null) Arrays.fill(faceSlots, PatchableMesh.NO_SLOT);
+        // Faces belong to the blocks inside, so an empty Chunk has none
+        if (chunk.isEmpty()) return;
+        
+        Scratch s = scratch.get();
+        boolean anyTranslucent = buildOpaqueColumns(world, chunk, s);
+        
+        int originX = chunk.chunkX * Chunk.SIZE;
+        int originY = chunk.chunkY * Chunk.SIZE;
+        int originZ = chunk.chunkZ * Chunk.SIZE;
+        
+        findFaces(s.opaque, s.opaque, s.planes);
+        emitQuads(s.planes, s.staged, originX, originY, originZ, opaque, faceSlots, greedy);
+        
+        if (!anyTranslucent) return;
+        
+        // Translucent faces depend on the exact types around them, so they
+        // need the whole neighbourhood
+        ChunkMesher.copyNeighbourhood(world, chunk, s.padded);
+        for (int type = 0; type < s.translucentTypes.length; type++) {
+            if (!s.translucentTypes[type]) continue;
+            s.translucentTypes[type] = false;
+            
+            buildTranslucentColumns(s, (byte)type);
+            findFaces(s.translucent, s.hiding, s.planes);
+            emitQuads(s.planes, s.staged, originX, originY, originZ, translucent, null, greedy);
+        }
+    }
+    
+    /**
+     * Fills in the opaque columns straight from the rows of the Chunk and the
+     * six Chunks sharing a face with it, and notes which translucent types
+     * occur inside the Chunk. Neighbours which are empty or not loaded are
+     * skipped without reading anything.
+     * 
+     * @param world the World containing the Chunk
+     * @param chunk the Chunk being meshed
+     * @param s the scratch arrays
+     * @return true if any translucent type occurs inside the Chunk
+     */
+    private static boolean buildOpaqueColumns(World world, Chunk chunk, Scratch s) {
+        long[] opaque = s.opaque;
+        Arrays.fill(opaque, 0);
+        int cx = chunk.chunkX, cy = chunk.chunkY, cz = chunk.chunkZ;
+        final int last = Chunk.SIZE - 1, far = PADDED_SIZE - 1;
+        
+        // The Chunk's own columns, with the end bits from the Chunks beside it
+        // along Z
+        byte[][][] data = chunk.getData();
+        byte[][][] back = dataOf(world.getChunk(cx, cy, cz-1));
+        byte[][][] front = dataOf(world.getChunk(cx, cy, cz+1));
+        boolean anyTranslucent = false;
+        for (int x = 0; x < Chunk.SIZE; x++) {
+            for (int y = 0; y < Chunk.SIZE; y++) {
+                byte[] row = data[x][y];
+                long column = 0, translucentColumn = 0;
+                for (int z = 0; z < Chunk.SIZE; z++) {
+                    int type = row[z] & 0xFF;
+                    column |= OPAQUE_BIT[type] << (z+1);
+                    translucentColumn |= TRANSLUCENT_BIT[type] << z;
+                }
+                if (back != null) column |= OPAQUE_BIT[back[x][y][last] & 0xFF];
+                if (front != null) column |= OPAQUE_BIT[front[x][y][0] & 0xFF] << far;
+                opaque[(x+1) * PADDED_SIZE + (y+1)] = column;
+                
+                while (translucentColumn != 0) {
+                    s.translucentTypes[row[Long.numberOfTrailingZeros(translucentColumn)] & 0xFF] = true;
+                    translucentColumn &= translucentColumn - 1;
+                    anyTranslucent = true;
+                }
+            }
+        }
+        
+        // The border columns beside it along X and Y. Only their middle 16
+        // bits are ever compared with the Chunk's own columns.
+        byte[][][] left = dataOf(world.getChunk(cx-1, cy, cz));
+        byte[][][] right = dataOf(world.getChunk(cx+1, cy, cz));
+        byte[][][] bottom = dataOf(world.getChunk(cx, cy-1, cz));
+        byte[][][] top = dataOf(world.getChunk(cx, cy+1, cz));
+        for (int i = 0; i < Chunk.SIZE; i++) {
+            if (left != null) opaque[i+1] = borderColumn(left[last][i]);
+            if (right != null) opaque[far * PADDED_SIZE + (i+1)] = borderColumn(right[0][i]);
+            if (bottom != null) opaque[(i+1) * PADDED_SIZE] = borderColumn(bottom[i][last]);
+            if (top != null) opaque[(i+1) * PADDED_SIZE + far] = borderColumn(top[i][0]);
+        }
+        return anyTranslucent;
+    }
+    
+    /**
+     * Gets the blocks of a Chunk which may hide faces.
+     * 
+     * @param chunk the Chunk, or null if it is not loaded
+     * @return its blocks, or null if it is not loaded or is empty
+     */
+    private static byte[][][] dataOf(Chunk chunk) {
+        return (chunk == null || chunk.isEmpty()) ? null : chunk.getData();
+    }
+    
+    /**
+     * Builds the opaque column of a row of blocks along Z, shifted into the
+     * padded bit positions.
+     * 
+     * @param row the blocks
+     * @return the column
+     */
+    private static long borderColumn(byte[] row) {
+        long column = 0;
+        for (int z = 0; z < Chunk.SIZE; z++) {
+            column |= OPAQUE_BIT[row[z] & 0xFF] << (z+1);
+        }
+        return column;
+    }
+    
+    /**
+     * Fills in the columns of one translucent type and the columns hiding it.
+     * 
+     * @param s the scratch arrays, with the opaque columns already built
+     * @param type the translucent type
+     */
+    private static void buildTranslucentColumns(Scratch s, byte type) {
+        byte[] padded = s.padded;
+        for (int x = 0; x < PADDED_SIZE; x++) {
+            for (int y = 0; y < PADDED_SIZE; y++) {
+                int i = x * PADDED_SIZE + y;
+                int base = ChunkMesher.paddedIndex(x, y, 0);
+                long column = 0;
+                for (int z = 0; z < PADDED_SIZE; z++) {
+                    if (padded[base + z] == type) column |= 1L << z;
+                }
+                s.translucent[i] = column;
+                s.hiding[i] = column | s.opaque[i];
+            }
+        }
+    }
+    
+    /**
+     * Finds the visible faces of the Chunk and sets their bits in the planes.
+     * <p>
+     * A block's faces along X and Y are visible where the neighbouring column
+     * along that axis is clear, so they come out of a single AND-NOT of two
+     * columns as a whole row of a plane. Faces along Z compare a column with
+     * itself shifted by one and are scattered into the planes bit by bit.
+     * 
+     * @param solid the columns of the blocks whose faces are wanted
+     * @param hiding the columns of the blocks which hide those faces
+     * @param planes the face planes, which must be clear
+     */
+    private static void findFaces(long[] solid, long[] hiding, int[] planes) {
+        // The Faces are declared in pairs, positive first, in X, Y, Z order
+        final int posX = 0, negX = PLANES_SIZE, posY = 2 * PLANES_SIZE;
+        final int negY = 3 * PLANES_SIZE, posZ = 4 * PLANES_SIZE, negZ = 5 * PLANES_SIZE;
+        
+        for (int x = 1; x <= Chunk.SIZE; x++) {
+            for (int y = 1; y <= Chunk.SIZE; y++) {
+                int i = x * PADDED_SIZE + y;
+                long column = solid[i] & INNER;
+                if (column == 0) continue;
+                
+                // Shifting out the border bit leaves one bit per block, z - 1
+                int rowX = (x-1) * Chunk.SIZE + (y-1);
+                int rowY = (y-1) * Chunk.SIZE + (x-1);
+                planes[posX + rowX] = (int)((column & ~hiding[i + PADDED_SIZE]) >>> 1);
+                planes[negX + rowX] = (int)((column & ~hiding[i - PADDED_SIZE]) >>> 1);
+                planes[posY + rowY] = (int)((column & ~hiding[i + 1]) >>> 1);
+                planes[negY + rowY] = (int)((column & ~hiding[i - 1]) >>> 1);
+                
+                int bit = 1 << (y-1);
+                long positive = column & ~(hiding[i] >>> 1);
+                long negative = column & ~(hiding[i] << 1);
+                while (positive != 0) {
+                    int slice = Long.numberOfTrailingZeros(positive) - 1;
+                    planes[posZ + slice * Chunk.SIZE + (x-1)] |= bit;
+                    positive &= positive - 1;
+                }
+                while (negative != 0) {
+                    int slice = Long.numberOfTrailingZeros(negative) - 1;
+                    planes[negZ + slice * Chunk.SIZE + (x-1)] |= bit;
+                    negative &= negative - 1;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Emits quads for all of the faces in the planes, clearing them as it goes.
+     * 
+     * @param planes the face planes
+     * @param staged the array to stage quads in
+     * @param originX the X-coordinate of the Chunk's minimum block
+     * @param originY the Y-coordinate of the Chunk's minimum block
+     * @param originZ the Z-coordinate of the Chunk's minimum block
+     * @param buffer the buffer to write the quads to
+     * @param faceSlots if not null, receives the quad index of each face
+     * @param greedy true to merge faces into rectangles
+     */
+    private static void emitQuads(int[] planes, int[] staged, int originX, int originY, int originZ,
+            IntBuffer buffer, int[] faceSlots, boolean greedy) {
+        int quads = 0, stagedQuads = 0;
+        for (Face face : Face.VALUES) {
+            int axis = face.ordinal() / 2;
+            for (int slice = 0; slice < Chunk.SIZE; slice++) {
+                int base = face.ordinal() * PLANES_SIZE + slice * Chunk.SIZE;
+                for (int u = 0; u < Chunk.SIZE; u++) {
+                    int bits = planes[base + u];
+                    planes[base + u] = 0;
+                    while (bits != 0) {
+                        if (stagedQuads == STAGED_QUADS) {
+                            buffer.put(staged, 0, stagedQuads * ChunkMesher.QUAD_SIZE);
+                            stagedQuads = 0;
+                        }
+                        int v = Integer.numberOfTrailingZeros(bits);
+                        int x, y, z;
+                        if (axis == 0) {
+                            x = slice; y = u; z = v;
+                        } else if (axis == 1) {
+                            x = u; y = slice; z = v;
+                        } else {
+                            x = u; y = v; z = slice;
+                        }
+                        
+                        if (!greedy) {
+                            bits &= bits - 1;
+                            if (faceSlots != null) {
+                                int voxel = (x * Chunk.SIZE + y) * Chunk.SIZE + z;
+                                faceSlots[voxel * 6 + face.ordinal()] = quads;
+                            }
+                            face.put(staged, stagedQuads++, originX+x, originY+y, originZ+z);
+                            quads++;
+                            continue;
+                        }
+                        
+                        // Take the run of faces starting at v (the width, along
+                        // v) and grow it over the rows after u (the height)
+                        int width = Integer.numberOfTrailingZeros(~(bits >>> v));
+                        int run = ((1 << width) - 1) << v;
+                        int height = 1;
+                        while (u + height < Chunk.SIZE && (planes[base + u + height] & run) == run) {
+                            planes[base + u + height] &= ~run;
+                            height++;
+                        }
+                        bits &= ~run;
+                        
+                        if (axis == 0) {
+                            face.put(staged, stagedQuads++, originX+x, originY+y, originZ+z, 1, height, width);
+                        } else if (axis == 1) {
+                            face.put(staged, stagedQuads++, originX+x, originY+y, originZ+z, height, 1, width);
+                        } else {
+                            face.put(staged, stagedQuads++, originX+x, originY+y, originZ+z, height, width, 1);
+                        }
+                    }
+                }
+            }
+        }
+        buffer.put(staged, 0, stagedQuads * ChunkMesher.QUAD_SIZE);
+    }
+}
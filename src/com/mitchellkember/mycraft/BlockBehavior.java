@@ -0,0 +1,55 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * A BlockBehavior gives a block type something to do over time, such as
+ * falling, growing or spreading. Each type has at most one, registered with
+ * {@code BlockType.setBehavior}. Behaviors are called on the thread that
+ * updates the GameState, and change the world through it so that the renderer
+ * hears about every change.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see BlockType
+ */
+interface BlockBehavior {
+    
+    /**
+     * Called when a tick scheduled with {@code GameState.scheduleBlockTick}
+     * comes due, if the block is still of the type it was scheduled for.
+     * 
+     * @param state the GameState
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param type the block's type id
+     */
+    void scheduledTick(GameState state, int x, int y, int z, byte type);
+    
+    /**
+     * Called now and then at random, if the type was registered to receive
+     * random ticks.
+     * 
+     * @param state the GameState
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param type the block's type id
+     * @see RandomTicks
+     */
+    void randomTick(GameState state, int x, int y, int z, byte type);
+    
+    /**
+     * Called some time during the same tick after a neighbouring block has
+     * changed, or on a later tick if there were a great many changes.
+     * 
+     * @param state the GameState
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param type the block's type id
+     * @see NeighbourUpdates
+     */
+    void neighbourChanged(GameState state, int x, int y, int z, byte type);
+}
@@ -0,0 +1,42 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * A BlockFilter decides which block types stop a ray. Filters are called from
+ * the worker threads of a batch raycast, so they must not have side effects.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see Raycaster
+ */
+interface BlockFilter {
+    
+    /**
+     * Stops at any block that is not air, as when picking a block to break.
+     */
+    BlockFilter NOT_AIR = new BlockFilter() {
+        @Override
+        public boolean accept(byte type) {
+            return type != BlockType.AIR;
+        }
+    };
+    
+    /**
+     * Stops only at opaque blocks, as when testing line of sight.
+     */
+    BlockFilter OPAQUE = new BlockFilter() {
+        @Override
+        public boolean accept(byte type) {
+            return BlockType.isOpaque(type);
+        }
+    };
+    
+    /**
+     * Determines whether a block of this type stops the ray.
+     * 
+     * @param type the type id
+     * @return true if the ray hits the block
+     */
+    boolean accept(byte type);
+}
@@ -0,0 +1,504 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * BlockTickTool is a command line tool which checks and times the queues that
+ * give blocks something to do over time, without opening a window. It drives
+ * them directly against a flat World and records what they run: that
+ * scheduled ticks come due on the right tick and in order of priority, that
+ * ticks over the budget are carried over and run first on the next tick, and
+ * that the ticks of a Chunk are kept while it is unloaded and put back when
+ * it is loaded again. It also gives dirt a BlockBehavior which receives
+ * random ticks, runs a GameState, and checks that random ticks reach only
+ * dirt, about as often as the sampling should pick it. Finally it sets off a
+ * chain reaction of neighbour notifications, and checks that capping how
+ * many are sent per tick only spreads the reaction over more ticks, without
+ * losing or reordering any. Any check which fails is printed, and the exit
+ * status is 1.
+ * <p>
+ * Usage: {@code BlockTickTool [options]}
+ * <ul>
+ * <li>{@code -count N} time N random scheduled ticks (default 100000)</li>
+ * <li>{@code -seed N} the random seed for the timing (default 1)</li>
+ * <li>{@code -ticks N} run the GameState for N ticks to check random ticks
+ *     (default 20000)</li>
+ * </ul>
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see ScheduledTicks
+ * @see RandomTicks
+ * @see NeighbourUpdates
+ */
+final class BlockTickTool {
+    
+    /**
+     * Records the blocks a queue ran, in order, and the tick each ran on.
+     */
+    private static final class Log implements ScheduledTicks.Handler {
+        
+        /**
+         * The X- and Z-coordinates and the tick of each block run.
+         */
+        int[] xs = new int[64], zs = new int[64];
+        long[] ticks = new long[64];
+        int count;
+        
+        /**
+         * The tick being run, set before each call to {@code tick}.
+         */
+        long tick;
+        
+        @Override
+        public void scheduledTick(int x, int y, int z, byte type) {
+            add(x, z);
+        }
+        
+        void add(int x, int z) {
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                zs = Arrays.copyOf(zs, count * 2);
+                ticks = Arrays.copyOf(ticks, count * 2);
+            }
+            xs[count] = x;
+            zs[count] = z;
+            ticks[count] = tick;
+            count++;
+        }
+    }
+    
+    /**
+     * A BlockBehavior which only counts its random ticks, and notes any
+     * which reach a block that should never receive them.
+     */
+    private static final class RandomTickCounter implements BlockBehavior {
+        
+        /**
+         * The number of random ticks, and of those which were not for dirt
+         * on the ground.
+         */
+        long count, misplaced;
+        
+        @Override
+        public void scheduledTick(GameState state, int x, int y, int z, byte type) {}
+        
+        @Override
+        public void randomTick(GameState state, int x, int y, int z, byte type) {
+            count++;
+            if (type != BlockType.DIRT || y != 0 || state.getWorld().getBlockType(x, y, z) != type) misplaced++;
+        }
+        
+        @Override
+        public void neighbourChanged(GameState state, int x, int y, int z, byte type) {}
+    }
+    
+    /**
+     * A chain reaction: the first time a block in a cube is notified, it
+     * notifies its six neighbours. The reaction spreads from one block until
+     * the whole cube has been reached.
+     */
+    private static final class ChainReaction implements NeighbourUpdates.Handler {
+        
+        /**
+         * The length of the cube's sides.
+         */
+        static final int SIZE = 16;
+        
+        /**
+         * The queue to notify neighbours through.
+         */
+        final NeighbourUpdates updates;
+        
+        /**
+         * Whether each block of the cube has been reached, and the blocks in
+         * the order they were reached, as indices into the cube.
+         */
+        final boolean[] reached = new boolean[SIZE * SIZE * SIZE];
+        final int[] order = new int[SIZE * SIZE * SIZE];
+        int reachedCount;
+        
+        /**
+         * The total number of notifications received.
+         */
+        long notified;
+        
+        ChainReaction(NeighbourUpdates updates) {
+            this.updates = updates;
+        }
+        
+        @Override
+        public void neighbourChanged(int x, int y, int z) {
+            notified++;
+            if (x < 0 || x >= SIZE || y < 0 || y >= SIZE || z < 0 || z >= SIZE) return;
+            int i = (x * SIZE + y) * SIZE + z;
+            if (reached[i]) return;
+            reached[i] = true;
+            order[reachedCount++] = i;
+            updates.notifyNeighbours(x, y, z);
+        }
+    }
+    
+    /**
+     * The input for every tick of the GameState: nothing pressed and nothing
+     * moved.
+     */
+    private static final GameStateInputData NO_INPUT = new GameStateInputData(
+            false, false, false, false, false, 0, 0, 0, false, false);
+    
+    /**
+     * The number of checks which have failed.
+     */
+    private static int failures;
+    
+    /**
+     * Not instantiable.
+     */
+    private BlockTickTool() {}
+    
+    /**
+     * The main method.
+     * 
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int count = 100000, gameTicks = 20000;
+        long seed = 1;
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-count")) count = Math.max(1, Integer.parseInt(args[++i]));
+                else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+                else if (args[i].equals("-ticks")) gameTicks = Math.max(1, Integer.parseInt(args[++i]));
+                else throw new IllegalArgumentException(args[i]);
+            }
+        } catch (RuntimeException re) {
+            System.err.println("Usage: BlockTickTool [-count N] [-seed N] [-ticks N]");
+            System.exit(2);
+        }
+        
+        // Chunks count their blocks which receive random ticks, so this has
+        // to come before any are created
+        RandomTickCounter counter = new RandomTickCounter();
+        BlockType.setBehavior(BlockType.DIRT, counter, true);
+        
+        // The ground layer at y = 0 is all dirt, which every check ticks
+        World world = new World();
+        world.generateFlat();
+        
+        checkDueOrder(world);
+        checkTypeChange(world);
+        checkCarryOver(world);
+        checkUnload(world);
+        checkRandomTicks(counter, gameTicks);
+        checkNeighbourUpdates();
+        timeScheduledTicks(world, count, seed);
+        
+        System.out.println((failures == 0) ? "All checks passed" : failures + " checks failed");
+        if (failures != 0) System.exit(1);
+    }
+    
+    /**
+     * Prints the result of a check.
+     * 
+     * @param name what was checked
+     * @param passed whether it passed
+     * @param detail what went wrong, if it did not
+     */
+    private static void check(String name, boolean passed, String detail) {
+        if (passed) {
+            System.out.println(name + ": ok");
+        } else {
+            System.out.println(name + ": FAILED, " + detail);
+            failures++;
+        }
+    }
+    
+    /**
+     * Runs ticks of a ScheduledTicks, logging them.
+     * 
+     * @param ticks the ScheduledTicks
+     * @param world the blocks
+     * @param log receives the ticks run
+     * @param n the number of ticks to run
+     */
+    private static void run(ScheduledTicks ticks, World world, Log log, int n) {
+        for (int i = 0; i < n; i++) {
+            log.tick++;
+            ticks.tick(world, log);
+        }
+    }
+    
+    /**
+     * Schedules blocks with a spread of delays, some longer than the timing
+     * wheel, and checks that each runs once on the tick it is due, and that
+     * blocks due together run lowest priority first.
+     * 
+     * @param world the blocks
+     */
+    private static void checkDueOrder(World world) {
+        ScheduledTicks ticks = new ScheduledTicks(ScheduledTicks.DEFAULT_BUDGET);
+        Log log = new Log();
+        final int n = World.SIZE;
+        int[] delays = new int[n], priorities = new int[n];
+        boolean duplicates = false;
+        for (int x = 0; x < n; x++) {
+            delays[x] = 1 + (x % 5) * 97;
+            priorities[x] = (x * 37) % 11 - 5;
+            ticks.schedule(x, 0, 0, BlockType.DIRT, delays[x], priorities[x]);
+            // The same block and type can only be pending once
+            duplicates |= ticks.schedule(x, 0, 0, BlockType.DIRT, delays[x] + 1, 0);
+        }
+        check("Scheduling a pending block again", !duplicates, "it was accepted");
+        
+        run(ticks, world, log, 5 * 97 + 1);
+        int[] runs = new int[n];
+        String problem = null;
+        for (int i = 0; i < log.count && problem == null; i++) {
+            int x = log.xs[i];
+            runs[x]++;
+            if (log.ticks[i] != delays[x]) {
+                problem = "block " + x + " ran on tick " + log.ticks[i] + " instead of " + delays[x];
+            } else if (i > 0 && log.ticks[i-1] == log.ticks[i] && priorities[log.xs[i-1]] > priorities[x]) {
+                problem = "block " + x + " ran after a block of higher priority on tick " + log.ticks[i];
+            }
+        }
+        for (int x = 0; x < n && problem == null; x++) {
+            if (runs[x] != 1) problem = "block " + x + " ran " + runs[x] + " times";
+        }
+        check("Due ticks and priority order", problem == null, problem);
+        check("Nothing left pending", ticks.size() == 0, ticks.size() + " ticks left");
+    }
+    
+    /**
+     * Checks that a tick does not run once its block has changed type.
+     * 
+     * @param world the blocks
+     */
+    private static void checkTypeChange(World world) {
+        ScheduledTicks ticks = new ScheduledTicks(ScheduledTicks.DEFAULT_BUDGET);
+        Log log = new Log();
+        ticks.schedule(3, 0, 3, BlockType.DIRT, 2, 0);
+        ticks.schedule(4, 0, 3, BlockType.DIRT, 2, 0);
+        world.setBlockType(3, 0, 3, BlockType.GLASS);
+        run(ticks, world, log, 2);
+        world.setBlockType(3, 0, 3, BlockType.DIRT);
+        check("Changed blocks are skipped", log.count == 1 && log.xs[0] == 4,
+                log.count + " ticks ran instead of only the unchanged block's");
+    }
+    
+    /**
+     * Schedules more ticks for one tick than the budget allows, plus more due
+     * on the next, and checks that the ones carried over run first.
+     * 
+     * @param world the blocks
+     */
+    private static void checkCarryOver(World world) {
+        final int budget = 10, first = 25, second = 5;
+        ScheduledTicks ticks = new ScheduledTicks(budget);
+        Log log = new Log();
+        for (int i = 0; i < first; i++) {
+            ticks.schedule(i, 0, 1, BlockType.DIRT, 1, ScheduledTicks.MAX_PRIORITY);
+        }
+        // Lower priority, but due later, so they still wait for the first lot
+        for (int i = 0; i < second; i++) {
+            ticks.schedule(i, 0, 2, BlockType.DIRT, 2, ScheduledTicks.MIN_PRIORITY);
+        }
+        
+        int[] expectedCarried = {first - budget, first + second - 2 * budget, 0};
+        String problem = null;
+        for (int t = 0; t < expectedCarried.length; t++) {
+            run(ticks, world, log, 1);
+            if (ticks.getLastRun() != budget || ticks.getLastCarried() != expectedCarried[t]) {
+                problem = "tick " + (t + 1) + " ran " + ticks.getLastRun() + " and carried "
+                        + ticks.getLastCarried() + " instead of " + budget + " and " + expectedCarried[t];
+                break;
+            }
+        }
+        for (int i = 0; i < log.count && problem == null; i++) {
+            if ((i < first) != (log.zs[i] == 1)) problem = "a later tick ran before a carried one";
+        }
+        check("Budget and carry-over", problem == null, problem);
+    }
+    
+    /**
+     * Unloads a Chunk with ticks pending, runs past when they were due, and
+     * checks that they run with the same time left once it is loaded again.
+     * 
+     * @param world the blocks
+     */
+    private static void checkUnload(World world) {
+        ScheduledTicks ticks = new ScheduledTicks(ScheduledTicks.DEFAULT_BUDGET);
+        Log log = new Log();
+        ticks.schedule(20, 0, 20, BlockType.DIRT, 10, 0);
+        ticks.schedule(21, 0, 20, BlockType.DIRT, 3, 0);
+        ticks.schedule(2, 0, 2, BlockType.DIRT, 10, 0);
+        
+        run(ticks, world, log, 5);
+        boolean earlyRan = log.count == 1 && log.xs[0] == 21 && log.ticks[0] == 3;
+        ticks.chunkUnloaded(1, 0, 1);
+        int whileUnloaded = ticks.size();
+        run(ticks, world, log, 30);
+        boolean othersRan = log.count == 2 && log.xs[1] == 2 && log.ticks[1] == 10;
+        
+        long loadedAt = log.tick;
+        ticks.chunkLoaded(1, 0, 1);
+        int afterLoad = ticks.size();
+        run(ticks, world, log, 10);
+        boolean keptRan = log.count == 3 && log.xs[2] == 20 && log.ticks[2] == loadedAt + 5;
+        
+        check("Ticks before unloading", earlyRan, "the first tick did not run on time");
+        check("Unloaded ticks are taken out", whileUnloaded == 1 && othersRan,
+                whileUnloaded + " pending while unloaded");
+        check("Reloaded ticks keep their time left", afterLoad == 1 && keptRan,
+                (log.count < 3) ? "it never ran" : "it ran " + (log.ticks[2] - loadedAt) + " ticks after loading instead of 5");
+    }
+    
+    /**
+     * Runs a GameState, whose World has a ground layer of dirt, and checks
+     * the random ticks that reach {@code counter}. Each tick picks
+     * {@code RandomTicks.DEFAULT_PER_CHUNK} positions in each Chunk with any
+     * dirt, so the number of ticks should be close to the sum over those
+     * Chunks of that times the fraction of the Chunk which is dirt.
+     * 
+     * @param counter the behavior registered for dirt
+     * @param gameTicks the number of ticks to run
+     */
+    private static void checkRandomTicks(RandomTickCounter counter, int gameTicks) {
+        GameState state = new GameState(GameStateListener.NONE);
+        double expected = 0, variance = 0;
+        for (Chunk chunk : state.getWorld().getChunks()) {
+            double p = chunk.getRandomTickCount() / (double)(Chunk.SIZE * Chunk.SIZE * Chunk.SIZE);
+            expected += RandomTicks.DEFAULT_PER_CHUNK * p;
+            variance += RandomTicks.DEFAULT_PER_CHUNK * p * (1 - p);
+        }
+        expected *= gameTicks;
+        variance *= gameTicks;
+        
+        counter.count = counter.misplaced = 0;
+        long reported = 0;
+        long start = System.nanoTime();
+        for (int t = 0; t < gameTicks; t++) {
+            state.update(NO_INPUT, 50);
+            reported += state.getRandomTicks().getLastTicked();
+        }
+        long elapsed = System.nanoTime() - start;
+        
+        System.out.printf("Random ticks: %d over %d ticks, expected %.0f; %.3f ms per tick%n",
+                counter.count, gameTicks, expected, elapsed / 1e6 / gameTicks);
+        check("Random ticks reach only dirt", counter.misplaced == 0, counter.misplaced + " ticks reached other blocks");
+        check("Random ticks counted", reported == counter.count,
+                "RandomTicks reported " + reported + " but the behavior saw " + counter.count);
+        // Five standard deviations, so a correct sampler practically never fails
+        check("Random tick rate", Math.abs(counter.count - expected) <= 5 * Math.sqrt(variance) && counter.count > 0,
+                counter.count + " is too far from " + Math.round(expected));
+    }
+    
+    /**
+     * Checks that notifications of a block which is already queued are
+     * coalesced, and then sets off a ChainReaction twice: once with no cap,
+     * and once with a small budget per tick. The capped one must send exactly
+     * the budget every tick until the end, carry the rest over, and reach the
+     * cube in the same breadth-first order with the same notifications.
+     */
+    private static void checkNeighbourUpdates() {
+        NeighbourUpdates updates = new NeighbourUpdates(NeighbourUpdates.DEFAULT_BUDGET);
+        updates.notifyBlock(1, 1, 1);
+        updates.notifyBlock(1, 1, 1);
+        // (1, 1, 1) is one of these, so it is coalesced again
+        updates.notifyNeighbours(0, 1, 1);
+        updates.process(new NeighbourUpdates.Handler() {
+            @Override
+            public void neighbourChanged(int x, int y, int z) {}
+        });
+        check("Neighbour notifications coalesced", updates.getLastProcessed() == 6 && updates.getLastCoalesced() == 2,
+                updates.getLastProcessed() + " processed and " + updates.getLastCoalesced() + " coalesced instead of 6 and 2");
+        
+        final int budget = 100;
+        final int middle = ChainReaction.SIZE / 2;
+        NeighbourUpdates unlimited = new NeighbourUpdates(Integer.MAX_VALUE);
+        ChainReaction reference = new ChainReaction(unlimited);
+        unlimited.notifyBlock(middle, middle, middle);
+        unlimited.process(reference);
+        
+        NeighbourUpdates capped = new NeighbourUpdates(budget);
+        ChainReaction reaction = new ChainReaction(capped);
+        capped.notifyBlock(middle, middle, middle);
+        int ticks = 0, peak = 0;
+        long coalesced = 0;
+        String problem = null;
+        do {
+            capped.process(reaction);
+            ticks++;
+            peak = Math.max(peak, capped.getLastPeakDepth());
+            coalesced += capped.getLastCoalesced();
+            if (capped.getDepth() > 0 && capped.getLastProcessed() != budget) {
+                problem = "tick " + ticks + " processed " + capped.getLastProcessed() + " with "
+                        + capped.getDepth() + " still queued";
+            }
+        } while (capped.getDepth() > 0 && problem == null);
+        
+        if (problem == null && reaction.reachedCount != reaction.reached.length) {
+            problem = "only " + reaction.reachedCount + " of " + reaction.reached.length + " blocks were reached";
+        } else if (problem == null && reaction.notified != reference.notified) {
+            problem = reaction.notified + " notifications instead of " + reference.notified;
+        } else if (problem == null && ticks != (reaction.notified + budget - 1) / budget) {
+            problem = "it took " + ticks + " ticks, so the budget was not kept to";
+        } else if (problem == null && !Arrays.equals(reaction.order, reference.order)) {
+            problem = "the blocks were reached in a different order";
+        }
+        
+        // Breadth first, so the blocks are reached in order of distance
+        int lastDistance = 0;
+        for (int i = 0; i < reference.reachedCount && problem == null; i++) {
+            int b = reference.order[i];
+            int x = b / (ChainReaction.SIZE * ChainReaction.SIZE), y = (b / ChainReaction.SIZE) % ChainReaction.SIZE, z = b % ChainReaction.SIZE;
+            int distance = Math.abs(x - middle) + Math.abs(y - middle) + Math.abs(z - middle);
+            if (distance < lastDistance) problem = "a block was reached after a farther one";
+            lastDistance = distance;
+        }
+        
+        System.out.printf("Chain reaction: %d notifications, %d coalesced, over %d ticks of %d with a peak depth of %d%n",
+                reaction.notified, coalesced, ticks, budget, peak);
+        check("Neighbour update cap and carry-over", problem == null, problem);
+    }
+    
+    /**
+     * Schedules random ticks all over the World and times running them all.
+     * 
+     * @param world the blocks
+     * @param count the number of ticks to schedule
+     * @param seed the random seed
+     */
+    private static void timeScheduledTicks(World world, int count, long seed) {
+        ScheduledTicks ticks = new ScheduledTicks(ScheduledTicks.DEFAULT_BUDGET);
+        Log log = new Log();
+        Random random = new Random(seed);
+        final int maxDelay = 4 * ScheduledTicks.WHEEL_SIZE;
+        
+        long start = System.nanoTime();
+        int scheduled = 0;
+        for (int i = 0; i < count; i++) {
+            // Only the ground's ticks actually run, but every one is queued
+            if (ticks.schedule(random.nextInt(World.SIZE), random.nextInt(World.SIZE), random.nextInt(World.SIZE), BlockType.DIRT,
+                    1 + random.nextInt(maxDelay), random.nextInt(16))) {
+                scheduled++;
+            }
+        }
+        long afterSchedule = System.nanoTime();
+        int maxRun = 0, ticksRun = 0;
+        while (ticks.size() > 0) {
+            run(ticks, world, log, 1);
+            maxRun = Math.max(maxRun, ticks.getLastRun());
+            ticksRun++;
+        }
+        long end = System.nanoTime();
+        
+        System.out.printf("Scheduled %d ticks in %.2f ms (%.0f ns each); ran them over %d ticks in %.2f ms, at most %d in one tick%n",
+                scheduled, (afterSchedule - start) / 1e6, (double)(afterSchedule - start) / scheduled,
+                ticksRun, (end - afterSchedule) / 1e6, maxRun);
+    }
+}
@@ -0,0 +1,123 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * BlockType holds the type ids stored in Chunks and the properties of each
+ * type. Types are kept as plain bytes everywhere else, so this class only
+ * provides constants and lookups.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ */
+final class BlockType {
+    
+    static final byte AIR = 0;
+    static final byte DIRT = 1;
+    static final byte GLASS = 2;
+    
+    /**
+     * The types the Player can cycle through and place, in order.
+     */
+    static final byte[] PLACEABLE = {DIRT, GLASS};
+    
+    /**
+     * Whether each type lets light (and the view) through partially.
+     */
+    private static final boolean[] translucent = new boolean[256];
+    
+    static {
+        translucent[GLASS] = true;
+    }
+    
+    /**
+     * The BlockBehavior of each type, or null if it does nothing by itself.
+     */
+    private static final BlockBehavior[] behaviors = new BlockBehavior[256];
+    
+    /**
+     * Whether each type receives random ticks.
+     */
+    private static final boolean[] randomTicks = new boolean[256];
+    
+    /**
+     * Set when the first Chunk is created, after which types can no longer
+     * start or stop receiving random ticks.
+     */
+    private static volatile boolean chunksCreated;
+    
+    /**
+     * Not instantiable.
+     */
+    private BlockType() {}
+    
+    /**
+     * Determines whether a block of this type completely hides the faces of
+     * the blocks behind it.
+     * 
+     * @param type the type id
+     * @return true if it is neither air nor translucent
+     */
+    static boolean isOpaque(byte type) {
+        return type != AIR && !translucent[type & 0xFF];
+    }
+    
+    /**
+     * Determines whether a block of this type must be drawn in the sorted
+     * translucent pass.
+     * 
+     * @param type the type id
+     * @return true if it is translucent
+     */
+    static boolean isTranslucent(byte type) {
+        return translucent[type & 0xFF];
+    }
+    
+    /**
+     * Gets the BlockBehavior of a type.
+     * 
+     * @param type the type id
+     * @return its BlockBehavior, or null if it has none
+     */
+    static BlockBehavior getBehavior(byte type) {
+        return behaviors[type & 0xFF];
+    }
+    
+    /**
+     * Determines whether blocks of this type receive random ticks.
+     * 
+     * @param type the type id
+     * @return true if they do
+     */
+    static boolean receivesRandomTicks(byte type) {
+        return randomTicks[type & 0xFF];
+    }
+    
+    /**
+     * Sets the BlockBehavior of a type. Chunks count their blocks which
+     * receive random ticks as the blocks are set, so once any Chunk has been
+     * created, the behavior can still be replaced but whether the type
+     * receives random ticks cannot change.
+     * 
+     * @param type the type id
+     * @param behavior its BlockBehavior, or null for none
+     * @param receivesRandomTicks whether blocks of the type receive random ticks
+     * @throws IllegalStateException if a Chunk has been created and this would
+     *         change whether the type receives random ticks
+     */
+    static void setBehavior(byte type, BlockBehavior behavior, boolean receivesRandomTicks) {
+        boolean ticks = behavior != null && receivesRandomTicks;
+        if (chunksCreated && ticks != randomTicks[type & 0xFF]) {
+            throw new IllegalStateException("Random ticks of type " + type + " changed after Chunks were created");
+        }
+        behaviors[type & 0xFF] = behavior;
+        randomTicks[type & 0xFF] = ticks;
+    }
+    
+    /**
+     * Notes that a Chunk has been created. Called by the Chunk constructor.
+     */
+    static void chunkCreated() {
+        if (!chunksCreated) chunksCreated = true;
+    }
+}
@@ -0,0 +1,39 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * A BlockView is anything that block types can be read from by world
+ * coordinates: the live World, or an immutable WorldSnapshot of it. It also
+ * reports which regions are empty, so that they can be skipped.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see World
+ * @see WorldSnapshot
+ */
+interface BlockView {
+    
+    /**
+     * Get a block's type.
+     * 
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @return its type id, or 0 (air) if it is not loaded
+     */
+    byte getBlockType(int x, int y, int z);
+    
+    /**
+     * Gets the size of the largest aligned cube around a block that is known
+     * to contain only air.
+     * 
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @return the cube's size as a power of two: 4 if the whole Chunk is empty
+     *         or not loaded, {@code Chunk.BRICK_SHIFT} if the block's brick is
+     *         empty, or 0 if the block itself must be read
+     */
+    int getEmptyShift(int x, int y, int z);
+}
@@ -0,0 +1,192 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Arrays;
+
+/**
+ * BoxCollider moves an axis-aligned bounding box through the block grid without
+ * letting it pass into any solid block. The box may be any size, so the same
+ * routine serves the Player and any other entity.
+ * <p>
+ * A move is resolved in two passes. First every solid block inside the volume
+ * swept by the box is gathered into a reusable array, so each block is only
+ * read once. Then the movement is clipped one axis at a time, X, then Y, then
+ * Z: the box is moved as far as it can go along the axis before touching one
+ * of those blocks, and the next axis starts from there. Resolving the axes
+ * separately is what lets a box slide along a wall or walk along the ground
+ * instead of sticking to it.
+ * <p>
+ * A BoxCollider keeps its scratch array between calls and allocates nothing
+ * once that array is large enough. It is not thread-safe, so each thread must
+ * use its own.
+ *
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ */
+final class BoxCollider {
+
+    /**
+     * Set in the result of {@code sweep} if the movement along X was clipped.
+     */
+    static final int HIT_X = 1;
+
+    /**
+     * Set in the result of {@code sweep} if the movement along Y was clipped.
+     */
+    static final int HIT_Y = 2;
+
+    /**
+     * Set in the result of {@code sweep} if the movement along Z was clipped.
+     */
+    static final int HIT_Z = 4;
+
+    /**
+     * How far a box must overlap a block before they count as touching. Without
+     * this, a box resting exactly against a wall could be caught by rounding
+     * errors and stopped from sliding along it.
+     */
+    private static final float EPSILON = 1e-4f;
+
+    /**
+     * Decides which block types are solid.
+     */
+    private final BlockFilter solid;
+
+    /**
+     * The solid blocks in the swept volume, three ints (x, y, z) per block.
+     */
+    private int[] candidates = new int[3 * 64];
+    private int candidateCount;
+
+    /**
+     * The movement that was actually possible during the last {@code sweep}.
+     */
+    float moveX, moveY, moveZ;
+
+    /**
+     * Creates a new BoxCollider.
+     *
+     * @param solid decides which block types the box cannot pass through
+     */
+    BoxCollider(BlockFilter solid) {
+        this.solid = solid;
+    }
+
+    /**
+     * Moves a box as far as it can go towards ({@code dx}, {@code dy},
+     * {@code dz}). The box is given by the centre of its bottom face, which is
+     * how an entity standing on the ground is usually positioned. The possible
+     * movement is left in {@code moveX}, {@code moveY} and {@code moveZ}.
+     *
+     * @param view the blocks to collide with
+     * @param x the X-coordinate of the centre of the box's bottom
+     * @param y the Y-coordinate of the box's bottom
+     * @param z the Z-coordinate of the centre of the box's bottom
+     * @param halfWidth half of the box's size along the X and Z axes
+     * @param height the box's size along the Y axis
+     * @param dx the desired movement along X
+     * @param dy the desired movement along Y
+     * @param dz the desired movement along Z
+     * @return the axes along which the movement was clipped, a combination of
+     *         {@code HIT_X}, {@code HIT_Y} and {@code HIT_Z}
+     */
+    int sweep(BlockView view, float x, float y, float z, float halfWidth, float height,
+            float dx, float dy, float dz) {
+        float minX = x - halfWidth, maxX = x + halfWidth;
+        float minY = y, maxY = y + height;
+        float minZ = z - halfWidth, maxZ = z + halfWidth;
+        gatherCandidates(view,
+                Math.min(minX, minX + dx), Math.min(minY, minY + dy), Math.min(minZ, minZ + dz),
+                Math.max(maxX, maxX + dx), Math.max(maxY, maxY + dy), Math.max(maxZ, maxZ + dz));
+
+        int hits = 0;
+        int[] cells = candidates;
+        int end = candidateCount * 3;
+
+        // X, against blocks overlapping the box on Y and Z
+        if (dx != 0) {
+            float clipped = dx;
+            for (int i = 0; i < end; i += 3) {
+                int cx = cells[i], cy = cells[i+1], cz = cells[i+2];
+                if (maxY <= cy + EPSILON || minY >= cy + 1 - EPSILON
+                        || maxZ <= cz + EPSILON || minZ >= cz + 1 - EPSILON) continue;
+                if (clipped > 0 && maxX <= cx + EPSILON) clipped = Math.min(clipped, cx - maxX);
+                else if (clipped < 0 && minX >= cx + 1 - EPSILON) clipped = Math.max(clipped, cx + 1 - minX);
+            }
+            if (clipped != dx) hits |= HIT_X;
+            minX += clipped;
+            maxX += clipped;
+            dx = clipped;
+        }
+
+        // Y, against blocks overlapping the moved box on X and Z
+        if (dy != 0) {
+            float clipped = dy;
+            for (int i = 0; i < end; i += 3) {
+                int cx = cells[i], cy = cells[i+1], cz = cells[i+2];
+                if (maxX <= cx + EPSILON || minX >= cx + 1 - EPSILON
+                        || maxZ <= cz + EPSILON || minZ >= cz + 1 - EPSILON) continue;
+                if (clipped > 0 && maxY <= cy + EPSILON) clipped = Math.min(clipped, cy - maxY);
+                else if (clipped < 0 && minY >= cy + 1 - EPSILON) clipped = Math.max(clipped, cy + 1 - minY);
+            }
+            if (clipped != dy) hits |= HIT_Y;
+            minY += clipped;
+            maxY += clipped;
+            dy = clipped;
+        }
+
+        // Z, against blocks overlapping the moved box on X and Y
+        if (dz != 0) {
+            float clipped = dz;
+            for (int i = 0; i < end; i += 3) {
+                int cx = cells[i], cy = cells[i+1], cz = cells[i+2];
+                if (maxX <= cx + EPSILON || minX >= cx + 1 - EPSILON
+                        || maxY <= cy + EPSILON || minY >= cy + 1 - EPSILON) continue;
+                if (clipped > 0 && maxZ <= cz + EPSILON) clipped = Math.min(clipped, cz - maxZ);
+                else if (clipped < 0 && minZ >= cz + 1 - EPSILON) clipped = Math.max(clipped, cz + 1 - minZ);
+            }
+            if (clipped != dz) hits |= HIT_Z;
+            dz = clipped;
+        }
+
+        moveX = dx;
+        moveY = dy;
+        moveZ = dz;
+        return hits;
+    }
+
+    /**
+     * Collects every solid block touching the given volume into {@code candidates}.
+     *
+     * @param view the blocks to read
+     * @param minX the volume's minimum X-coordinate
+     * @param minY the volume's minimum Y-coordinate
+     * @param minZ the volume's minimum Z-coordinate
+     * @param maxX the volume's maximum X-coordinate
+     * @param maxY the volume's maximum Y-coordinate
+     * @param maxZ the volume's maximum Z-coordinate
+     */
+    private void gatherCandidates(BlockView view, float minX, float minY, float minZ,
+            float maxX, float maxY, float maxZ) {
+        int x0 = (int)Math.floor(minX), x1 = (int)Math.floor(maxX);
+        int y0 = (int)Math.floor(minY), y1 = (int)Math.floor(maxY);
+        int z0 = (int)Math.floor(minZ), z1 = (int)Math.floor(maxZ);
+
+        candidateCount = 0;
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                for (int z = z0; z <= z1; z++) {
+                    if (!solid.accept(view.getBlockType(x, y, z))) continue;
+                    if (candidateCount * 3 == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidates.length * 2);
+                    }
+                    candidates[candidateCount*3] = x;
+                    candidates[candidateCount*3+1] = y;
+                    candidates[candidateCount*3+2] = z;
+                    candidateCount++;
+                }
+            }
+        }
+    }
+}
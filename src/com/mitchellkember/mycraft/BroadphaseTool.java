@@ -0,0 +1,156 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Random;
+
+/**
+ * BroadphaseTool is a command line tool which measures how SpatialHash scales
+ * with the number of entities. For each count it scatters that many entities
+ * over an area which grows with the count, so that they are always as crowded,
+ * and then times rebuilding the hash and finding the neighbours of every
+ * entity. With the crowding held constant, the time per entity should stay
+ * about the same whatever the count.
+ * <p>
+ * Usage: {@code BroadphaseTool [options]}
+ * <ul>
+ * <li>{@code -count N} measure N entities; may be given more than once, and
+ *     defaults to 10000 and 100000</li>
+ * <li>{@code -radius R} find neighbours within R units (default 2)</li>
+ * <li>{@code -cell S} use cells of S units (default 2)</li>
+ * <li>{@code -repeat N} measure N times and report the fastest (default 5)</li>
+ * <li>{@code -brute} also test every pair of entities, to check the results
+ *     and compare the time</li>
+ * </ul>
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see SpatialHash
+ */
+final class BroadphaseTool {
+    
+    /**
+     * Entities per square unit of ground.
+     */
+    private static final float DENSITY = 0.25f;
+    
+    /**
+     * Not instantiable.
+     */
+    private BroadphaseTool() {}
+    
+    /**
+     * The main method.
+     * 
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int[] counts = new int[args.length];
+        int countCount = 0;
+        float radius = 2, cellSize = 2;
+        int repeat = 5;
+        boolean brute = false;
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-count")) counts[countCount++] = Integer.parseInt(args[++i]);
+                else if (args[i].equals("-radius")) radius = Float.parseFloat(args[++i]);
+                else if (args[i].equals("-cell")) cellSize = Float.parseFloat(args[++i]);
+                else if (args[i].equals("-repeat")) repeat = Math.max(1, Integer.parseInt(args[++i]));
+                else if (args[i].equals("-brute")) brute = true;
+                else throw new IllegalArgumentException(args[i]);
+            }
+        } catch (RuntimeException re) {
+            System.err.println("Usage: BroadphaseTool [-count N]... [-radius R] [-cell S] [-repeat N] [-brute]");
+            System.exit(2);
+        }
+        if (countCount == 0) {
+            counts = new int[] {10000, 100000};
+            countCount = 2;
+        }
+        
+        System.out.println("entities  rebuild ms  query ms  ns/entity  neighbours");
+        for (int c = 0; c < countCount; c++) {
+            if (!measure(counts[c], radius, cellSize, repeat, brute)) System.exit(1);
+        }
+    }
+    
+    /**
+     * Measures one count of entities and prints a line of results.
+     * 
+     * @param count the number of entities
+     * @param radius the neighbour distance
+     * @param cellSize the size of the hash's cells
+     * @param repeat how many times to measure
+     * @param brute whether to check against every pair
+     * @return false if the brute force check disagreed
+     */
+    private static boolean measure(int count, float radius, float cellSize, int repeat, boolean brute) {
+        Entities entities = new Entities(count);
+        Random random = new Random(count);
+        float side = (float)Math.sqrt(count / DENSITY);
+        for (int i = 0; i < count; i++) {
+            entities.create(random.nextFloat() * side, random.nextFloat() * 4,
+                    random.nextFloat() * side, 0.3f, 0.9f);
+        }
+        
+        SpatialHash hash = new SpatialHash(cellSize);
+        int[] results = new int[64];
+        long bestRebuild = Long.MAX_VALUE, bestQuery = Long.MAX_VALUE;
+        long neighbours = 0;
+        for (int r = 0; r < repeat; r++) {
+            long start = System.nanoTime();
+            hash.rebuild(entities);
+            long rebuilt = System.nanoTime();
+            neighbours = 0;
+            for (int i = 0; i < count; i++) {
+                int found = hash.queryRadius(entities.x[i], entities.y[i], entities.z[i], radius, results);
+                if (found > results.length) {
+                    results = new int[found * 2];
+                    found = hash.queryRadius(entities.x[i], entities.y[i], entities.z[i], radius, results);
+                }
+                neighbours += found;
+            }
+            long queried = System.nanoTime();
+            bestRebuild = Math.min(bestRebuild, rebuilt - start);
+            bestQuery = Math.min(bestQuery, queried - rebuilt);
+        }
+        System.out.printf("%8d  %10.2f  %8.2f  %9.0f  %10d%n", count, bestRebuild / 1e6, bestQuery / 1e6,
+                (double)(bestRebuild + bestQuery) / count, neighbours);
+        
+        if (brute) {
+            long start = System.nanoTime();
+            long expected = bruteForce(entities, radius);
+            System.out.printf("%8s  brute force %.2f ms, %d neighbours%n", "", (System.nanoTime() - start) / 1e6, expected);
+            if (expected != neighbours) {
+                System.out.println("MISMATCH");
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Counts the neighbours of every entity by testing every pair.
+     * 
+     * @param entities the entities
+     * @param radius the neighbour distance
+     * @return the total number of neighbours
+     */
+    private static long bruteForce(Entities entities, float radius) {
+        float[] x = entities.x, y = entities.y, z = entities.z;
+        float[] halfWidth = entities.halfWidth, height = entities.height;
+        float radiusSquared = radius * radius;
+        long neighbours = 0;
+        for (int p = 0, n = entities.size(); p < n; p++) {
+            for (int i = 0; i < n; i++) {
+                float w = halfWidth[i];
+                float dx = Math.max(Math.max(x[i] - w - x[p], x[p] - x[i] - w), 0);
+                float dy = Math.max(Math.max(y[i] - y[p], y[p] - y[i] - height[i]), 0);
+                float dz = Math.max(Math.max(z[i] - w - z[p], z[p] - z[i] - w), 0);
+                if (dx*dx + dy*dy + dz*dz <= radiusSquared) neighbours++;
+            }
+        }
+        return neighbours;
+    }
+}
@@ -2,8 +2,6 @@
 
 package com.mitchellkember.mycraft;
 
-import static org.lwjgl.util.glu.GLU.gluLookAt;
-
 /**
  * Camera manages a first person camera in 3D space. It calculates the necessary
  * matrix transformations to orient the camera, and provides a simplified
@@ -22,6 +20,11 @@ import static org.lwjgl.util.glu.GLU.gluLookAt;
  * Camera represents a property of the Player (its view) rather than an aspect
  * of rendering. Internally, however, Camera is more of a mix of the model and
  * the view.
+ * <p>
+ * The view matrix is built by Camera itself and kept between frames; it is
+ * only rebuilt when the eye or the direction actually changes. Camera does not
+ * call OpenGL itself, so that it can be used without a display. None of the
+ * methods used every frame or every tick allocate anything.
  * 
  * @author Mitchell Kember
  * @since 08/12/2011
@@ -44,12 +47,18 @@ final class Camera {
      * The position, stored internally in OpenGL/right-handed coordinates. That is,
      * movement actions will change the Z-coordinate of {@code position} inversely.
      */
-    private Vector position = new Vector(0, 0, 0);
+    private final Vector position = new Vector(0, 0, 0);
+    
+    /**
+     * The position at the start of the current tick, in the same coordinates
+     * as {@code position}. Rendering interpolates between the two.
+     */
+    private final Vector previousPosition = new Vector(0, 0, 0);
     
     /**
      * Normalized Vector pointing to the right of this Camera.
      */
-    private Vector right = new Vector(1, 0, 0);
+    private final Vector right = new Vector(1, 0, 0);
     
     /**
      * The view or sight of this Camera, as a normalized Vector relative to
@@ -57,7 +66,7 @@ final class Camera {
      * 
      * @see #position
      */
-    private Vector sight = new Vector(0, 0, -1);
+    private final Vector sight = new Vector(0, 0, -1);
     
     /**
      * Keeps track of this Camera's pitch, used to avoid pitching below
@@ -68,18 +77,83 @@ final class Camera {
     private float rotationX = 0;
     
     /**
-     * Updates the OpenGL ModelView matrix stack for this Camera's view.
-     * Call after all Camera transformations and before rendering. It is
-     * assumed that the identity matrix has been loaded.
+     * The view matrix.
      */
-    void updateMatrix() {
-        // Get the absolute coordinate of the view direction
-        Vector lookAt = position.plus(sight);
-        
-        // Multiply onto the matrix stack
-        gluLookAt((float)position.x,(float)position.y,  (float)position.z,
-                  (float)lookAt.x,  (float)lookAt.y,    (float)lookAt.z,
-                  (float)sky.x,     (float)sky.y,       (float)sky.z);
+    private final Matrix4f view = new Matrix4f();
+    
+    /**
+     * The eye {@code view} was built for, and the eye being rendered from.
+     */
+    private final Vector viewEye = new Vector(Float.NaN, Float.NaN, Float.NaN);
+    private final Vector renderEye = new Vector();
+    
+    /**
+     * True when the direction has changed since {@code view} was built.
+     */
+    private boolean orientationChanged = true;
+    
+    /**
+     * Updates the view matrix for this Camera's view, to be multiplied onto
+     * the OpenGL ModelView matrix stack. Call after all Camera transformations
+     * and before rendering. The eye is placed between where this Camera was at
+     * the start of the tick and where it is now; the direction is always the
+     * current one, so that looking around responds immediately.
+     * 
+     * @param alpha how far between the previous tick and this one to render,
+     *        from 0 to 1
+     * @return the view matrix, which belongs to this Camera
+     */
+    Matrix4f updateMatrix(float alpha) {
+        Vector eye = getInterpolatedPosition(alpha, renderEye);
+        if (orientationChanged || eye.x != viewEye.x || eye.y != viewEye.y || eye.z != viewEye.z) {
+            view.setLookAt(eye.x, eye.y, eye.z,
+                    eye.x + sight.x, eye.y + sight.y, eye.z + sight.z,
+                    sky.x, sky.y, sky.z);
+            viewEye.set(eye);
+            orientationChanged = false;
+        }
+        return view;
+    }
+    
+    /**
+     * Makes this Camera a copy of {@code other}, apart from the view matrix,
+     * which is rebuilt when it is next needed if the copy has changed it.
+     * 
+     * @param other the Camera to copy
+     */
+    void set(Camera other) {
+        position.set(other.position);
+        previousPosition.set(other.previousPosition);
+        if (sight.x != other.sight.x || sight.y != other.sight.y || sight.z != other.sight.z) {
+            sight.set(other.sight);
+            right.set(other.right);
+            orientationChanged = true;
+        }
+        rotationX = other.rotationX;
+    }
+    
+    /**
+     * Remembers the current position as the start of a new tick. Call this
+     * before moving the Camera in each tick.
+     */
+    void beginTick() {
+        previousPosition.x = position.x;
+        previousPosition.y = position.y;
+        previousPosition.z = position.z;
+    }
+    
+    /**
+     * Calculates the position to render from, between where this Camera was at
+     * the start of the tick and where it is now.
+     * 
+     * @param alpha how far between the previous tick and this one, from 0 to 1
+     * @param dest the Vector to receive the position in OpenGL coordinates
+     * @return {@code dest}
+     */
+    Vector getInterpolatedPosition(float alpha, Vector dest) {
+        return dest.set(previousPosition.x + (position.x - previousPosition.x) * alpha,
+                previousPosition.y + (position.y - previousPosition.y) * alpha,
+                previousPosition.z + (position.z - previousPosition.z) * alpha);
     }
     
     /**
@@ -88,7 +162,9 @@ final class Camera {
      * @param vec the movement Vector
      */
     void move(Vector vec) {
-        position.add(vec.invertedZ());
+        position.x += vec.x;
+        position.y += vec.y;
+        position.z -= vec.z;
     }
     
     /**
@@ -99,7 +175,10 @@ final class Camera {
      * @param distance the distance to move forward by
      */
     void moveForward(float distance) {
-        position.add(new Vector(sight.x, 0, sight.z).normalized().scaled(distance));
+        float length = (float)Math.sqrt(sight.x*sight.x + sight.z*sight.z);
+        if (length == 0) return;
+        position.x += sight.x / length * distance;
+        position.z += sight.z / length * distance;
     }
     
     /**
@@ -110,7 +189,9 @@ final class Camera {
      * @param distance the distance to move to the right by
      */
     void strafeRight(float distance) {
-        position.add(right.scaled(distance));
+        position.x += right.x * distance;
+        position.y += right.y * distance;
+        position.z += right.z * distance;
     }
     
     /**
@@ -123,7 +204,8 @@ final class Camera {
         if (rotationX + angle < -89.9f || rotationX + angle > 89.9f) return;
         rotationX += angle; // keep track of angle
         
-        sight = Vector.axisRotation(sight, right, angle*DEG_TO_RAD);
+        Vector.axisRotation(sight, right, angle*DEG_TO_RAD, sight);
+        orientationChanged = true;
     }
     
     /**
@@ -137,8 +219,9 @@ final class Camera {
      * @param angle degrees to rotate by
      */
     void yaw(float angle) {
-        sight = Vector.axisRotation(sight, sky, -angle*DEG_TO_RAD);
-        right = Vector.cross(sight, sky).normalized();
+        Vector.axisRotation(sight, sky, -angle*DEG_TO_RAD, sight);
+        Vector.cross(sight, sky, right).normalize();
+        orientationChanged = true;
     }
     
     /**
@@ -169,18 +252,25 @@ final class Camera {
     }
     
     /**
-     * Gets a copy of this Camera's position.
+     * Copies this Camera's position into {@code dest}, without allocating.
      * 
-     * @return the position
+     * @param dest the Vector to receive the position
      */
-    Vector getPosition() {
-        return position.invertedZ();
+    void getPosition(Vector dest) {
+        dest.x = position.x;
+        dest.y = position.y;
+        dest.z = -position.z;
     }
     
     /**
-     * Gets a copy of the Vector which represents the direction of this Camera's line of sight.
+     * Copies the direction of this Camera's line of sight into {@code dest},
+     * without allocating.
+     * 
+     * @param dest the Vector to receive the direction
      */
-    Vector getSight() {
-        return sight.invertedZ();
+    void getSight(Vector dest) {
+        dest.x = sight.x;
+        dest.y = sight.y;
+        dest.z = -sight.z;
     }
 }
@@ -6,6 +6,12 @@ package com.mitchellkember.mycraft;
  * Chunk represents a chunk of 16 by 16 by 16 blocks in the Mycraft world.
  * Each block uses one byte to represent its type, totaling 4 kilobytes to
  * store the information for one Chunk.
+ * <p>
+ * A Chunk also keeps track of which parts of it are empty, so that rays and
+ * other queries can skip over them. It counts its non-air blocks, both in total
+ * and in each of its 64 bricks of 4 by 4 by 4 blocks, and keeps one bit per
+ * brick that is set while the brick has any blocks in it. It also counts its
+ * blocks which receive random ticks, so that Chunks without any can be skipped.
  * 
  * @author Mitchell Kember
  * @since 09/12/2011
@@ -13,9 +19,34 @@ package com.mitchellkember.mycraft;
 final class Chunk {
     
     /**
-     * Not used yet since there is only one Chunk.
+     * The number of blocks along each side of a Chunk.
      */
-    //private Vector position;
+    static final int SIZE = 16;
+    
+    /**
+     * The number of blocks along each side of a brick, as a power of two.
+     */
+    static final int BRICK_SHIFT = 2;
+    
+    /**
+     * The number of bricks along each side of a Chunk.
+     */
+    static final int BRICKS = SIZE >> BRICK_SHIFT;
+    
+    /**
+     * The X-coordinate of this Chunk, in chunks (not blocks).
+     */
+    final int chunkX;
+    
+    /**
+     * The Y-coordinate of this Chunk, in chunks (not blocks).
+     */
+    final int chunkY;
+    
+    /**
+     * The Z-coordinate of this Chunk, in chunks (not blocks).
+     */
+    final int chunkZ;
     
     /**
      * This 3D array stores all the types of the blocks in this Chunk. It is in
@@ -23,15 +54,41 @@ final class Chunk {
      * 
      * {@code data[x][y][z]}
      */
-    private byte[][][] data = new byte[16][16][16];
+    private byte[][][] data = new byte[SIZE][SIZE][SIZE];
     
-    {
-        // Place a ground layer of blocks
-        for (int x = 0; x < 16; x++) {
-            for (int z = 0; z < 16; z++) {
-                data[x][0][z] = 1;
-            }
-        }
+    /**
+     * The number of blocks in this Chunk which are not air.
+     */
+    private int blockCount;
+    
+    /**
+     * The number of blocks which are not air in each brick, indexed by
+     * {@code brickIndex}. A brick holds at most 64, so a byte is enough.
+     */
+    private final byte[] brickCounts = new byte[BRICKS * BRICKS * BRICKS];
+    
+    /**
+     * Bit {@code brickIndex} is set while that brick has any blocks in it.
+     */
+    private long occupiedBricks;
+    
+    /**
+     * The number of blocks in this Chunk whose type receives random ticks.
+     */
+    private int randomTickCount;
+    
+    /**
+     * Creates a new empty Chunk at the specified chunk coordinates.
+     * 
+     * @param chunkX the X-coordinate in chunks
+     * @param chunkY the Y-coordinate in chunks
+     * @param chunkZ the Z-coordinate in chunks
+     */
+    Chunk(int chunkX, int chunkY, int chunkZ) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        this.chunkZ = chunkZ;
+        BlockType.chunkCreated();
     }
     
     /**
@@ -46,20 +103,95 @@ final class Chunk {
     /**
      * Set a block's type.
      * 
-     * @param block the location of the block
+     * @param block the location of the block, relative to this Chunk
      * @param type its new type id
      */
     void setBlockType(Block block, byte type) {
-        data[block.x][block.y][block.z] = type;
+        setBlockType(block.x, block.y, block.z, type);
+    }
+    
+    /**
+     * Set a block's type.
+     * 
+     * @param x the block's X-coordinate, relative to this Chunk
+     * @param y the block's Y-coordinate, relative to this Chunk
+     * @param z the block's Z-coordinate, relative to this Chunk
+     * @param type its new type id
+     */
+    void setBlockType(int x, int y, int z, byte type) {
+        byte oldType = data[x][y][z];
+        data[x][y][z] = type;
+        
+        if ((oldType == BlockType.AIR) != (type == BlockType.AIR)) {
+            int brick = brickIndex(x, y, z);
+            int change = (type == BlockType.AIR) ? -1 : 1;
+            blockCount += change;
+            brickCounts[brick] += change;
+            if (brickCounts[brick] == 0) occupiedBricks &= ~(1L << brick);
+            else occupiedBricks |= 1L << brick;
+        }
+        if (BlockType.receivesRandomTicks(oldType)) randomTickCount--;
+        if (BlockType.receivesRandomTicks(type)) randomTickCount++;
     }
     
     /**
      * Get a block's type.
      * 
-     * @param block the location of the block.
+     * @param block the location of the block, relative to this Chunk
      * @return its type id
      */
     byte getBlockType(Block block) {
-        return data[block.x][block.y][block.z];
+        return getBlockType(block.x, block.y, block.z);
+    }
+    
+    /**
+     * Get a block's type.
+     * 
+     * @param x the block's X-coordinate, relative to this Chunk
+     * @param y the block's Y-coordinate, relative to this Chunk
+     * @param z the block's Z-coordinate, relative to this Chunk
+     * @return its type id
+     */
+    byte getBlockType(int x, int y, int z) {
+        return data[x][y][z];
+    }
+    
+    /**
+     * Calculates the index of the brick containing a block.
+     * 
+     * @param x the block's X-coordinate, relative to its Chunk
+     * @param y the block's Y-coordinate, relative to its Chunk
+     * @param z the block's Z-coordinate, relative to its Chunk
+     * @return the brick index, from 0 to 63
+     */
+    static int brickIndex(int x, int y, int z) {
+        return ((x >> BRICK_SHIFT) * BRICKS + (y >> BRICK_SHIFT)) * BRICKS + (z >> BRICK_SHIFT);
+    }
+    
+    /**
+     * Determines whether every block in this Chunk is air.
+     * 
+     * @return true if this Chunk is empty
+     */
+    boolean isEmpty() {
+        return blockCount == 0;
+    }
+    
+    /**
+     * Gets the bricks which have any blocks in them.
+     * 
+     * @return a mask with bit {@code brickIndex} set for each occupied brick
+     */
+    long getOccupiedBricks() {
+        return occupiedBricks;
+    }
+    
+    /**
+     * Gets the number of blocks in this Chunk which receive random ticks.
+     * 
+     * @return the number of blocks
+     */
+    int getRandomTickCount() {
+        return randomTickCount;
     }
 }
@@ -0,0 +1,180 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * ChunkMesher turns the blocks of a Chunk into the vertices that GameRenderer
+ * uploads to a VBO. Only faces which are not hidden by a neighbouring solid
+ * block are emitted, including faces on the border of the Chunk.
+ * <p>
+ * Looking up neighbouring Chunks through the World for every border block would
+ * be very slow, so the Chunk is first copied together with a one block border
+ * taken from its 26 neighbours into a padded 18 by 18 by 18 scratch array. The
+ * faces are then calculated from that array alone. Each thread has its own
+ * scratch array, so several Chunks can be meshed at once.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see GameRenderer
+ */
+final class ChunkMesher {
+    
+    /**
+     * The number of blocks along each side of the padded neighbourhood.
+     */
+    static final int PADDED_SIZE = Chunk.SIZE + 2;
+    
+    /**
+     * The number of ints making up a single vertex (interleaved XYZST).
+     */
+    static final int VERTEX_SIZE = VertexWriter.SIZE;
+    
+    /**
+     * The number of ints making up a single quad.
+     */
+    static final int QUAD_SIZE = 4 * VERTEX_SIZE;
+    
+    /**
+     * The most quads a single Chunk can produce (a 3D checkerboard).
+     */
+    static final int MAX_QUADS = Chunk.SIZE * Chunk.SIZE * Chunk.SIZE * 3;
+    
+    /**
+     * Each thread's reusable padded neighbourhood, in the format
+     * {@code scratch[(x * PADDED_SIZE + y) * PADDED_SIZE + z]} where the Chunk's
+     * own blocks are at indices 1 to 16 on every axis.
+     */
+    private static final ThreadLocal<byte[]> scratch = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[PADDED_SIZE * PADDED_SIZE * PADDED_SIZE];
+        }
+    };
+    
+    /**
+     * Not instantiable.
+     */
+    private ChunkMesher() {}
+    
+    /**
+     * Calculates the index of a block in the padded neighbourhood.
+     * 
+     * @param x the X index, from 0 to 17
+     * @param y the Y index, from 0 to 17
+     * @param z the Z index, from 0 to 17
+     * @return the index into the scratch array
+     */
+    static int paddedIndex(int x, int y, int z) {
+        return (x * PADDED_SIZE + y) * PADDED_SIZE + z;
+    }
+    
+    /**
+     * Copies {@code chunk} and a one block border from its 26 neighbours into
+     * {@code padded}. Borders facing unloaded Chunks are filled with air.
+     * 
+     * @param world the World containing the Chunk
+     * @param chunk the Chunk to copy
+     * @param padded the destination array, of length {@code PADDED_SIZE} cubed
+     */
+    static void copyNeighbourhood(World world, Chunk chunk, byte[] padded) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    Chunk source = world.getChunk(chunk.chunkX+dx, chunk.chunkY+dy, chunk.chunkZ+dz);
+                    copyRegion(source, dx, dy, dz, padded);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Copies the part of one neighbour (or the Chunk itself, when all offsets
+     * are zero) that falls inside the padded neighbourhood.
+     * 
+     * @param source the neighbouring Chunk, or null if it is not loaded
+     * @param dx the neighbour's X offset, from -1 to 1
+     * @param dy the neighbour's Y offset, from -1 to 1
+     * @param dz the neighbour's Z offset, from -1 to 1
+     * @param padded the destination array
+     */
+    private static void copyRegion(Chunk source, int dx, int dy, int dz, byte[] padded) {
+        // A neighbour at -1 contributes only its last layer, one at +1 only its
+        // first, and the Chunk itself all 16 layers.
+        int x0 = (dx < 0) ? Chunk.SIZE-1 : 0, x1 = (dx > 0) ? 1 : Chunk.SIZE;
+        int y0 = (dy < 0) ? Chunk.SIZE-1 : 0, y1 = (dy > 0) ? 1 : Chunk.SIZE;
+        int z0 = (dz < 0) ? Chunk.SIZE-1 : 0, z1 = (dz > 0) ? 1 : Chunk.SIZE;
+        
+        byte[][][] data = (source != null) ? source.getData() : null;
+        for (int x = x0; x < x1; x++) {
+            for (int y = y0; y < y1; y++) {
+                int base = paddedIndex(x + 1 + dx*Chunk.SIZE, y + 1 + dy*Chunk.SIZE, 1 + dz*Chunk.SIZE);
+                if (data != null) {
+                    System.arraycopy(data[x][y], z0, padded, base + z0, z1 - z0);
+                } else {
+                    Arrays.fill(padded, base + z0, base + z1, BlockType.AIR);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Meshes {@code chunk} as GL_QUADS in interleaved XYZST format. Vertices are
+     * in OpenGL world coordinates (the z axis is inverted), so no translation is
+     * needed when rendering. Faces of opaque blocks are hidden by any opaque
+     * neighbour; faces of translucent blocks are also hidden by a neighbour of
+     * the same type, so that a wall of glass has no inner faces.
+     * 
+     * @param world the World containing the Chunk
+     * @param chunk the Chunk to mesh
+     * @param opaque the buffer for opaque quads, with room for {@code MAX_QUADS}
+     * @param translucent the buffer for translucent quads, with room for {@code MAX_QUADS}
+     * @param faceSlots if not null, receives the index of the opaque quad of each
+     *        face, or {@code PatchableMesh.NO_SLOT}, in the format
+     *        {@code faceSlots[((x * 16 + y) * 16 + z) * 6 + face.ordinal()]}
+     */
+    static void mesh(World world, Chunk chunk, IntBuffer opaque, IntBuffer translucent, int[] faceSlots) {
+        byte[] padded = scratch.get();
+        copyNeighbourhood(world, chunk, padded);
+        
+        int originX = chunk.chunkX * Chunk.SIZE;
+        int originY = chunk.chunkY * Chunk.SIZE;
+        int originZ = chunk.chunkZ * Chunk.SIZE;
+        int opaqueStart = opaque.position();
+        if (faceSlots != null) Arrays.fill(faceSlots, PatchableMesh.NO_SLOT);
+        
+        for (int x = 1; x <= Chunk.SIZE; x++) {
+            for (int y = 1; y <= Chunk.SIZE; y++) {
+                for (int z = 1; z <= Chunk.SIZE; z++) {
+                    int i = paddedIndex(x, y, z);
+                    byte type = padded[i];
+                    if (type == BlockType.AIR) continue;
+                    
+                    int bx = originX + x - 1;
+                    int by = originY + y - 1;
+                    int bz = originZ + z - 1;
+                    if (BlockType.isTranslucent(type)) {
+                        for (Face face : Face.VALUES) {
+                            byte neighbour = padded[i + face.paddedOffset];
+                            if (neighbour != type && !BlockType.isOpaque(neighbour)) {
+                                face.put(translucent, bx, by, bz);
+                            }
+                        }
+                    } else {
+                        for (Face face : Face.VALUES) {
+                            if (!BlockType.isOpaque(padded[i + face.paddedOffset])) {
+                                if (faceSlots != null) {
+                                    int voxel = ((x-1) * Chunk.SIZE + (y-1)) * Chunk.SIZE + (z-1);
+                                    faceSlots[voxel * 6 + face.ordinal()] = (opaque.position() - opaqueStart) / QUAD_SIZE;
+                                }
+                                face.put(opaque, bx, by, bz);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
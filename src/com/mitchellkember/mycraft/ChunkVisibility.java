@@ -0,0 +1,122 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * ChunkVisibility works out which faces of a Chunk can see each other through
+ * it. Blocks which are not opaque are open space; two faces are connected if
+ * some connected pocket of open space inside the Chunk touches both of them.
+ * The result is a set of the 15 pairs of different faces, packed into the low
+ * 15 bits of an int.
+ * <p>
+ * The renderer uses this to skip Chunks which cannot be seen: starting from
+ * the camera's Chunk, it only goes from one Chunk into the next through a face
+ * connected to the one it came in by, so Chunks behind solid rock (or in caves
+ * with no way through to the camera) are never reached.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see GameRenderer
+ */
+final class ChunkVisibility {
+    
+    /**
+     * Every pair of faces connected, as for an empty Chunk.
+     */
+    static final int ALL = (1 << 15) - 1;
+    
+    /**
+     * The bit for each pair of faces, indexed by
+     * {@code a.ordinal() * 6 + b.ordinal()}, and 0 where the faces are the same.
+     */
+    private static final int[] PAIR_BITS = new int[36];
+    
+    static {
+        int bit = 0;
+        for (int a = 0; a < 6; a++) {
+            for (int b = a + 1; b < 6; b++) {
+                PAIR_BITS[a * 6 + b] = PAIR_BITS[b * 6 + a] = 1 << bit++;
+            }
+        }
+    }
+    
+    /**
+     * The cells which have been reached by a flood fill, and the queue of
+     * cells to fill from, both indexed by {@code (x * SIZE + y) * SIZE + z}.
+     */
+    private final boolean[] filled = new boolean[Chunk.SIZE * Chunk.SIZE * Chunk.SIZE];
+    private final int[] queue = new int[Chunk.SIZE * Chunk.SIZE * Chunk.SIZE];
+    
+    /**
+     * Determines whether two faces are connected.
+     * 
+     * @param connectivity the set of connected pairs
+     * @param a one face
+     * @param b another face
+     * @return true if {@code a} and {@code b} are different and connected
+     */
+    static boolean connects(int connectivity, Face a, Face b) {
+        return (connectivity & PAIR_BITS[a.ordinal() * 6 + b.ordinal()]) != 0;
+    }
+    
+    /**
+     * Calculates which faces of a Chunk are connected through open space.
+     * 
+     * @param chunk the Chunk
+     * @return the set of connected pairs
+     */
+    int compute(Chunk chunk) {
+        if (chunk.isEmpty()) return ALL;
+        
+        final int size = Chunk.SIZE, last = Chunk.SIZE - 1;
+        byte[][][] data = chunk.getData();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                for (int z = 0; z < size; z++) {
+                    // Opaque blocks never need filling
+                    filled[(x * size + y) * size + z] = BlockType.isOpaque(data[x][y][z]);
+                }
+            }
+        }
+        
+        int connectivity = 0;
+        for (int start = 0; start < filled.length; start++) {
+            if (filled[start]) continue;
+            
+            // Flood fill one pocket, collecting the faces it touches
+            int faces = 0;
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            filled[start] = true;
+            while (head < tail) {
+                int cell = queue[head++];
+                int x = cell / (size * size), y = (cell / size) % size, z = cell % size;
+                if (x == last) faces |= 1 << Face.POS_X.ordinal();
+                if (x == 0) faces |= 1 << Face.NEG_X.ordinal();
+                if (y == last) faces |= 1 << Face.POS_Y.ordinal();
+                if (y == 0) faces |= 1 << Face.NEG_Y.ordinal();
+                if (z == last) faces |= 1 << Face.POS_Z.ordinal();
+                if (z == 0) faces |= 1 << Face.NEG_Z.ordinal();
+                
+                for (Face face : Face.VALUES) {
+                    int nx = x + face.dx, ny = y + face.dy, nz = z + face.dz;
+                    if (nx < 0 || ny < 0 || nz < 0 || nx > last || ny > last || nz > last) continue;
+                    int neighbour = (nx * size + ny) * size + nz;
+                    if (!filled[neighbour]) {
+                        filled[neighbour] = true;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+            
+            for (int a = 0; a < 6; a++) {
+                if ((faces & (1 << a)) == 0) continue;
+                for (int b = a + 1; b < 6; b++) {
+                    if ((faces & (1 << b)) != 0) connectivity |= PAIR_BITS[a * 6 + b];
+                }
+            }
+            if (connectivity == ALL) break;
+        }
+        return connectivity;
+    }
+}
@@ -0,0 +1,403 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Arrays;
+
+/**
+ * Entities stores every moving object in the world other than the Player, and
+ * simulates their physics. Instead of one object per entity, each property is
+ * kept in its own primitive array, and entity {@code i} is made up of element
+ * {@code i} of every array. A tick is then a few loops that run straight down
+ * those arrays, touching only the properties they need, so tens of thousands
+ * of entities can be simulated without chasing a pointer or allocating an
+ * object.
+ * <p>
+ * The entities are packed at the front of the arrays, at indices from 0 to
+ * {@code size() - 1}. Removing one moves the last entity into its place, so
+ * indices change and must not be kept between calls. An entity is instead
+ * referred to from outside by its handle, which stays the same for as long as
+ * the entity exists and is never mistaken for a later entity that happens to
+ * reuse its slot. To keep that promise, a slot is retired instead of reused
+ * once it has held {@code MAX_SLOT_USES} entities, so an Entities can only
+ * ever create {@code MAX_ENTITIES * MAX_SLOT_USES} (about two billion)
+ * entities in all; after that {@code create} returns {@code NO_HANDLE}.
+ * <p>
+ * Positions are those of the centre of an entity's bottom face, and are in
+ * GameState coordinates. Velocities are in units per 60 FPS frame, like the
+ * Player's.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see BoxCollider
+ */
+final class Entities {
+    
+    /**
+     * Returned by {@code create} when there is no room for another entity, and
+     * never a valid handle.
+     */
+    static final int NO_HANDLE = -1;
+    
+    /**
+     * Set in an entity's flags while it is standing on something.
+     */
+    static final byte ON_GROUND = 1;
+    
+    /**
+     * Set in an entity's flags if gravity does not pull on it.
+     */
+    static final byte NO_GRAVITY = 2;
+    
+    /**
+     * The pull of gravity, in units per 60 FPS frame.
+     */
+    private static final float GRAVITY = -0.005f;
+    
+    /**
+     * The fraction of its horizontal velocity an entity on the ground keeps
+     * after each 60 FPS frame.
+     */
+    private static final float GROUND_FRICTION = 0.6f;
+    
+    /**
+     * Horizontal speeds below this are stopped outright on the ground, instead
+     * of being slowed down forever by friction.
+     */
+    private static final float REST_SPEED = 1e-3f;
+    
+    /**
+     * The low bits of a handle are its slot, and the high bits count how many
+     * times that slot has been used, so that old handles can be told apart.
+     */
+    private static final int SLOT_BITS = 20;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    
+    /**
+     * The most entities that can exist at once.
+     */
+    static final int MAX_ENTITIES = 1 << SLOT_BITS;
+    
+    /**
+     * The number of entities a slot can hold before it is retired, which is
+     * the number of generations that fit in a handle above the slot.
+     */
+    static final int MAX_SLOT_USES = 1 << (31 - SLOT_BITS);
+    
+    /**
+     * The position of each entity. These arrays are replaced when they grow, so
+     * they must be read through this object and not kept.
+     */
+    float[] x, y, z;
+    
+    /**
+     * The velocity of each entity.
+     */
+    float[] velocityX, velocityY, velocityZ;
+    
+    /**
+     * Half of each entity's size along the X and Z axes, and its size along Y.
+     */
+    float[] halfWidth, height;
+    
+    /**
+     * The {@code ON_GROUND} and {@code NO_GRAVITY} flags of each entity.
+     */
+    byte[] flags;
+    
+    /**
+     * The handle of each entity.
+     */
+    private int[] handles;
+    
+    /**
+     * The number of entities.
+     */
+    private int count;
+    
+    /**
+     * The index of the entity in each slot, and the current generation of each
+     * slot, including slots which are free.
+     */
+    private int[] slotIndices, slotGenerations;
+    private int slotCount;
+    
+    /**
+     * Slots which have been freed and can be reused, as a stack.
+     */
+    private int[] freeSlots;
+    private int freeCount;
+    
+    /**
+     * Moves the entities out of solid blocks.
+     */
+    private final BoxCollider collider = new BoxCollider(BlockFilter.NOT_AIR);
+    
+    /**
+     * Creates a new, empty Entities with room for {@code capacity} entities
+     * before its arrays have to grow.
+     * 
+     * @param capacity the initial capacity
+     */
+    Entities(int capacity) {
+        capacity = Math.max(capacity, 16);
+        x = new float[capacity];
+        y = new float[capacity];
+        z = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        velocityZ = new float[capacity];
+        halfWidth = new float[capacity];
+        height = new float[capacity];
+        flags = new byte[capacity];
+        handles = new int[capacity];
+        slotIndices = new int[capacity];
+        slotGenerations = new int[capacity];
+        freeSlots = new int[capacity];
+    }
+    
+    /**
+     * Gets the number of entities, which are at indices 0 to {@code size() - 1}.
+     * 
+     * @return the number of entities
+     */
+    int size() {
+        return count;
+    }
+    
+    /**
+     * Creates a new entity at rest.
+     * 
+     * @param x the X-coordinate of the centre of its bottom
+     * @param y the Y-coordinate of its bottom
+     * @param z the Z-coordinate of the centre of its bottom
+     * @param halfWidth half of its size along the X and Z axes
+     * @param height its size along the Y axis
+     * @return the new entity's handle, or {@code NO_HANDLE} if there are already
+     *         {@code MAX_ENTITIES}
+     */
+    int create(float x, float y, float z, float halfWidth, float height) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else if (slotCount < MAX_ENTITIES) {
+            if (slotCount == slotIndices.length) {
+                slotIndices = Arrays.copyOf(slotIndices, slotCount * 2);
+                slotGenerations = Arrays.copyOf(slotGenerations, slotCount * 2);
+                freeSlots = Arrays.copyOf(freeSlots, slotCount * 2);
+            }
+            slot = slotCount++;
+        } else {
+            return NO_HANDLE;
+        }
+        if (count == handles.length) grow();
+        
+        int i = count++;
+        int handle = (slotGenerations[slot] << SLOT_BITS) | slot;
+        slotIndices[slot] = i;
+        handles[i] = handle;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.z[i] = z;
+        velocityX[i] = velocityY[i] = velocityZ[i] = 0;
+        this.halfWidth[i] = halfWidth;
+        this.height[i] = height;
+        flags[i] = 0;
+        return handle;
+    }
+    
+    /**
+     * Doubles the length of every per-entity array.
+     */
+    private void grow() {
+        int capacity = handles.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        velocityZ = Arrays.copyOf(velocityZ, capacity);
+        halfWidth = Arrays.copyOf(halfWidth, capacity);
+        height = Arrays.copyOf(height, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+    }
+    
+    /**
+     * Removes an entity by moving the last entity into its place.
+     * 
+     * @param handle the entity's handle
+     * @return true if it was removed, false if it no longer existed
+     */
+    boolean remove(int handle) {
+        int i = indexOf(handle);
+        if (i < 0) return false;
+        
+        int last = --count;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            z[i] = z[last];
+            velocityX[i] = velocityX[last];
+            velocityY[i] = velocityY[last];
+            velocityZ[i] = velocityZ[last];
+            halfWidth[i] = halfWidth[last];
+            height[i] = height[last];
+            flags[i] = flags[last];
+            handles[i] = handles[last];
+            slotIndices[handles[i] & SLOT_MASK] = i;
+        }
+        
+        // Outdate every handle to the slot before it can be reused. Once the
+        // generation no longer fits in a handle, the slot is retired, since
+        // wrapping around would make old handles valid again.
+        int slot = handle & SLOT_MASK;
+        int generation = ++slotGenerations[slot];
+        if (generation < MAX_SLOT_USES) freeSlots[freeCount++] = slot;
+        return true;
+    }
+    
+    /**
+     * Finds the current index of an entity.
+     * 
+     * @param handle the entity's handle
+     * @return its index, or -1 if it no longer exists
+     */
+    int indexOf(int handle) {
+        if (handle < 0) return -1;
+        int slot = handle & SLOT_MASK;
+        if (slot >= slotCount || slotGenerations[slot] != handle >>> SLOT_BITS) return -1;
+        int i = slotIndices[slot];
+        return (i < count && handles[i] == handle) ? i : -1;
+    }
+    
+    /**
+     * Gets the handle of the entity at an index.
+     * 
+     * @param index the index, from 0 to {@code size() - 1}
+     * @return its handle
+     */
+    int handleAt(int index) {
+        return handles[index];
+    }
+    
+    /**
+     * Removes every entity. All existing handles become invalid.
+     */
+    void clear() {
+        while (count > 0) {
+            remove(handles[count - 1]);
+        }
+    }
+    
+    /**
+     * Simulates one tick: gravity, then movement with collision against the
+     * blocks of {@code view}. Entities are also kept inside the world.
+     * 
+     * @param view the blocks to collide with
+     * @param multiplier the length of the tick in 60 FPS frames
+     */
+    void update(BlockView view, float multiplier) {
+        update(view, multiplier, null, 0, count, collider);
+    }
+    
+    /**
+     * Simulates one tick for some of the entities. Different threads may update
+     * different entities at the same time, as long as each uses its own
+     * BoxCollider and {@code view} does not change meanwhile.
+     * 
+     * @param view the blocks to collide with
+     * @param multiplier the length of the tick in 60 FPS frames
+     * @param indices the indices of the entities to update, or null to update
+     *        the indices from {@code from} to {@code to} themselves
+     * @param from the first element of {@code indices} to use
+     * @param to one past the last element of {@code indices} to use
+     * @param collider the BoxCollider to move the entities with
+     */
+    void update(BlockView view, float multiplier, int[] indices, int from, int to, BoxCollider collider) {
+        applyGravity(multiplier, indices, from, to);
+        move(view, multiplier, indices, from, to, collider);
+    }
+    
+    /**
+     * Accelerates entities affected by gravity downwards.
+     * 
+     * @param multiplier the length of the tick in 60 FPS frames
+     * @param indices the indices of the entities, or null
+     * @param from the first element of {@code indices} to use
+     * @param to one past the last element of {@code indices} to use
+     */
+    private void applyGravity(float multiplier, int[] indices, int from, int to) {
+        float pull = GRAVITY * multiplier;
+        float[] vy = velocityY;
+        byte[] f = flags;
+        for (int k = from; k < to; k++) {
+            int i = (indices != null) ? indices[k] : k;
+            if ((f[i] & NO_GRAVITY) == 0) vy[i] += pull;
+        }
+    }
+    
+    /**
+     * Moves entities by their velocity, sweeping them through the blocks so
+     * that they stop against them, and slows down entities on the ground.
+     * 
+     * @param view the blocks to collide with
+     * @param multiplier the length of the tick in 60 FPS frames
+     * @param indices the indices of the entities, or null
+     * @param from the first element of {@code indices} to use
+     * @param to one past the last element of {@code indices} to use
+     * @param collider the BoxCollider to move the entities with
+     */
+    private void move(BlockView view, float multiplier, int[] indices, int from, int to, BoxCollider collider) {
+        float[] px = x, py = y, pz = z;
+        float[] vx = velocityX, vy = velocityY, vz = velocityZ;
+        float[] hw = halfWidth, h = height;
+        byte[] f = flags;
+        float friction = (float)Math.pow(GROUND_FRICTION, multiplier);
+        
+        for (int k = from; k < to; k++) {
+            int i = (indices != null) ? indices[k] : k;
+            float dx = vx[i] * multiplier, dy = vy[i] * multiplier, dz = vz[i] * multiplier;
+            if (dx == 0 && dy == 0 && dz == 0) continue;
+            
+            int hits = collider.sweep(view, px[i], py[i], pz[i], hw[i], h[i], dx, dy, dz);
+            float nx = px[i] + collider.moveX;
+            float ny = py[i] + collider.moveY;
+            float nz = pz[i] + collider.moveZ;
+            if ((hits & BoxCollider.HIT_X) != 0) vx[i] = 0;
+            if ((hits & BoxCollider.HIT_Z) != 0) vz[i] = 0;
+            boolean grounded = (hits & BoxCollider.HIT_Y) != 0 && dy < 0;
+            if ((hits & BoxCollider.HIT_Y) != 0) vy[i] = 0;
+            
+            // Boundaries
+            float w = hw[i];
+            if (nx < w || nx > World.SIZE - w) {
+                nx = Math.max(w, Math.min(World.SIZE - w, nx));
+                vx[i] = 0;
+            }
+            if (nz < w || nz > World.SIZE - w) {
+                nz = Math.max(w, Math.min(World.SIZE - w, nz));
+                vz[i] = 0;
+            }
+            if (ny <= 0) {
+                ny = 0;
+                vy[i] = 0;
+                grounded = true;
+            } else if (ny + h[i] > World.SIZE) {
+                ny = World.SIZE - h[i];
+                vy[i] = 0;
+            }
+            
+            if (grounded) {
+                f[i] |= ON_GROUND;
+                vx[i] = (Math.abs(vx[i]) > REST_SPEED) ? vx[i] * friction : 0;
+                vz[i] = (Math.abs(vz[i]) > REST_SPEED) ? vz[i] * friction : 0;
+            } else {
+                f[i] &= ~ON_GROUND;
+            }
+            px[i] = nx;
+            py[i] = ny;
+            pz[i] = nz;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.nio.IntBuffer;
+
+/**
+ * Face identifies one of the six faces of a block by the direction it faces,
+ * in GameState coordinates (positive Z is forward). Each Face knows which
+ * neighbouring block hides it and how to emit itself as a quad.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see ChunkMesher
+ */
+enum Face {
+    POS_X( 1, 0, 0,   1,0,0,  1,0,1,  1,1,1,  1,1,0),
+    NEG_X(-1, 0, 0,   0,0,1,  0,0,0,  0,1,0,  0,1,1),
+    POS_Y( 0, 1, 0,   0,1,0,  1,1,0,  1,1,1,  0,1,1),
+    NEG_Y( 0,-1, 0,   0,0,1,  1,0,1,  1,0,0,  0,0,0),
+    POS_Z( 0, 0, 1,   1,0,1,  0,0,1,  0,1,1,  1,1,1),
+    NEG_Z( 0, 0,-1,   0,0,0,  1,0,0,  1,1,0,  0,1,0);
+    
+    /**
+     * Cached copy of {@code values()}, which allocates a new array every call.
+     */
+    static final Face[] VALUES = values();
+    
+    /**
+     * The direction this Face points in.
+     */
+    final int dx, dy, dz;
+    
+    /**
+     * The offset of the neighbour this Face touches in ChunkMesher's padded
+     * neighbourhood array.
+     */
+    final int paddedOffset;
+    
+    /**
+     * The four corners of this Face relative to the block's minimum corner, in
+     * counter-clockwise order when viewed from outside the block. The texture
+     * coordinates of the corners are (0, 1), (1, 1), (1, 0) and (0, 0).
+     */
+    private final int x0, y0, z0, x1, y1, z1, x2, y2, z2, x3, y3, z3;
+    
+    /**
+     * The axes (0 for X, 1 for Y, 2 for Z) along which the S and T texture
+     * coordinates run, so that a stretched quad can repeat its texture.
+     */
+    private final int sAxis, tAxis;
+    
+    private Face(int dx, int dy, int dz, int x0, int y0, int z0, int x1, int y1, int z1,
+            int x2, int y2, int z2, int x3, int y3, int z3) {
+        this.dx = dx;
+        this.dy = dy;
+        this.dz = dz;
+        this.paddedOffset = ChunkMesher.paddedIndex(dx, dy, dz) - ChunkMesher.paddedIndex(0, 0, 0);
+        this.x0 = x0; this.y0 = y0; this.z0 = z0;
+        this.x1 = x1; this.y1 = y1; this.z1 = z1;
+        this.x2 = x2; this.y2 = y2; this.z2 = z2;
+        this.x3 = x3; this.y3 = y3; this.z3 = z3;
+        // S changes between the first two corners and T between the next two
+        this.sAxis = (x0 != x1) ? 0 : (y0 != y1) ? 1 : 2;
+        this.tAxis = (x1 != x2) ? 0 : (y1 != y2) ? 1 : 2;
+    }
+    
+    /**
+     * Writes this Face of the block at ({@code x}, {@code y}, {@code z}) to
+     * {@code buffer} at its position as a quad in interleaved XYZST format,
+     * inverting the z axis for OpenGL, and advances the position past it.
+     * 
+     * @param buffer the buffer to write to
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     */
+    void put(IntBuffer buffer, int x, int y, int z) {
+        int view = buffer.position() / VertexWriter.SIZE;
+        VertexWriter.put(buffer, view,   x+x0, y+y0, -(z+z0), 0, 1);
+        VertexWriter.put(buffer, view+1, x+x1, y+y1, -(z+z1), 1, 1);
+        VertexWriter.put(buffer, view+2, x+x2, y+y2, -(z+z2), 1, 0);
+        VertexWriter.put(buffer, view+3, x+x3, y+y3, -(z+z3), 0, 0);
+        buffer.position((view+4) * VertexWriter.SIZE);
+    }
+    
+    /**
+     * Writes this Face of a box of blocks whose minimum corner is at
+     * ({@code x}, {@code y}, {@code z}) as a single stretched quad, in the same
+     * format as {@code put}. The size along the Face's own direction is ignored
+     * and should be 1. The texture coordinates are scaled by the size so that
+     * the texture repeats once per block.
+     * 
+     * @param buffer the buffer to write to
+     * @param x the minimum block's X-coordinate
+     * @param y the minimum block's Y-coordinate
+     * @param z the minimum block's Z-coordinate
+     * @param sizeX the number of blocks along the X axis
+     * @param sizeY the number of blocks along the Y axis
+     * @param sizeZ the number of blocks along the Z axis
+     */
+    void put(IntBuffer buffer, int x, int y, int z, int sizeX, int sizeY, int sizeZ) {
+        int s = (sAxis == 0) ? sizeX : (sAxis == 1) ? sizeY : sizeZ;
+        int t = (tAxis == 0) ? sizeX : (tAxis == 1) ? sizeY : sizeZ;
+        int view = buffer.position() / VertexWriter.SIZE;
+        VertexWriter.put(buffer, view,   x+x0*sizeX, y+y0*sizeY, -(z+z0*sizeZ), 0, t);
+        VertexWriter.put(buffer, view+1, x+x1*sizeX, y+y1*sizeY, -(z+z1*sizeZ), s, t);
+        VertexWriter.put(buffer, view+2, x+x2*sizeX, y+y2*sizeY, -(z+z2*sizeZ), s, 0);
+        VertexWriter.put(buffer, view+3, x+x3*sizeX, y+y3*sizeY, -(z+z3*sizeZ), 0, 0);
+        buffer.position((view+4) * VertexWriter.SIZE);
+    }
+    
+    /**
+     * Writes this Face of the block at ({@code x}, {@code y}, {@code z}) into
+     * {@code array} as quad number {@code quad}, in the same format as
+     * {@code put}.
+     * 
+     * @param array the array to write to
+     * @param quad the index of the quad, in quads
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     */
+    void put(int[] array, int quad, int x, int y, int z) {
+        int view = quad * 4;
+        VertexWriter.put(array, view,   x+x0, y+y0, -(z+z0), 0, 1);
+        VertexWriter.put(array, view+1, x+x1, y+y1, -(z+z1), 1, 1);
+        VertexWriter.put(array, view+2, x+x2, y+y2, -(z+z2), 1, 0);
+        VertexWriter.put(array, view+3, x+x3, y+y3, -(z+z3), 0, 0);
+    }
+    
+    /**
+     * Writes this Face of a box of blocks into {@code array} as quad number
+     * {@code quad}, as a single stretched quad in the same format as the
+     * stretched {@code put} into a buffer.
+     * 
+     * @param array the array to write to
+     * @param quad the index of the quad, in quads
+     * @param x the minimum block's X-coordinate
+     * @param y the minimum block's Y-coordinate
+     * @param z the minimum block's Z-coordinate
+     * @param sizeX the number of blocks along the X axis
+     * @param sizeY the number of blocks along the Y axis
+     * @param sizeZ the number of blocks along the Z axis
+     */
+    void put(int[] array, int quad, int x, int y, int z, int sizeX, int sizeY, int sizeZ) {
+        int s = (sAxis == 0) ? sizeX : (sAxis == 1) ? sizeY : sizeZ;
+        int t = (tAxis == 0) ? sizeX : (tAxis == 1) ? sizeY : sizeZ;
+        int view = quad * 4;
+        VertexWriter.put(array, view,   x+x0*sizeX, y+y0*sizeY, -(z+z0*sizeZ), 0, t);
+        VertexWriter.put(array, view+1, x+x1*sizeX, y+y1*sizeY, -(z+z1*sizeZ), s, t);
+        VertexWriter.put(array, view+2, x+x2*sizeX, y+y2*sizeY, -(z+z2*sizeZ), s, 0);
+        VertexWriter.put(array, view+3, x+x3*sizeX, y+y3*sizeY, -(z+z3*sizeZ), 0, 0);
+    }
+}
@@ -0,0 +1,48 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * FastRandom is a small, fast pseudorandom number generator (xorshift64*) for
+ * hot loops that need many random numbers and no guarantees beyond looking
+ * random. Unlike java.util.Random it does no synchronization, so each thread
+ * must have its own.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ */
+final class FastRandom {
+    
+    /**
+     * The state, which is never zero.
+     */
+    private long state;
+    
+    /**
+     * Creates a new FastRandom.
+     * 
+     * @param seed the seed
+     */
+    FastRandom(long seed) {
+        // Mix the seed so that similar seeds give unrelated sequences
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        state = z ^ (z >>> 31);
+        if (state == 0) state = 1;
+    }
+    
+    /**
+     * Gets the next 64 random bits.
+     * 
+     * @return the bits
+     */
+    long nextLong() {
+        long s = state;
+        s ^= s >>> 12;
+        s ^= s << 25;
+        s ^= s >>> 27;
+        state = s;
+        return s * 0x2545F4914F6CDD1DL;
+    }
+}
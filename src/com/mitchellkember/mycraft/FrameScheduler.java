@@ -0,0 +1,182 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FrameScheduler spreads work which has to be done on the render thread, such
+ * as meshing Chunks and uploading them to VBOs, over several frames. That work
+ * tends to arrive in bursts (a whole area of the World loading at once, for
+ * example), and doing it all in the frame it arrived in makes that frame take
+ * far longer than the rest.
+ * <p>
+ * Tasks are queued with a priority. Once per frame, {@code runTasks} runs them
+ * in order of priority, and first come first served within a priority, until
+ * the frame's time budget is used up; the rest are deferred to the next frame.
+ * At least one task is run every frame, so that the backlog always drains,
+ * however long each task takes.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see GameRenderer
+ */
+final class FrameScheduler {
+    
+    /**
+     * How urgent a task is. All waiting tasks of one priority are run before
+     * any of the next.
+     */
+    enum Priority {
+        
+        /**
+         * Work whose result the player is waiting to see, such as the effect
+         * of a block they have just placed.
+         */
+        HIGH,
+        
+        /**
+         * Work on things which are currently visible.
+         */
+        NORMAL,
+        
+        /**
+         * Work on things which are out of sight.
+         */
+        LOW
+    }
+    
+    /**
+     * The default time budget per frame, in milliseconds.
+     */
+    static final float DEFAULT_BUDGET = 4;
+    
+    /**
+     * The waiting tasks, one queue for each priority.
+     */
+    private final List<ArrayDeque<Runnable>> queues = new ArrayList<ArrayDeque<Runnable>>();
+    
+    /**
+     * The time budget per frame, in nanoseconds.
+     */
+    private long budgetNanos;
+    
+    /**
+     * Statistics about the last call to {@code runTasks}: how many tasks were
+     * run, how many were left waiting, and how long it took in nanoseconds.
+     */
+    private int lastRan, lastDeferred;
+    private long lastElapsedNanos;
+    
+    /**
+     * Creates a new FrameScheduler with no tasks.
+     * 
+     * @param budget the time budget per frame, in milliseconds
+     */
+    FrameScheduler(float budget) {
+        for (int i = 0; i < Priority.values().length; i++) {
+            queues.add(new ArrayDeque<Runnable>());
+        }
+        setBudget(budget);
+    }
+    
+    /**
+     * Sets how long {@code runTasks} may spend running tasks each frame.
+     * 
+     * @param budget the time budget per frame, in milliseconds
+     */
+    void setBudget(float budget) {
+        if (budget < 0) throw new IllegalArgumentException("Negative budget: " + budget);
+        budgetNanos = (long)(budget * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    
+    /**
+     * Queues a task to be run on a later call to {@code runTasks}.
+     * 
+     * @param task the task
+     * @param priority how urgent it is
+     */
+    void schedule(Runnable task, Priority priority) {
+        queues.get(priority.ordinal()).add(task);
+    }
+    
+    /**
+     * Runs waiting tasks, most urgent first, until the time budget is used
+     * up or there are none left. Call this once per frame.
+     * 
+     * @return the number of tasks run
+     */
+    int runTasks() {
+        long start = System.nanoTime();
+        int ran = 0;
+        boolean outOfTime = false;
+        for (int i = 0; i < queues.size() && !outOfTime; i++) {
+            ArrayDeque<Runnable> queue = queues.get(i);
+            Runnable task;
+            while (!outOfTime && (task = queue.poll()) != null) {
+                task.run();
+                ran++;
+                // Checking after the task ensures at least one is always run
+                outOfTime = System.nanoTime() - start >= budgetNanos;
+            }
+        }
+        lastRan = ran;
+        lastDeferred = getBacklog();
+        lastElapsedNanos = System.nanoTime() - start;
+        return ran;
+    }
+    
+    /**
+     * Gets the number of tasks waiting to be run.
+     * 
+     * @return the backlog
+     */
+    int getBacklog() {
+        int backlog = 0;
+        for (int i = 0; i < queues.size(); i++) {
+            backlog += queues.get(i).size();
+        }
+        return backlog;
+    }
+    
+    /**
+     * Gets the number of tasks waiting of one priority.
+     * 
+     * @param priority the priority
+     * @return the backlog of that priority
+     */
+    int getBacklog(Priority priority) {
+        return queues.get(priority.ordinal()).size();
+    }
+    
+    /**
+     * Gets the number of tasks the last call to {@code runTasks} ran.
+     * 
+     * @return the number of tasks run
+     */
+    int getLastRan() {
+        return lastRan;
+    }
+    
+    /**
+     * Gets the number of tasks the last call to {@code runTasks} left waiting
+     * for a later frame.
+     * 
+     * @return the deferred backlog
+     */
+    int getLastDeferred() {
+        return lastDeferred;
+    }
+    
+    /**
+     * Gets how long the last call to {@code runTasks} took.
+     * 
+     * @return the time in milliseconds
+     */
+    float getLastElapsed() {
+        return lastElapsedNanos / 1e6f;
+    }
+}
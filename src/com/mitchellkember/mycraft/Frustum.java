@@ -0,0 +1,72 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * Frustum is the volume of space which can be seen through the camera: a
+ * truncated pyramid bounded by six planes. The planes are read straight out of
+ * the combined projection and view matrix, so whatever that matrix would clip
+ * away is outside the Frustum, and testing a box against them tells whether
+ * anything in the box could possibly be drawn.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see GameRenderer
+ */
+final class Frustum {
+    
+    /**
+     * The six planes (left, right, bottom, top, near and far), as
+     * {@code a, b, c, d} for each, such that {@code a*x + b*y + c*z + d} is the
+     * distance of a point in front of the plane (inside the Frustum).
+     */
+    private final float[] planes = new float[24];
+    
+    /**
+     * Sets the planes from a combined projection and view matrix.
+     * 
+     * @param viewProjection the projection matrix multiplied by the view matrix
+     */
+    void set(Matrix4f viewProjection) {
+        float[] m = viewProjection.m;
+        for (int p = 0; p < 6; p++) {
+            // Each plane is the bottom row plus or minus one of the others
+            int row = p / 2;
+            float sign = (p % 2 == 0) ? 1 : -1;
+            float a = m[3]  + sign * m[row];
+            float b = m[7]  + sign * m[4 + row];
+            float c = m[11] + sign * m[8 + row];
+            float d = m[15] + sign * m[12 + row];
+            float length = (float)Math.sqrt(a*a + b*b + c*c);
+            planes[p*4]     = a / length;
+            planes[p*4 + 1] = b / length;
+            planes[p*4 + 2] = c / length;
+            planes[p*4 + 3] = d / length;
+        }
+    }
+    
+    /**
+     * Tests whether any part of an axis-aligned box is inside this Frustum.
+     * Boxes near the corners of the Frustum may be reported as inside when
+     * they are not, but a box which is inside is never reported as outside.
+     * 
+     * @param minX the box's minimum X-coordinate
+     * @param minY the box's minimum Y-coordinate
+     * @param minZ the box's minimum Z-coordinate
+     * @param maxX the box's maximum X-coordinate
+     * @param maxY the box's maximum Y-coordinate
+     * @param maxZ the box's maximum Z-coordinate
+     * @return false if the box is certainly outside
+     */
+    boolean intersectsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int p = 0; p < 24; p += 4) {
+            float a = planes[p], b = planes[p+1], c = planes[p+2];
+            // The corner of the box furthest in front of the plane
+            float x = (a > 0) ? maxX : minX;
+            float y = (b > 0) ? maxY : minY;
+            float z = (c > 0) ? maxZ : minZ;
+            if (a*x + b*y + c*z + planes[p+3] < 0) return false;
+        }
+        return true;
+    }
+}
@@ -2,8 +2,10 @@
 
 package com.mitchellkember.mycraft;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
 import org.lwjgl.LWJGLException;
-import org.lwjgl.Sys;
 import org.lwjgl.input.Keyboard;
 import org.lwjgl.input.Mouse;
 import org.lwjgl.opengl.Display;
@@ -24,6 +26,23 @@ enum MouseButton {
  * architecture for this application. GameController handles user input and mediates
  * between the GameState and GameRenderer classes. It also manages the run loop
  * of Mycraft.
+ * <p>
+ * The GameState is updated in ticks of a fixed length on its own simulation
+ * thread, while the thread that called {@code run} (which owns the OpenGL
+ * context and the input devices) does nothing but gather input and draw, so a
+ * slow tick never holds up a frame. At the end of each run of ticks the
+ * simulation copies what the renderer needs into a RenderSnapshot and
+ * publishes it through a TripleBuffer; each frame draws the latest snapshot,
+ * interpolated by how long ago it was taken. The render thread never reads
+ * the GameState's World: it keeps its own copy, which Block and Chunk changes
+ * reach through a ListenerQueue at the start of each frame before they are
+ * passed on to the renderer. Neither thread waits for the other, unless the
+ * render thread falls so far behind that the ListenerQueue fills up.
+ * <p>
+ * Input reaches the simulation the same way: each frame drains LWJGL's
+ * buffered Keyboard and Mouse events into an InputQueue, merged in the order
+ * they happened, and each tick reads them back in that order, so nothing
+ * pressed between frames or between ticks is lost.
  * 
  * @author Mitchell Kember
  * @since 07/12/2011
@@ -33,9 +52,42 @@ enum MouseButton {
 final class GameController {
     
     /**
-     * The maximum amount of time to simulate over a single frame, in milliseconds.
+     * The most ticks that will be simulated to catch up at once. If the
+     * simulation falls further behind than this, for example because it is
+     * too slow for the tick rate, the missed ticks are dropped rather than
+     * letting it fall further and further behind.
      */
-    private static final float MAX_DELTA_TIME = 50.f;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    
+    /**
+     * The most Block and Chunk changes which can wait for the renderer, and
+     * the most of them which can be Chunk changes. The GameState reports
+     * every Chunk as changed when it is created, before the queue is first
+     * drained, so there is room for all of them.
+     */
+    private static final int LISTENER_QUEUE_CAPACITY = 1 << 16;
+    private static final int LISTENER_QUEUE_CHUNKS = World.SIZE_CHUNKS * World.SIZE_CHUNKS * World.SIZE_CHUNKS;
+    
+    /**
+     * The most input events which can wait for the simulation.
+     */
+    private static final int INPUT_QUEUE_CAPACITY = 1 << 12;
+    
+    /**
+     * How far the mouse wheel turns for one notch.
+     */
+    private static final int WHEEL_NOTCH = 120;
+    
+    /**
+     * The length of one tick, in milliseconds and in nanoseconds.
+     */
+    private final float tickLength;
+    private final long tickNanos;
+    
+    /**
+     * The most frames to render per second, or 0 for no limit.
+     */
+    private final int frameRateLimit;
     
     /**
      * The renderer for this GameController's state.
@@ -43,39 +95,87 @@ final class GameController {
     private GameRenderer renderer;
     
     /**
-     * The heart of the game, the GameState.
+     * The heart of the game, the GameState. Only the simulation thread
+     * touches it once the simulation has started.
      */
     private GameState state;
     
     /**
-     * Used for detecting space bar presses.
+     * Carries the GameState's changes to the render thread.
      */
-    boolean wasSpaceBarDown = false;
+    private final ListenerQueue changes = new ListenerQueue(LISTENER_QUEUE_CAPACITY, LISTENER_QUEUE_CHUNKS);
     
     /**
-     * Used for detecting left mouse clicks.
+     * The render thread's copy of the GameState's World, which only the
+     * render thread touches. It is kept up to date by draining
+     * {@code changes}, and is what the renderer meshes and culls.
      */
-    private boolean wasLeftMouseButtonDown = false;
+    private final World renderWorld = new World();
     
     /**
-     * Used for detecting right mouse clicks.
+     * Hands snapshots from the simulation thread to the render thread.
      */
-    private boolean wasRightMouseButtonDown = false;
+    private final TripleBuffer<RenderSnapshot> snapshots = new TripleBuffer<RenderSnapshot>(
+            new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot());
     
     /**
-     * Used for calculating delta time between frames.
+     * Set to false to stop the simulation thread.
      */
-    private double previousTime = 0.0;
+    private volatile boolean running;
+    
+    /**
+     * True while the window is hidden, during which the simulation waits.
+     */
+    private volatile boolean paused;
+    
+    /**
+     * Whatever stopped the simulation thread, if it failed.
+     */
+    private volatile Throwable simulationFailure;
+    
+    /**
+     * Carries keyboard and mouse events to the simulation.
+     */
+    private final InputQueue inputEvents = new InputQueue(INPUT_QUEUE_CAPACITY);
+    
+    /**
+     * Mouse movement and wheel turning gathered by {@code gatherInput} but
+     * not yet added to the InputQueue. Only the render thread touches these.
+     */
+    private int motionX, motionY, motionWheel;
+    
+    /**
+     * The input for each tick, filled in again every time. Only the
+     * simulation thread touches it.
+     */
+    private final GameStateInputData input = new GameStateInputData(
+            false, false, false, false, false, 0, 0, 0, false, false);
+    
+    /**
+     * The movement keys held down, as of the last event the simulation took,
+     * and how far the mouse wheel has turned towards the next notch. Only the
+     * simulation thread touches these.
+     */
+    private boolean forwardDown, backwardDown, leftDown, rightDown;
+    private int wheelRemainder;
     
     /**
      * Creates a new GameController, which manages its own GameState and
      * GameRenderer, as well as user input (LWJGL Keyboard and Mouse).
      * 
+     * @param tickRate the number of times per second to update the GameState
+     * @param frameRateLimit the most frames to render per second, or 0 for no limit
+     * @param taskBudget the most time to spend on remeshing Chunks each frame,
+     *        in milliseconds
      * @throws LWJGLException if there was an error loading any part of LWJGL
      */
-    GameController() throws LWJGLException {
-        renderer = new GameRenderer();
-        state = new GameState(renderer);
+    GameController(int tickRate, int frameRateLimit, float taskBudget) throws LWJGLException {
+        this.tickLength = 1000.f / tickRate;
+        this.tickNanos = TimeUnit.SECONDS.toNanos(1) / tickRate;
+        this.frameRateLimit = frameRateLimit;
+        renderer = new GameRenderer(taskBudget);
+        state = new GameState(changes);
+        publishSnapshot();
         
         Keyboard.create();
         
@@ -85,6 +185,32 @@ final class GameController {
         Mouse.create();
     }
     
+    /**
+     * Creates a GameController and runs it until the window is closed. Any
+     * LWJGLExceptions that occur during the initialization of LWJGL (Display,
+     * Keyboard, Mouse) are logged.
+     * 
+     * @param tickRate the number of times per second to update the GameState
+     * @param frameRateLimit the most frames to render per second, or 0 for no limit
+     * @param taskBudget the most time to spend on remeshing Chunks each frame,
+     *        in milliseconds
+     */
+    static void launch(int tickRate, int frameRateLimit, float taskBudget) {
+        GameController controller = null;
+        try {
+            System.out.println("Mycraft is starting up.");
+            controller = new GameController(tickRate, frameRateLimit, taskBudget);
+            controller.run(); // begin the main loop
+        } catch (LWJGLException lwjgle) {
+            Mycraft.LOGGER.log(Level.SEVERE, lwjgle.toString(), lwjgle);
+        } finally {
+            if (controller != null) {
+                // Clean up
+                controller.destroy();
+            }
+        }
+    }
+    
     /**
      * Clean up LWJGL components.
      */
@@ -96,95 +222,223 @@ final class GameController {
     }
     
     /**
-     * Gets the time in milliseconds since this method was last called. If it
-     * is greater than MAX_DELTA_TIME, that will be returned instead.
+     * Moves the Keyboard and Mouse events which have arrived since the last
+     * frame into the InputQueue. LWJGL buffers the two devices separately, so
+     * their events are merged by the time they happened, to keep a key press
+     * and a click in the order the player made them. Consecutive mouse
+     * movements are added together into one event, since only the total
+     * matters.
+     */
+    private void gatherInput() {
+        boolean keyWaiting = nextKeyEvent(), mouseWaiting = Mouse.next();
+        while (keyWaiting || mouseWaiting) {
+            if (keyWaiting && (!mouseWaiting || Keyboard.getEventNanoseconds() <= Mouse.getEventNanoseconds())) {
+                // Keep the movement before the key in front of it
+                addMotion();
+                inputEvents.add(InputQueue.KEY, Keyboard.getEventKey(), Keyboard.getEventKeyState() ? 1 : 0);
+                keyWaiting = nextKeyEvent();
+                continue;
+            }
+            
+            motionX += Mouse.getEventDX();
+            motionY += Mouse.getEventDY();
+            motionWheel += Mouse.getEventDWheel();
+            int button = Mouse.getEventButton();
+            if (button >= 0) {
+                addMotion();
+                inputEvents.add(InputQueue.BUTTON, button, Mouse.getEventButtonState() ? 1 : 0);
+            }
+            mouseWaiting = Mouse.next();
+        }
+        addMotion();
+    }
+    
+    /**
+     * Moves on to the next Keyboard event which is not a key repeat.
      * 
-     * @return the time since this method was last called in milliseconds
-     * @see #MAX_DELTA_TIME
-     */
-    private float getDeltaTime() {
-        // Get hires time in milliseconds
-        double newTime = (Sys.getTime() * 1000.0) / Sys.getTimerResolution();
-        // Calculate the delta
-        float delta = (float)(newTime - previousTime);
-        // New becomes old for next call
-        previousTime = newTime;
-        
-        // Return the delta time unless it's bigger than MAX_DELTA_TIME
-        return (delta < MAX_DELTA_TIME) ? delta : MAX_DELTA_TIME;
+     * @return false if there are no more Keyboard events
+     */
+    private static boolean nextKeyEvent() {
+        while (Keyboard.next()) {
+            if (!Keyboard.isRepeatEvent()) return true;
+        }
+        return false;
     }
     
     /**
-     * Determines whether the mouse {@code button} has been clicked or not.
+     * Adds the mouse movement gathered since the last event to the
+     * InputQueue, if there was any.
+     */
+    private void addMotion() {
+        if (motionX != 0 || motionY != 0) inputEvents.add(InputQueue.MOTION, motionX, motionY);
+        if (motionWheel != 0) inputEvents.add(InputQueue.WHEEL, motionWheel, 0);
+        motionX = motionY = motionWheel = 0;
+    }
+    
+    /**
+     * Takes the waiting input events and fills in {@code input} for one tick.
+     * Held keys and mouse movement are applied in order up to the newest
+     * event, but each tick can only jump once and either break or place one
+     * block, so a second jump or click is left waiting for the next tick
+     * (along with everything after it). Called on the simulation thread.
      * 
-     * @param button which mouse button to check
-     * @return true if it is down and it wasn't last time this method was called
+     * @return the input for one tick
      */
-    private boolean wasMouseClicked(MouseButton button) {
-        boolean buttonDown = Mouse.isButtonDown(button.ordinal());
-        boolean clicked = false;
+    private GameStateInputData takeInput() {
+        if (inputEvents.takeOverflow()) {
+            // A key release may have been dropped, so don't leave keys stuck
+            forwardDown = backwardDown = leftDown = rightDown = false;
+        }
         
-        // Determine if the mouse button wasn't down before but is now
-        if (button == MouseButton.LEFT) {
-            clicked = !wasLeftMouseButtonDown && buttonDown;
-            wasLeftMouseButtonDown = buttonDown;
-        } else if (button == MouseButton.RIGHT) {
-            clicked = !wasRightMouseButtonDown && buttonDown;
-            wasRightMouseButtonDown = buttonDown;
+        boolean jump = false, breakBlock = false, placeBlock = false;
+        int lookX = 0, lookY = 0;
+        events:
+        while (inputEvents.hasNext()) {
+            long event = inputEvents.peek();
+            int first = InputQueue.first(event), second = InputQueue.second(event);
+            switch (InputQueue.kind(event)) {
+                case InputQueue.KEY:
+                    boolean down = second != 0;
+                    if (first == Keyboard.KEY_SPACE && down) {
+                        if (jump) break events;
+                        jump = true;
+                    } else if (first == Keyboard.KEY_W) {
+                        forwardDown = down;
+                    } else if (first == Keyboard.KEY_S) {
+                        backwardDown = down;
+                    } else if (first == Keyboard.KEY_A) {
+                        leftDown = down;
+                    } else if (first == Keyboard.KEY_D) {
+                        rightDown = down;
+                    }
+                    break;
+                case InputQueue.BUTTON:
+                    if (second == 0) break;
+                    if (first == MouseButton.LEFT.ordinal() || first == MouseButton.RIGHT.ordinal()) {
+                        if (breakBlock || placeBlock) break events;
+                        breakBlock = first == MouseButton.LEFT.ordinal();
+                        placeBlock = !breakBlock;
+                    }
+                    break;
+                case InputQueue.MOTION:
+                    lookX += first;
+                    lookY += second;
+                    break;
+                case InputQueue.WHEEL:
+                    wheelRemainder += first;
+                    break;
+            }
+            inputEvents.advance();
         }
         
-        return clicked;
+        input.set(forwardDown, backwardDown, leftDown, rightDown,
+                jump,
+                lookX, lookY, wheelRemainder / -WHEEL_NOTCH,
+                breakBlock,
+                placeBlock);
+        wheelRemainder %= WHEEL_NOTCH;
+        return input;
     }
     
     /**
-     * Determines whether the space bar key was pressed.
-     * 
-     * @return true if the space bar was not pressed last time this was called but is now
+     * Copies the GameState into the back snapshot and publishes it.
      */
-    private boolean wasSpaceBarPressed() {
-        boolean spaceBarDown = Keyboard.isKeyDown(Keyboard.KEY_SPACE);
-        boolean wasPressed = !wasSpaceBarDown && spaceBarDown;
-        wasSpaceBarDown = spaceBarDown;
-        
-        return wasPressed;
+    private void publishSnapshot() {
+        snapshots.getBack().capture(state, System.nanoTime());
+        snapshots.publish();
+    }
+    
+    /**
+     * The simulation loop, run on the simulation thread until {@code running}
+     * is cleared. It ticks whenever a tick is due and sleeps in between.
+     */
+    private void simulate() {
+        long nextTick = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            if (paused) {
+                // Don't try to catch up on the time spent hidden
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                nextTick = System.nanoTime();
+                continue;
+            }
+            if (now - nextTick < 0) {
+                LockSupport.parkNanos(nextTick - now);
+                continue;
+            }
+            
+            // Simulate as many whole ticks as have passed
+            int ticks = 0;
+            while (now - nextTick >= 0 && ticks < MAX_CATCH_UP_TICKS) {
+                state.update(takeInput(), tickLength);
+                nextTick += tickNanos;
+                ticks++;
+            }
+            // Give up on ticks that could not be caught up with
+            if (now - nextTick >= 0) nextTick += ((now - nextTick) / tickNanos + 1) * tickNanos;
+            publishSnapshot();
+        }
     }
     
     /**
      * The run loop. The application will stay inside this method until the window
-     * is closed or the Escape key is pressed.
+     * is closed or the Escape key is pressed. The simulation thread is started
+     * here and stopped again before this returns.
      */
     void run() {
-        while (!Display.isCloseRequested() && !Keyboard.isKeyDown(Keyboard.KEY_ESCAPE)) {
-            if (Display.isVisible()) {
-                // Update the state with the required input
-                state.update(new GameStateInputData(
-                        Keyboard.isKeyDown(Keyboard.KEY_W),
-                        Keyboard.isKeyDown(Keyboard.KEY_S),
-                        Keyboard.isKeyDown(Keyboard.KEY_A),
-                        Keyboard.isKeyDown(Keyboard.KEY_D),
-                        wasSpaceBarPressed(),
-                        Mouse.getDX(), Mouse.getDY(), Mouse.getDWheel() / -120,
-                        wasMouseClicked(MouseButton.LEFT),
-                        wasMouseClicked(MouseButton.RIGHT)),
-                        // Using the delta time for a framerate-independent simulation
-                        // should be the correct way to do things but it produces strange
-                        // results on the school computers, so instead simulate one
-                        // sixtieth of a second every frame.
-                        /*getDeltaTime()*/ 1000.f / 60.f);
-                
-                // Render it
-                renderer.render(state);
-            } else {
-                // Only render if it needs rendering
-                if (Display.isDirty()) {
-                    renderer.render(state);
-                }
+        Thread simulation = new Thread(new Runnable() {
+            @Override
+            public void run() {
                 try {
-                    // If the window isn't visible, sleep a bit so that we're
-                    // not wasting resources by checking nonstop.
-                    Thread.sleep(100);
-                } catch (InterruptedException e) { }
+                    simulate();
+                } catch (Throwable t) {
+                    simulationFailure = t;
+                }
             }
+        }, "Simulation");
+        simulation.setDaemon(true);
+        running = true;
+        simulation.start();
+        
+        try {
+            while (!Display.isCloseRequested() && !Keyboard.isKeyDown(Keyboard.KEY_ESCAPE)
+                    && simulationFailure == null) {
+                changes.drainTo(renderWorld, renderer);
+                RenderSnapshot snapshot = snapshots.acquire();
+                if (Display.isVisible()) {
+                    paused = false;
+                    gatherInput();
+                    
+                    // Render it, part of the way from the tick before the
+                    // snapshot's towards the next one
+                    float alpha = Math.min(1.f, (System.nanoTime() - snapshot.tickTime) / (float)tickNanos);
+                    renderer.render(snapshot, renderWorld, alpha);
+                    if (frameRateLimit > 0) Display.sync(frameRateLimit);
+                } else {
+                    paused = true;
+                    // Only render if it needs rendering
+                    if (Display.isDirty()) {
+                        renderer.render(snapshot, renderWorld, 1);
+                    }
+                    try {
+                        // If the window isn't visible, sleep a bit so that we're
+                        // not wasting resources by checking nonstop.
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) { }
+                }
+            }
+        } finally {
+            running = false;
+            // In case it is waiting for room in the ListenerQueue
+            simulation.interrupt();
+            try {
+                simulation.join();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (simulationFailure != null) {
+            Mycraft.LOGGER.log(Level.SEVERE, simulationFailure.toString(), simulationFailure);
         }
     }
 }
@@ -3,14 +3,23 @@
 package com.mitchellkember.mycraft;
 
 import java.io.IOException;
-import java.nio.BufferOverflowException;
+import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.LWJGLException;
 import org.lwjgl.opengl.ARBVertexBufferObject;
 import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.util.glu.GLU.*;
 import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.DisplayMode;
 import org.lwjgl.opengl.GLContext;
@@ -49,9 +58,181 @@ final class GameRenderer implements GameStateListener {
     private float renderDistance = 50;
     
     /**
-     * The ID for the Vertex Buffer Object (VBO).
+     * Chunks with more translucent quads than this are sorted on a worker
+     * thread rather than during the frame.
      */
-    private int bufferObjectID;
+    private static final int ASYNC_SORT_THRESHOLD = 2048;
+    
+    /**
+     * How often the number of deferred tasks in the window title is updated,
+     * in milliseconds.
+     */
+    private static final int TITLE_INTERVAL = 500;
+    
+    /**
+     * The Vertex Buffer Objects (VBOs) holding the mesh of a single Chunk.
+     */
+    private static final class ChunkBuffer {
+        
+        /**
+         * The Chunk this mesh belongs to.
+         */
+        final Chunk chunk;
+        
+        /**
+         * The ID for the opaque VBO.
+         */
+        final int bufferObjectID = ARBVertexBufferObject.glGenBuffersARB();
+        
+        /**
+         * The opaque quads, which mirror the opaque VBO.
+         */
+        final PatchableMesh opaque;
+        
+        /**
+         * The ID for the translucent VBO, which holds the quads of {@code translucent}
+         * in their last sorted order.
+         */
+        final int translucentBufferObjectID = ARBVertexBufferObject.glGenBuffersARB();
+        
+        /**
+         * The number of vertices last uploaded to the translucent VBO.
+         */
+        int numTranslucentVerts;
+        
+        /**
+         * The translucent quads and their sort order.
+         */
+        final TranslucentMesh translucent = new TranslucentMesh();
+        
+        /**
+         * The last sort submitted to a worker thread, or null if there is none,
+         * so that a remesh can cancel it if it hasn't started.
+         */
+        Future<?> pendingSort;
+        
+        /**
+         * Squared distance from the camera to the centre of the Chunk, as of
+         * the last time the Chunks were culled.
+         */
+        float distanceSquared;
+        
+        /**
+         * Whether the Chunk passed the last culling, and whether it is in
+         * {@code visibleChunkBuffers}.
+         */
+        boolean visible, listed;
+        
+        /**
+         * Which pairs of the Chunk's faces are connected through open space.
+         * 
+         * @see ChunkVisibility
+         */
+        int connectivity = ChunkVisibility.ALL;
+        
+        /**
+         * The search through connected Chunks: the number of the last search
+         * to reach this Chunk, the face it came in by (or -1 for the camera's
+         * Chunk), and the directions it went in to get here, as a bit for each
+         * Face.
+         */
+        int searchNumber, enteredFace, directions;
+        
+        /**
+         * Whether the Chunk has been meshed yet. Until it has, it is not drawn
+         * and its blocks are not patched.
+         */
+        boolean meshed;
+        
+        /**
+         * The priority a remesh of the Chunk is waiting at, or null if none
+         * is waiting.
+         */
+        FrameScheduler.Priority remeshQueued;
+        
+        /**
+         * Remeshes the Chunk. It is made once, so that queueing a remesh
+         * allocates nothing.
+         */
+        Runnable remeshTask;
+        
+        ChunkBuffer(Chunk chunk) {
+            this.chunk = chunk;
+            this.opaque = new PatchableMesh(chunk);
+        }
+    }
+    
+    /**
+     * The VBOs of each Chunk, by Chunk, and of each Chunk that has been meshed
+     * in a list.
+     */
+    private final Map<Chunk, ChunkBuffer> chunkBuffers = new HashMap<Chunk, ChunkBuffer>();
+    private final List<ChunkBuffer> chunkBufferList = new ArrayList<ChunkBuffer>();
+    
+    /**
+     * The ChunkBuffers which may be visible, sorted from nearest to farthest.
+     */
+    private final List<ChunkBuffer> visibleChunkBuffers = new ArrayList<ChunkBuffer>();
+    
+    /**
+     * The projection matrix, and the projection multiplied by the view matrix.
+     */
+    private final Matrix4f projection = new Matrix4f();
+    private final Matrix4f viewProjection = new Matrix4f();
+    
+    /**
+     * The view volume, set from {@code viewProjection}.
+     */
+    private final Frustum frustum = new Frustum();
+    
+    /**
+     * The view projection matrix and number of ChunkBuffers at the last
+     * culling. If neither has changed, the visible list is still right.
+     */
+    private final float[] culledViewProjection = new float[16];
+    private int culledChunkCount = -1;
+    
+    /**
+     * Calculates the connectivity of Chunks as they are meshed.
+     */
+    private final ChunkVisibility chunkVisibility = new ChunkVisibility();
+    
+    /**
+     * The queue of the search through connected Chunks, and the number of the
+     * last search.
+     */
+    private ChunkBuffer[] searchQueue = new ChunkBuffer[64];
+    private int searchNumber;
+    
+    /**
+     * Reusable buffer which Chunks are meshed into before being uploaded. It is
+     * large enough for the worst possible Chunk.
+     */
+    private final IntBuffer vertexData = BufferUtils.createIntBuffer(ChunkMesher.MAX_QUADS * ChunkMesher.QUAD_SIZE);
+    
+    /**
+     * Reusable buffer for the translucent quads of the Chunk being meshed.
+     */
+    private final IntBuffer translucentVertexData = BufferUtils.createIntBuffer(ChunkMesher.MAX_QUADS * ChunkMesher.QUAD_SIZE);
+    
+    /**
+     * Reusable array of runs of changed slots for {@code PatchableMesh.takeDirtyRuns}.
+     */
+    private int[] dirtyRuns = new int[64];
+    
+    /**
+     * Worker threads which sort Chunks with many translucent quads.
+     */
+    private final ExecutorService sortExecutor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Translucent sorter");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
     
     /**
      * A simple 16 by 16 dirt texture.
@@ -59,26 +240,38 @@ final class GameRenderer implements GameStateListener {
     private Texture dirtTexture;
     
     /**
-     * The number of vertices last uploaded to the VBO.
+     * The camera's interpolated position in OpenGL coordinates, reused every frame.
      */
-    private int numVerts;
+    private final Vector renderEye = new Vector();
     
     /**
-     * Gets the vertices to use for rendering a block (inverts the z axis).
-     * 
-     * @param block the block's location
-     * @return its rendering coordinates
+     * The Camera being drawn from, copied from each snapshot so that its view
+     * matrix is kept between frames, and a buffer to hand the matrix to OpenGL.
      */
-    static Vector openGLCoordinatesForBlock(Block block) {
-        return new Vector(block.x, block.y, -block.z);
-    }
+    private final Camera view = new Camera();
+    private final FloatBuffer viewBuffer = BufferUtils.createFloatBuffer(16);
+    
+    /**
+     * Runs remeshes and uploads a few at a time, within a budget per frame.
+     */
+    private final FrameScheduler tasks;
+    
+    /**
+     * The number of deferred tasks shown in the window title, and the
+     * {@code System.nanoTime} at which it may next be changed.
+     */
+    private int shownBacklog;
+    private long nextTitleUpdate;
     
     /**
      * Creates a new GameRenderer and sets up the LWJGL window.
      * 
+     * @param taskBudget the most time to spend on remeshing Chunks and
+     *        uploading them each frame, in milliseconds
      * @throws LWJGLException if there is an error setting up the window
      */
-    GameRenderer() throws LWJGLException {
+    GameRenderer(float taskBudget) throws LWJGLException {
+        tasks = new FrameScheduler(taskBudget);
         Display.setDisplayMode(new DisplayMode(DISPLAY_WIDTH, DISPLAY_HEIGHT));
         Display.setFullscreen(false);
         Display.setTitle(WINDOW_TITLE);
@@ -130,61 +323,87 @@ final class GameRenderer implements GameStateListener {
         glViewport(0, 0, DISPLAY_WIDTH, DISPLAY_HEIGHT);
 
         glMatrixMode(GL_PROJECTION);
-        glLoadIdentity();
-        gluPerspective(45, (float)DISPLAY_WIDTH / (float)DISPLAY_HEIGHT, 0.25f, renderDistance);
+        projection.setPerspective(45, (float)DISPLAY_WIDTH / (float)DISPLAY_HEIGHT, 0.25f, renderDistance);
+        glLoadMatrix(projection.store(BufferUtils.createFloatBuffer(16)));
+        culledChunkCount = -1;
 
         glMatrixMode(GL_MODELVIEW);
         glLoadIdentity();
     }
     
     /**
-     * Renders a GameState.
+     * Renders a snapshot of the GameState. The GameState is only updated at a
+     * fixed rate, so moving things are drawn part of the way between their
+     * positions at the previous tick and the one the snapshot was taken at.
      * 
-     * @param state the GameState to render
+     * @param snapshot the state at the end of the last tick
+     * @param world the World being drawn
+     * @param alpha how far between the previous tick and the snapshot's tick
+     *        to draw, from 0 to 1
      */
-    void render(GameState state) {
+    void render(RenderSnapshot snapshot, World world, float alpha) {
+        // Do this frame's share of the queued work first, so that Chunks
+        // meshed now are drawn now
+        tasks.runTasks();
+        showBacklog();
+        
         // Clear colour and z buffers
         glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
         
         // Load the identity matrix
         glLoadIdentity();
         // Let the Camera calculate the view matrix
-        state.getPlayerView().updateMatrix();
+        view.set(snapshot.camera);
+        Matrix4f viewMatrix = view.updateMatrix(alpha);
+        glMultMatrix(viewMatrix.store(viewBuffer));
+        view.getInterpolatedPosition(alpha, renderEye);
+        cullChunks(world, viewMatrix, renderEye);
         // Full brightness for textures
         glColor3b((byte)127, (byte)127, (byte)127);
         
-        // Start at 1 to avoid drawing 1st degenerate vertex and messing everything else up
-        glDrawArrays(GL_TRIANGLE_STRIP, 1, numVerts);
+        // Draw each visible Chunk's VBO, nearest first so that hidden faces
+        // fail the depth test early
+        for (int i = 0; i < visibleChunkBuffers.size(); i++) {
+            ChunkBuffer chunkBuffer = visibleChunkBuffers.get(i);
+            ARBVertexBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, chunkBuffer.bufferObjectID);
+            uploadOpaqueChanges(chunkBuffer.opaque);
+            if (chunkBuffer.opaque.getVertexCount() == 0) continue;
+            setVertexPointers();
+            glDrawArrays(GL_QUADS, 0, chunkBuffer.opaque.getVertexCount());
+        }
+        
+        renderTranslucent(renderEye);
         
         // Black lines
         glColor3b((byte)-127, (byte)-127, (byte)-127);
         
         // Draw selected block outline hilight
-        if (state.isBlockSelected()) {
-            Vector selectedBlock = openGLCoordinatesForBlock(state.getSelectedBlock());
+        if (snapshot.blockSelected) {
+            // Rendering coordinates of the block (inverted z axis)
+            float bx = snapshot.selectedX, by = snapshot.selectedY, bz = -snapshot.selectedZ;
             
             // Just use immediate mode/fixed function pipeline
             glBegin(GL_LINE_STRIP);
-            glVertex3f(selectedBlock.x, selectedBlock.y, selectedBlock.z);
-            glVertex3f(selectedBlock.x+1, selectedBlock.y, selectedBlock.z);
-            glVertex3f(selectedBlock.x+1, selectedBlock.y+1, selectedBlock.z);
-            glVertex3f(selectedBlock.x, selectedBlock.y+1, selectedBlock.z);
-            glVertex3f(selectedBlock.x, selectedBlock.y, selectedBlock.z);
-            glVertex3f(selectedBlock.x, selectedBlock.y, selectedBlock.z-1);
-            glVertex3f(selectedBlock.x+1, selectedBlock.y, selectedBlock.z-1);
-            glVertex3f(selectedBlock.x+1, selectedBlock.y+1, selectedBlock.z-1);
-            glVertex3f(selectedBlock.x, selectedBlock.y+1, selectedBlock.z-1);
-            glVertex3f(selectedBlock.x, selectedBlock.y, selectedBlock.z-1);
+            glVertex3f(bx, by, bz);
+            glVertex3f(bx+1, by, bz);
+            glVertex3f(bx+1, by+1, bz);
+            glVertex3f(bx, by+1, bz);
+            glVertex3f(bx, by, bz);
+            glVertex3f(bx, by, bz-1);
+            glVertex3f(bx+1, by, bz-1);
+            glVertex3f(bx+1, by+1, bz-1);
+            glVertex3f(bx, by+1, bz-1);
+            glVertex3f(bx, by, bz-1);
             glEnd();
             glBegin(GL_LINES);
-            glVertex3f(selectedBlock.x, selectedBlock.y+1, selectedBlock.z);
-            glVertex3f(selectedBlock.x, selectedBlock.y+1, selectedBlock.z-1);
+            glVertex3f(bx, by+1, bz);
+            glVertex3f(bx, by+1, bz-1);
 
-            glVertex3f(selectedBlock.x+1, selectedBlock.y+1, selectedBlock.z);
-            glVertex3f(selectedBlock.x+1, selectedBlock.y+1, selectedBlock.z-1);
+            glVertex3f(bx+1, by+1, bz);
+            glVertex3f(bx+1, by+1, bz-1);
 
-            glVertex3f(selectedBlock.x+1, selectedBlock.y, selectedBlock.z);
-            glVertex3f(selectedBlock.x+1, selectedBlock.y, selectedBlock.z-1);
+            glVertex3f(bx+1, by, bz);
+            glVertex3f(bx+1, by, bz-1);
             glEnd();
         }
         
@@ -198,7 +417,233 @@ final class GameRenderer implements GameStateListener {
         
         // Update
         Display.update();
-        Display.sync(60);
+    }
+    
+    /**
+     * Shows the number of tasks left waiting at the end of the last frame in
+     * the window title, at most every {@code TITLE_INTERVAL} milliseconds.
+     */
+    private void showBacklog() {
+        long now = System.nanoTime();
+        if (now - nextTitleUpdate < 0) return;
+        nextTitleUpdate = now + TimeUnit.MILLISECONDS.toNanos(TITLE_INTERVAL);
+        
+        int backlog = tasks.getLastDeferred();
+        if (backlog == shownBacklog) return;
+        shownBacklog = backlog;
+        Display.setTitle(backlog == 0 ? WINDOW_TITLE : WINDOW_TITLE + " (" + backlog + " tasks deferred)");
+    }
+    
+    /**
+     * Works out which Chunks may be visible and sorts them from nearest to
+     * farthest into {@code visibleChunkBuffers}. A Chunk is culled when its
+     * box is outside the view frustum or wholly further away than the render
+     * distance, or when there is no way to see into it from the camera's Chunk
+     * through open space (see {@code searchConnectedChunks}). Nothing is done
+     * if the camera and the Chunks are unchanged since the last call, and
+     * after a small movement the previous order is nearly right, so it is kept
+     * and only touched up.
+     * 
+     * @param world the World being drawn
+     * @param view the view matrix
+     * @param eye the camera's position in OpenGL coordinates
+     */
+    private void cullChunks(World world, Matrix4f view, Vector eye) {
+        Matrix4f.mul(projection, view, viewProjection);
+        if (chunkBufferList.size() == culledChunkCount && Arrays.equals(viewProjection.m, culledViewProjection)) return;
+        System.arraycopy(viewProjection.m, 0, culledViewProjection, 0, 16);
+        culledChunkCount = chunkBufferList.size();
+        frustum.set(viewProjection);
+        
+        float maxDistanceSquared = renderDistance * renderDistance;
+        for (int i = 0; i < chunkBufferList.size(); i++) {
+            ChunkBuffer chunkBuffer = chunkBufferList.get(i);
+            Chunk chunk = chunkBuffer.chunk;
+            // The Chunk's box in OpenGL coordinates (inverted z axis)
+            float minX = chunk.chunkX * Chunk.SIZE, maxX = minX + Chunk.SIZE;
+            float minY = chunk.chunkY * Chunk.SIZE, maxY = minY + Chunk.SIZE;
+            float maxZ = -chunk.chunkZ * Chunk.SIZE, minZ = maxZ - Chunk.SIZE;
+            
+            // Distance to the closest point of the box
+            float dx = Math.max(Math.max(minX - eye.x, eye.x - maxX), 0);
+            float dy = Math.max(Math.max(minY - eye.y, eye.y - maxY), 0);
+            float dz = Math.max(Math.max(minZ - eye.z, eye.z - maxZ), 0);
+            chunkBuffer.visible = dx*dx + dy*dy + dz*dz <= maxDistanceSquared
+                    && frustum.intersectsBox(minX, minY, minZ, maxX, maxY, maxZ);
+            
+            float half = Chunk.SIZE / 2.f;
+            dx = minX + half - eye.x;
+            dy = minY + half - eye.y;
+            dz = minZ + half - eye.z;
+            chunkBuffer.distanceSquared = dx*dx + dy*dy + dz*dz;
+        }
+        searchConnectedChunks(world, eye);
+        
+        // Keep the Chunks which are still visible in their old order, then
+        // add the ones which have come into view
+        int kept = 0;
+        for (int i = 0; i < visibleChunkBuffers.size(); i++) {
+            ChunkBuffer chunkBuffer = visibleChunkBuffers.get(i);
+            if (chunkBuffer.visible) visibleChunkBuffers.set(kept++, chunkBuffer);
+            else chunkBuffer.listed = false;
+        }
+        while (visibleChunkBuffers.size() > kept) {
+            visibleChunkBuffers.remove(visibleChunkBuffers.size() - 1);
+        }
+        for (int i = 0; i < chunkBufferList.size(); i++) {
+            ChunkBuffer chunkBuffer = chunkBufferList.get(i);
+            if (chunkBuffer.visible && !chunkBuffer.listed) {
+                visibleChunkBuffers.add(chunkBuffer);
+                chunkBuffer.listed = true;
+            }
+        }
+        
+        // Insertion sort, which takes about linear time when little has moved
+        for (int i = 1; i < visibleChunkBuffers.size(); i++) {
+            ChunkBuffer chunkBuffer = visibleChunkBuffers.get(i);
+            int j = i - 1;
+            while (j >= 0 && visibleChunkBuffers.get(j).distanceSquared > chunkBuffer.distanceSquared) {
+                visibleChunkBuffers.set(j + 1, visibleChunkBuffers.get(j));
+                j--;
+            }
+            visibleChunkBuffers.set(j + 1, chunkBuffer);
+        }
+    }
+    
+    /**
+     * Searches breadth first from the camera's Chunk through the Chunks which
+     * passed the frustum and distance tests, and culls the ones it cannot
+     * reach. The search only leaves a Chunk through a face which is connected
+     * to the one it came in by, and never turns back the way it has already
+     * come, so it follows lines of sight through open space. If the camera is
+     * outside the World, nothing is culled.
+     * 
+     * @param world the World being drawn
+     * @param eye the camera's position in OpenGL coordinates
+     */
+    private void searchConnectedChunks(World world, Vector eye) {
+        Chunk start = world.getChunkContaining((int)Math.floor(eye.x), (int)Math.floor(eye.y), (int)Math.floor(-eye.z));
+        ChunkBuffer first = (start != null) ? chunkBuffers.get(start) : null;
+        if (first == null || !first.meshed) return;
+        
+        searchNumber++;
+        first.searchNumber = searchNumber;
+        first.enteredFace = -1;
+        first.directions = 0;
+        first.visible = true;
+        if (searchQueue.length < chunkBufferList.size()) {
+            searchQueue = new ChunkBuffer[chunkBufferList.size()];
+        }
+        int head = 0, tail = 0;
+        searchQueue[tail++] = first;
+        while (head < tail) {
+            ChunkBuffer chunkBuffer = searchQueue[head++];
+            Chunk chunk = chunkBuffer.chunk;
+            for (Face face : Face.VALUES) {
+                // Faces come in opposite pairs, so flipping the lowest bit of
+                // the ordinal gives the opposite face
+                int back = face.ordinal() ^ 1;
+                if ((chunkBuffer.directions & (1 << back)) != 0) continue;
+                if (chunkBuffer.enteredFace >= 0 && !ChunkVisibility.connects(chunkBuffer.connectivity,
+                        Face.VALUES[chunkBuffer.enteredFace], face)) continue;
+                
+                Chunk next = world.getChunk(chunk.chunkX + face.dx, chunk.chunkY + face.dy, chunk.chunkZ + face.dz);
+                ChunkBuffer nextBuffer = (next != null) ? chunkBuffers.get(next) : null;
+                if (nextBuffer == null || !nextBuffer.visible || nextBuffer.searchNumber == searchNumber) continue;
+                nextBuffer.searchNumber = searchNumber;
+                nextBuffer.enteredFace = back;
+                nextBuffer.directions = chunkBuffer.directions | (1 << face.ordinal());
+                searchQueue[tail++] = nextBuffer;
+            }
+        }
+        
+        for (int i = 0; i < chunkBufferList.size(); i++) {
+            ChunkBuffer chunkBuffer = chunkBufferList.get(i);
+            if (chunkBuffer.searchNumber != searchNumber) chunkBuffer.visible = false;
+        }
+    }
+    
+    /**
+     * Points the vertex arrays at the bound VBO, using VertexWriter's layout.
+     */
+    private void setVertexPointers() {
+        glVertexPointer(3, GL_INT, VertexWriter.SIZEOF, VertexWriter.POSITION_OFFSET * 4);
+        glTexCoordPointer(2, GL_INT, VertexWriter.SIZEOF, VertexWriter.TEXCOORD_OFFSET * 4);
+    }
+    
+    /**
+     * Sends the changes to an opaque mesh to its VBO, which must be bound. After
+     * a rebuild the whole mesh is uploaded; after patches only the byte ranges
+     * of the changed slots are.
+     * 
+     * @param mesh the mesh
+     */
+    private void uploadOpaqueChanges(PatchableMesh mesh) {
+        IntBuffer full = mesh.takeFullUpload();
+        if (full != null) {
+            ARBVertexBufferObject.glBufferDataARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, full, ARBVertexBufferObject.GL_DYNAMIC_DRAW_ARB);
+            return;
+        }
+        if (mesh.getDirtyCount() == 0) return;
+        
+        if (dirtyRuns.length < mesh.getDirtyCount() * 2) dirtyRuns = new int[mesh.getDirtyCount() * 2];
+        int runs = mesh.takeDirtyRuns(dirtyRuns);
+        for (int i = 0; i < runs; i++) {
+            int firstSlot = dirtyRuns[i*2];
+            long offset = (long)firstSlot * ChunkMesher.QUAD_SIZE * 4;
+            ARBVertexBufferObject.glBufferSubDataARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, offset, mesh.getSlots(firstSlot, dirtyRuns[i*2+1]));
+        }
+    }
+    
+    /**
+     * Draws the translucent quads of the visible Chunks, farthest Chunk first
+     * and each Chunk's quads back to front. Chunks whose camera cell has
+     * changed are re-sorted, on a worker thread if they have many quads.
+     * 
+     * @param camera the camera's position in OpenGL coordinates
+     */
+    private void renderTranslucent(Vector camera) {
+        boolean blending = false;
+        for (int i = visibleChunkBuffers.size() - 1; i >= 0; i--) {
+            ChunkBuffer chunkBuffer = visibleChunkBuffers.get(i);
+            TranslucentMesh mesh = chunkBuffer.translucent;
+            if (mesh.getQuadCount() == 0 && chunkBuffer.numTranslucentVerts == 0) continue;
+            
+            if (!mesh.isSortPending() && mesh.needsSort(camera)) {
+                if (mesh.getQuadCount() > ASYNC_SORT_THRESHOLD) {
+                    // The camera Vector is reused next frame, so the sort
+                    // gets its own copy of the position
+                    chunkBuffer.pendingSort = sortExecutor.submit(mesh.beginAsyncSort(camera.x, camera.y, camera.z));
+                } else {
+                    mesh.sort(camera.x, camera.y, camera.z);
+                }
+            }
+            
+            // Upload a finished sort
+            IntBuffer sorted = mesh.takeSortedData();
+            if (sorted != null) {
+                ARBVertexBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, chunkBuffer.translucentBufferObjectID);
+                ARBVertexBufferObject.glBufferDataARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, sorted, ARBVertexBufferObject.GL_STREAM_DRAW_ARB);
+                chunkBuffer.numTranslucentVerts = sorted.limit() / ChunkMesher.VERTEX_SIZE;
+            }
+            
+            if (chunkBuffer.numTranslucentVerts == 0) continue;
+            if (!blending) {
+                // Blend, but don't let translucent faces hide each other in the z buffer
+                glEnable(GL_BLEND);
+                glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+                glDepthMask(false);
+                glColor4f(0.7f, 0.85f, 1.f, 0.5f);
+                blending = true;
+            }
+            ARBVertexBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, chunkBuffer.translucentBufferObjectID);
+            setVertexPointers();
+            glDrawArrays(GL_QUADS, 0, chunkBuffer.numTranslucentVerts);
+        }
+        if (!blending) return;
+        
+        glDepthMask(true);
+        glDisable(GL_BLEND);
     }
     
     /**
@@ -222,7 +667,8 @@ final class GameRenderer implements GameStateListener {
     }
     
     /**
-     * Creates the VBO that this GameRenderer will use.
+     * Checks that VBOs are supported and enables the vertex arrays that every
+     * Chunk's VBO will use.
      * 
      * @throws LWJGLException if VBOs are not supported
      */
@@ -232,116 +678,169 @@ final class GameRenderer implements GameStateListener {
             throw new LWJGLException("GL_ARB_vertex_buffer_object not supported");
         }
         
-        // Create it
-        bufferObjectID = ARBVertexBufferObject.glGenBuffersARB();
-
         // Vertex Data interleaved format: XYZST
-        final int position  = 3;
-        final int texcoords = 2;
-        final int sizeOfInt = 4; // 4 bytes in an int
-        final int vertexDataSize = (position + texcoords) * sizeOfInt;
-        
-        // Bind it
-        ARBVertexBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, bufferObjectID);
-        
-        // Vertex and texture pointers
-        glVertexPointer(3, GL_INT, vertexDataSize, 0);
-        glTexCoordPointer(2, GL_INT, vertexDataSize, position*sizeOfInt);
         glEnableClientState(GL_VERTEX_ARRAY);
         glEnableClientState(GL_TEXTURE_COORD_ARRAY);
     }
     
     /**
-     * Calculates vertices for a cube located at ({@code x}, {@code y}, {@code z}).
-     * The vertices must be rendered with GL_TRIANGLE_STRIP.
+     * Queues a remesh of a {@code chunk} when it has changed in the GameState.
+     * Chunks which are in view are remeshed before those which are not.
      * 
-     * @param x the x-coordinate
-     * @param y the y-coordinate
-     * @param z the z-coordinate
-     * @return the vertices in interleaved XYZST format
-     */
-    private int[] cubeData(int x, int y, int z) {
-        return new int[]{ // 23*5 ints
-            x, y, z,     0, 0, // degenerate
-            
-            x, y, z,     1, 0,
-            x+1,y,z,     1, 1,
-            
-            x,y+1,z,     0, 0,
-            x+1,y+1,z,   0, 1,
-            
-            x,y+1,z-1,   1, 0,
-            x+1,y+1,z-1, 1, 1,
-            
-            x,y,z-1,     0, 0,
-            x+1,y,z-1,   0, 1,
-            
-            x, y, z,     1, 0,
-            x+1,y,z,     1, 1,
-            
-            x+1,y,z,     0, 0, // degenerate
-            x+1,y,z,     0, 0, // degenerate
-            
-            x+1,y,z,     0, 1,
-            x+1,y,z-1,   1, 1,
-            
-            x+1,y+1,z,   0, 0,
-            x+1,y+1,z-1, 1, 0,
-            
-            x+1,y+1,z-1, 0, 0, // degenerate
-            x,y+1,z-1,   0, 0, // degenerate
-            
-            x,y+1,z-1,   0, 0,
-            x,y,z-1,     0, 1,
-            
-            x,y+1,z,     1, 0,
-            x, y, z,     1, 1,
-            
-            x, y, z,     0, 0, // degenerate
-        };
+     * @param world the World containing the chunk
+     * @param chunk the chunk that has changed
+     */
+    @Override
+    public void gameStateChunkChanged(World world, Chunk chunk) {
+        ChunkBuffer chunkBuffer = chunkBuffers.get(chunk);
+        scheduleRemesh(world, chunk, (chunkBuffer != null && chunkBuffer.listed)
+                ? FrameScheduler.Priority.NORMAL : FrameScheduler.Priority.LOW);
     }
-
+    
     /**
-     * Updates the VBO when the a {@code chunk} in the GameState has changed.
+     * Queues a remesh of a Chunk, creating its buffers if it is new. If a
+     * remesh is already waiting at the same or a higher priority, nothing is
+     * done; otherwise it is queued again at the higher priority, and whichever
+     * copy runs first does the work.
      * 
-     * @param chunk the chunk that has changed
+     * @param world the World containing the chunk
+     * @param chunk the chunk to remesh
+     * @param priority how urgent the remesh is
      */
-    @Override
-    public void gameStateChunkChanged(Chunk chunk) {
-        byte[][][] data = chunk.getData();
-        IntBuffer vertexData = BufferUtils.createIntBuffer(70000);
-        
-        try {
-            for (int x = 0; x < 16; x++) {
-                for (int y = 0; y < 16; y++) {
-                    for (int z = 0; z > -16; z--) {
-                        if (data[x][y][-z] != 0) vertexData.put(cubeData(x, y, z));
-                    }
-                }
-            }
-        } catch (BufferOverflowException boe1) {
-            // Try again with more memory
-            try {
-                vertexData = BufferUtils.createIntBuffer(150000);
-                for (int x = 0; x < 16; x++) {
-                    for (int y = 0; y < 16; y++) {
-                        for (int z = 0; z > -16; z--) {
-                            if (data[x][y][-z] != 0) vertexData.put(cubeData(x, y, z));
-                        }
-                    }
+    private void scheduleRemesh(final World world, Chunk chunk, FrameScheduler.Priority priority) {
+        ChunkBuffer chunkBuffer = chunkBuffers.get(chunk);
+        if (chunkBuffer == null) {
+            final ChunkBuffer created = new ChunkBuffer(chunk);
+            created.remeshTask = new Runnable() {
+                @Override
+                public void run() {
+                    remeshNow(world, created);
                 }
-            } catch (BufferOverflowException boe2) {
-                // Bail out
-                System.out.println("Oops! Mycraft has crashed!");
-                Mycraft.LOGGER.log(Level.SEVERE, boe2.toString(), boe2);
-                System.exit(1);
-            }
+            };
+            chunkBuffers.put(chunk, created);
+            chunkBuffer = created;
         }
         
-        numVerts = vertexData.position() / 5;
-        vertexData.flip();
+        if (chunkBuffer.remeshQueued != null && chunkBuffer.remeshQueued.compareTo(priority) <= 0) return;
+        chunkBuffer.remeshQueued = priority;
+        tasks.schedule(chunkBuffer.remeshTask, priority);
+    }
+    
+    /**
+     * Remeshes a Chunk and uploads its opaque VBO, if a remesh is still
+     * waiting for it. Run by the FrameScheduler.
+     * 
+     * @param world the World containing the chunk
+     * @param chunkBuffer the Chunk's buffers
+     */
+    private void remeshNow(World world, ChunkBuffer chunkBuffer) {
+        // An earlier copy of this task, queued at a higher priority, did it
+        if (chunkBuffer.remeshQueued == null) return;
+        chunkBuffer.remeshQueued = null;
+        
+        chunkBuffer.opaque.rebuild(world, vertexData, translucentVertexData);
+        ARBVertexBufferObject.glBindBufferARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, chunkBuffer.bufferObjectID);
+        uploadOpaqueChanges(chunkBuffer.opaque);
+        updateConnectivity(chunkBuffer);
+        
+        // A sort of the old quads is no use any more; if one is already
+        // running, setQuads leaves it its arrays and its result is discarded
+        if (chunkBuffer.pendingSort != null) {
+            chunkBuffer.pendingSort.cancel(false);
+            chunkBuffer.pendingSort = null;
+        }
+        chunkBuffer.translucent.setQuads(translucentVertexData);
+        if (chunkBuffer.translucent.getQuadCount() == 0) chunkBuffer.numTranslucentVerts = 0;
         
-        // Upload data
-        ARBVertexBufferObject.glBufferDataARB(ARBVertexBufferObject.GL_ARRAY_BUFFER_ARB, vertexData, ARBVertexBufferObject.GL_DYNAMIC_DRAW_ARB);
+        if (!chunkBuffer.meshed) {
+            chunkBuffer.meshed = true;
+            chunkBufferList.add(chunkBuffer);
+        }
+    }
+    
+    /**
+     * Patches the meshes when a single block has changed in the GameState. The
+     * opaque faces of the block and its six neighbours are spliced in place.
+     * Translucent faces depend on the types of their neighbours, so if any
+     * translucent block is involved the affected Chunks are remeshed instead,
+     * ahead of other queued work: the Chunk containing the block, plus the
+     * neighbouring Chunk sharing a face for each axis on which the block lies
+     * on the border.
+     * 
+     * @param world the World containing the block
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param oldType the block's type before it changed
+     */
+    @Override
+    public void gameStateBlockChanged(World world, int x, int y, int z, byte oldType) {
+        byte type = world.getBlockType(x, y, z);
+        boolean translucent = BlockType.isTranslucent(oldType) || BlockType.isTranslucent(type);
+        
+        refreshBlock(world, x, y, z);
+        if (BlockType.isOpaque(oldType) != BlockType.isOpaque(type)) {
+            ChunkBuffer chunkBuffer = chunkBuffers.get(world.getChunkContaining(x, y, z));
+            if (chunkBuffer != null && chunkBuffer.meshed) updateConnectivity(chunkBuffer);
+        }
+        for (Face face : Face.VALUES) {
+            int nx = x + face.dx, ny = y + face.dy, nz = z + face.dz;
+            refreshBlock(world, nx, ny, nz);
+            translucent |= BlockType.isTranslucent(world.getBlockType(nx, ny, nz));
+        }
+        
+        if (translucent) {
+            remesh(world, x, y, z);
+            int lx = x & 15, ly = y & 15, lz = z & 15;
+            if (lx == 0) remesh(world, x-1, y, z);
+            else if (lx == 15) remesh(world, x+1, y, z);
+            if (ly == 0) remesh(world, x, y-1, z);
+            else if (ly == 15) remesh(world, x, y+1, z);
+            if (lz == 0) remesh(world, x, y, z-1);
+            else if (lz == 15) remesh(world, x, y, z+1);
+        }
+    }
+    
+    /**
+     * Recalculates which faces of a Chunk are connected, and makes the next
+     * frame cull again if that has changed.
+     * 
+     * @param chunkBuffer the Chunk's buffers
+     */
+    private void updateConnectivity(ChunkBuffer chunkBuffer) {
+        int connectivity = chunkVisibility.compute(chunkBuffer.chunk);
+        if (connectivity != chunkBuffer.connectivity) {
+            chunkBuffer.connectivity = connectivity;
+            culledChunkCount = -1;
+        }
+    }
+    
+    /**
+     * Splices the opaque faces of one block into its Chunk's mesh, if it has
+     * been meshed.
+     * 
+     * @param world the World containing the block
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     */
+    private void refreshBlock(World world, int x, int y, int z) {
+        Chunk chunk = world.getChunkContaining(x, y, z);
+        if (chunk == null) return;
+        ChunkBuffer chunkBuffer = chunkBuffers.get(chunk);
+        if (chunkBuffer != null && chunkBuffer.meshed) chunkBuffer.opaque.refreshBlock(world, x, y, z);
+    }
+    
+    /**
+     * Queues an urgent remesh of the Chunk containing a block, if it is loaded.
+     * 
+     * @param world the World containing the block
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     */
+    private void remesh(World world, int x, int y, int z) {
+        Chunk chunk = world.getChunkContaining(x, y, z);
+        if (chunk != null) scheduleRemesh(world, chunk, FrameScheduler.Priority.HIGH);
     }
 }
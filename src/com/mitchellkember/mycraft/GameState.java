@@ -29,9 +29,72 @@ final class GameState {
     private Player player = new Player();
     
     /**
-     * The one and only Chunk... so far.
+     * Every other moving object.
      */
-    private Chunk chunk;
+    private final Entities entities = new Entities(256);
+    
+    /**
+     * Splits the world into regions which are ticked in parallel.
+     */
+    private final RegionTicker regions = new RegionTicker();
+    
+    /**
+     * Finds entities near a point, rebuilt after they move each tick.
+     */
+    private final SpatialHash entityHash = new SpatialHash(2);
+    
+    /**
+     * Block ticks waiting to come due.
+     */
+    private final ScheduledTicks scheduledTicks = new ScheduledTicks(ScheduledTicks.DEFAULT_BUDGET);
+    
+    /**
+     * Runs scheduled ticks by handing them to the BlockBehavior of their type.
+     */
+    private final ScheduledTicks.Handler scheduledTickHandler = new ScheduledTicks.Handler() {
+        @Override
+        public void scheduledTick(int x, int y, int z, byte type) {
+            BlockBehavior behavior = BlockType.getBehavior(type);
+            if (behavior != null) behavior.scheduledTick(GameState.this, x, y, z, type);
+        }
+    };
+    
+    /**
+     * Ticks blocks at random.
+     */
+    private final RandomTicks randomTicks = new RandomTicks(RandomTicks.DEFAULT_PER_CHUNK);
+    
+    /**
+     * Runs random ticks by handing them to the BlockBehavior of their type.
+     */
+    private final RandomTicks.Handler randomTickHandler = new RandomTicks.Handler() {
+        @Override
+        public void randomTick(int x, int y, int z, byte type) {
+            BlockType.getBehavior(type).randomTick(GameState.this, x, y, z, type);
+        }
+    };
+    
+    /**
+     * Blocks waiting to hear that a neighbour has changed.
+     */
+    private final NeighbourUpdates neighbourUpdates = new NeighbourUpdates(NeighbourUpdates.DEFAULT_BUDGET);
+    
+    /**
+     * Hands neighbour notifications to the BlockBehavior of the notified block.
+     */
+    private final NeighbourUpdates.Handler neighbourHandler = new NeighbourUpdates.Handler() {
+        @Override
+        public void neighbourChanged(int x, int y, int z) {
+            byte type = world.getBlockType(x, y, z);
+            BlockBehavior behavior = BlockType.getBehavior(type);
+            if (behavior != null) behavior.neighbourChanged(GameState.this, x, y, z, type);
+        }
+    };
+    
+    /**
+     * All of the loaded Chunks.
+     */
+    private World world;
     
     /**
      * The currently selected block.
@@ -44,204 +107,195 @@ final class GameState {
      */
     private Block newBlock;
     
+    /**
+     * Index into {@code BlockType.PLACEABLE} of the type the Player will place.
+     */
+    private int heldBlockIndex = 0;
+    
+    /**
+     * Reused by {@code calculateSelectedBlock} so that picking allocates nothing.
+     */
+    private final Vector eye = new Vector(), sight = new Vector();
+    private final RaycastResult pick = new RaycastResult();
+    
     /**
      * Creates a new GameState with the specified class implementing
-     * GamStateListener to listen for state changes.
+     * GamStateListener to listen for state changes. A GameState which nothing
+     * draws can use {@code GameStateListener.NONE}.
      * 
      * @param listener the object to receive state change events
      */
     GameState(GameStateListener listener) {
         this.listener = listener;
-        chunk = new Chunk();
-        listener.gameStateChunkChanged(chunk);
+        world = new World();
+        world.generateFlat();
+        for (Chunk chunk : world.getChunks()) {
+            listener.gameStateChunkChanged(world, chunk);
+        }
     }
     
     /**
-     * Updates the GameState, responding to user input through {@code GameStateInputData}.
-     * This should be called every frame.
+     * Updates the GameState by one tick, responding to user input through
+     * {@code GameStateInputData}. This should be called once per simulation
+     * tick, on the simulation thread.
      * 
      * @param input user input that should modify the state or move the player
-     * @param deltaTime time passed since the last call in milliseconds
+     * @param deltaTime the fixed length of a tick in milliseconds
      * @see GameStateInputData
      */
     void update(GameStateInputData input, float deltaTime) {
-        // Everything is simulated to look correct at 60FPS, and is multiplied
-        // by this to match the real framerate.
+        // Movement speeds are given per 60FPS frame, so this converts the
+        // tick length into a number of such frames.
         float multiplier = deltaTime / (100.f / 6.f);
         
         // Player movement
+        player.getCamera().beginTick();
         player.move(input, multiplier);
-        player.collision(chunk);
+        player.collision(world);
         if (input.jump) player.jump();
         
+        // Everything else that moves, region by region
+        player.getCamera().getPosition(eye);
+        regions.tick(world, entities, eye.x, eye.z, multiplier);
+        
+        // Blocks which asked to be ticked now
+        scheduledTicks.tick(world, scheduledTickHandler);
+        randomTicks.tick(world, randomTickHandler);
+        entityHash.rebuild(entities);
+        
+        // Cycle the held block, wrapping around in both directions
+        int placeable = BlockType.PLACEABLE.length;
+        heldBlockIndex = ((heldBlockIndex + input.cycleBlock) % placeable + placeable) % placeable;
+        
         // Set selectedBlock and newBlock
-        calculateSelectedBlock(chunk);
+        calculateSelectedBlock(world);
         
         // Break or place a block
         if (selectedBlock != null && newBlock != null) {
             if (input.breakBlock) {
-                chunk.setBlockType(selectedBlock, (byte)0);
-                // Notify the listener
-                listener.gameStateChunkChanged(chunk);
+                setBlockType(selectedBlock, BlockType.AIR);
             } else if (input.placeBlock) {
-                chunk.setBlockType(newBlock, (byte)1);
-                // Notify the listener
-                listener.gameStateChunkChanged(chunk);
+                setBlockType(newBlock, BlockType.PLACEABLE[heldBlockIndex]);
             }
         }
+        
+        // Let the neighbours of every changed block react
+        neighbourUpdates.process(neighbourHandler);
     }
     
     /**
-     * Calculates {@code selectedBlock} and {@code newBlock}.
+     * Sets a block's type and notifies the listener. Nothing happens if its
+     * Chunk is not loaded.
      * 
-     * @param chunk the chunk the Player is in
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param type its new type id
      */
-    void calculateSelectedBlock(Chunk chunk) {
-        Vector position = player.getCamera().getPosition();
-        Vector sight = player.getCamera().getSight();
-        
-        Vector ray;  // Vector cast out from the players position to find a block
-        Vector step; // step to increment ray by
-        
-        // Blocks are null unless they become assigned.
-        selectedBlock = null;
-        newBlock = null;
-        
-        // The following works, and is bug-free. That is all.
-        
-        // XY plane (front and back faces)
-        // Start out assuming the front/back block is very far away so other blocks
-        // will be chosen first, if there is no block found (if z == 0 or the ray leaves
-        // its confines.
-        float frontBackDistSquared = Float.MAX_VALUE;
-        if (sight.z != 0) {
-            // Calculate ray and step depending on look direction
-            if (sight.z > 0) ray = position.plus(sight.scaled((float)(Math.ceil(position.z) - position.z) / sight.z));
-            else ray = position.plus(sight.scaled((float)(Math.floor(position.z) - position.z) / sight.z));
-            step = sight.scaled(Math.abs(1.f / sight.z));
-            
-            // Do the first step already if z == 16 to prevent an ArrayIndexOutOfBoundsException
-            if (ray.z == 16) ray.add(step);
-            
-            while (ray.x >= 0 && ray.x < 16
-                    && ray.y >= 0 && ray.y < 16
-                    && ray.z >= 0 && ray.z < 16) {
-                // Give up if we've extended the ray longer than the Player's arm length
-                float distSquared = ray.minus(position).magnitudeSquared();
-                if (distSquared > ARM_LENGTH * ARM_LENGTH) break;
-                
-                if (sight.z > 0) {
-                     if (chunk.getBlockType(new Block((int)ray.x, (int)ray.y, (int)ray.z)) != 0) {
-                         selectedBlock = new Block((int)ray.x, (int)ray.y, (int)ray.z);
-                         if (selectedBlock.z-1 >= 0) {
-                             newBlock = new Block(selectedBlock.x, selectedBlock.y, selectedBlock.z-1);
-                             if (chunk.getBlockType(newBlock) != 0) newBlock = null;
-                         }
-                         
-                         frontBackDistSquared = distSquared;
-                         break;
-                     }
-                } else {
-                    if (ray.z-1 >= 0 && chunk.getBlockType(new Block((int)ray.x, (int)ray.y, (int)ray.z-1)) != 0) {
-                        selectedBlock = new Block((int)ray.x, (int)ray.y, (int)ray.z-1);
-                        if (selectedBlock.z+1 < 16) {
-                            newBlock = new Block(selectedBlock.x, selectedBlock.y, selectedBlock.z+1);
-                            if (chunk.getBlockType(newBlock) != 0) newBlock = null;
-                        }
-                        
-                        frontBackDistSquared = distSquared;
-                        break;
-                    }
-                }
-                ray.add(step);
-            }
-        }
+    void setBlockType(int x, int y, int z, byte type) {
+        if (world.getChunkContaining(x, y, z) == null) return;
+        byte oldType = world.getBlockType(x, y, z);
+        world.setBlockType(x, y, z, type);
+        listener.gameStateBlockChanged(world, x, y, z, oldType);
+        neighbourUpdates.notifyNeighbours(x, y, z);
+    }
+    
+    /**
+     * Schedules a block tick, which will call the BlockBehavior of {@code type}
+     * after {@code delay} ticks if the block still has that type then.
+     * 
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param type the block's type id
+     * @param delay the number of ticks to wait, at least 1
+     * @param priority orders ticks due together, lowest first
+     * @return false if the block already had a tick pending for this type
+     */
+    boolean scheduleBlockTick(int x, int y, int z, byte type, int delay, int priority) {
+        return scheduledTicks.schedule(x, y, z, type, delay, priority);
+    }
+    
+    /**
+     * Gets the random block ticks, for their statistics.
+     * 
+     * @return the RandomTicks
+     */
+    RandomTicks getRandomTicks() {
+        return randomTicks;
+    }
+    
+    /**
+     * Gets the queue of neighbour notifications, for its statistics.
+     * 
+     * @return the NeighbourUpdates
+     */
+    NeighbourUpdates getNeighbourUpdates() {
+        return neighbourUpdates;
+    }
+    
+    /**
+     * Gets the World being simulated.
+     * 
+     * @return the World
+     */
+    World getWorld() {
+        return world;
+    }
+    
+    /**
+     * Sets a block's type and notifies the listener.
+     * 
+     * @param block the location of the block, in world coordinates
+     * @param type its new type id
+     */
+    private void setBlockType(Block block, byte type) {
+        setBlockType(block.x, block.y, block.z, type);
+    }
+    
+    /**
+     * Calculates {@code selectedBlock} and {@code newBlock} by casting a ray
+     * along the Player's line of sight. The Blocks are only replaced when the
+     * selection actually changes, so nothing is allocated while looking at the
+     * same block.
+     * 
+     * @param world the World the Player is in
+     */
+    void calculateSelectedBlock(World world) {
+        player.getCamera().getPosition(eye);
+        player.getCamera().getSight(sight);
         
-        // YZ plane (left and right faces)
-        float leftRightDistSquared = Float.MAX_VALUE;
-        if (sight.x != 0) {
-            if (sight.x > 0) ray = position.plus(sight.scaled((float)(Math.ceil(position.x) - position.x) / sight.x));
-            else ray = position.plus(sight.scaled((float)(Math.floor(position.x) - position.x) / sight.x));
-            step = sight.scaled(Math.abs(1.f / sight.x));
-            
-            if (ray.x == 16) ray.add(step);
-            
-            while (ray.x >= 0 && ray.x < 16
-                    && ray.y >= 0 && ray.y < 16
-                    && ray.z >= 0 && ray.z < 16) {
-                float distSquared = ray.minus(position).magnitudeSquared();
-                if (distSquared > ARM_LENGTH * ARM_LENGTH || distSquared > frontBackDistSquared) break;
-                
-                if (sight.x > 0) {
-                     if (chunk.getBlockType(new Block((int)ray.x, (int)ray.y, (int)ray.z)) != 0) {
-                         selectedBlock = new Block((int)ray.x, (int)ray.y, (int)ray.z);
-                         if (selectedBlock.x-1 >= 0) {
-                             newBlock = new Block(selectedBlock.x-1, selectedBlock.y, selectedBlock.z);
-                             if (chunk.getBlockType(newBlock) != 0) newBlock = null;
-                         }
-                         
-                         leftRightDistSquared = distSquared;
-                         break;
-                     }
-                } else {
-                    if (ray.x-1 >= 0 && chunk.getBlockType(new Block((int)ray.x-1, (int)ray.y, (int)ray.z)) != 0) {
-                        selectedBlock = new Block((int)ray.x-1, (int)ray.y, (int)ray.z);
-                        if (selectedBlock.x+1 < 16) {
-                            newBlock = new Block(selectedBlock.x+1, selectedBlock.y, selectedBlock.z);
-                            if (chunk.getBlockType(newBlock) != 0) newBlock = null;
-                        }
-                        
-                        leftRightDistSquared = distSquared;
-                        break;
-                    }
-                }
-                ray.add(step);
-            }
+        if (!world.raycast(eye, sight, ARM_LENGTH, BlockFilter.NOT_AIR, pick)) {
+            selectedBlock = null;
+            newBlock = null;
+            return;
         }
+        selectedBlock = sameOrNewBlock(selectedBlock, pick.x, pick.y, pick.z);
         
-        // XZ plane (bottom and top faces)
-        float bottomTopDistSquared = Float.MAX_VALUE;
-        if (sight.y != 0) {
-            if (sight.y > 0) ray = position.plus(sight.scaled((float)(Math.ceil(position.y) - position.y) / sight.y));
-            else ray = position.plus(sight.scaled((float)(Math.floor(position.y) - position.y) / sight.y));
-            step = sight.scaled(Math.abs(1.f / sight.y));
-            
-            if (ray.y == 16) ray.add(step);
-            
-            while (ray.x >= 0 && ray.x < 16
-                    && ray.y >= 0 && ray.y < 16
-                    && ray.z >= 0 && ray.z < 16) {
-                float distSquared = ray.minus(position).magnitudeSquared();
-                if (distSquared > ARM_LENGTH * ARM_LENGTH || distSquared > frontBackDistSquared || distSquared > leftRightDistSquared) break;
-                
-                if (sight.y > 0) {
-                     if (chunk.getBlockType(new Block((int)ray.x, (int)ray.y, (int)ray.z)) != 0) {
-                         selectedBlock = new Block((int)ray.x, (int)ray.y, (int)ray.z);
-                         if (selectedBlock.y-1 >= 0) {
-                             newBlock = new Block(selectedBlock.x, selectedBlock.y-1, selectedBlock.z);
-                             if (chunk.getBlockType(newBlock) != 0) newBlock = null;
-                         }
-                         
-                         bottomTopDistSquared = distSquared;
-                         break;
-                     }
-                } else {
-                    if (ray.y-1 >= 0 && chunk.getBlockType(new Block((int)ray.x, (int)ray.y-1, (int)ray.z)) != 0) {
-                        selectedBlock = new Block((int)ray.x, (int)ray.y-1, (int)ray.z);
-                        if (selectedBlock.y+1 < 16) {
-                            newBlock = new Block(selectedBlock.x, selectedBlock.y+1, selectedBlock.z);
-                            if (chunk.getBlockType(newBlock) != 0) newBlock = null;
-                        }
-                        
-                        bottomTopDistSquared = distSquared;
-                        break;
-                    }
-                }
-                ray.add(step);
-            }
+        // A block can only be placed in loaded air
+        int x = pick.placeX(), y = pick.placeY(), z = pick.placeZ();
+        if (world.getChunkContaining(x, y, z) != null && world.getBlockType(x, y, z) == BlockType.AIR) {
+            newBlock = sameOrNewBlock(newBlock, x, y, z);
+        } else {
+            newBlock = null;
         }
     }
     
+    /**
+     * Gets a Block at the specified coordinates, reusing {@code block} if it
+     * is already there.
+     * 
+     * @param block the previous Block, or null
+     * @param x the X-coordinate
+     * @param y the Y-coordinate
+     * @param z the Z-coordinate
+     * @return {@code block} or a new Block
+     */
+    private static Block sameOrNewBlock(Block block, int x, int y, int z) {
+        if (block != null && block.x == x && block.y == y && block.z == z) return block;
+        return new Block(x, y, z);
+    }
+    
     /**
      * Determines whether a block is currently selected or not.
      * 
@@ -260,6 +314,24 @@ final class GameState {
         return selectedBlock;
     }
     
+    /**
+     * Gets the entities in the world.
+     * 
+     * @return the Entities
+     */
+    Entities getEntities() {
+        return entities;
+    }
+    
+    /**
+     * Gets the SpatialHash of the entities, as of the last update.
+     * 
+     * @return the SpatialHash
+     */
+    SpatialHash getEntityHash() {
+        return entityHash;
+    }
+    
     /**
      * Gets the Player's Camera object.
      * 
@@ -7,6 +7,9 @@ package com.mitchellkember.mycraft;
  * of abstraction between the actual means of input (which key, which mouse button,
  * etc.) and what type of input is actual required for GameState to perform
  * specific actions.
+ * <p>
+ * The GameController fills in the same GameStateInputData for every tick
+ * rather than creating a new one, so that handling input creates no garbage.
  * 
  * @author Mitchell Kember
  * @since 09/12/2011
@@ -16,20 +19,20 @@ final class GameStateInputData {
     private static final float DEFAULT_LOOK_SENSITIVITY = 1.f / 10.f;
     private static float lookSensitivity = DEFAULT_LOOK_SENSITIVITY;
     
-    final boolean forward;
-    final boolean backward;
-    final boolean left;
-    final boolean right;
+    boolean forward;
+    boolean backward;
+    boolean left;
+    boolean right;
     
-    final boolean jump;
+    boolean jump;
     
-    final float lookDeltaX;
-    final float lookDeltaY;
+    float lookDeltaX;
+    float lookDeltaY;
     
-    final int cycleBlock;
+    int cycleBlock;
     
-    final boolean breakBlock;
-    final boolean placeBlock;
+    boolean breakBlock;
+    boolean placeBlock;
     
     /**
      * Creates a new GameStateInputData, initializing all fields.
@@ -42,9 +45,28 @@ final class GameStateInputData {
      * @param lookDeltaX the distance along the x-axis the Player has shifted its gaze
      * @param lookDeltaY the distance along the y-axis the Player has shifted its gaze
      * @param cycleBlock how many times the Player should cycle the block being held (wraps around)
+     * @param breakBlock if the Player should break a block
      * @param placeBlock if the Player should place a block
      */
     GameStateInputData(boolean forward, boolean backward, boolean left, boolean right, boolean jump, float lookDeltaX, float lookDeltaY, int cycleBlock, boolean breakBlock, boolean placeBlock) {
+        set(forward, backward, left, right, jump, lookDeltaX, lookDeltaY, cycleBlock, breakBlock, placeBlock);
+    }
+    
+    /**
+     * Replaces all fields, exactly as the constructor initializes them.
+     * 
+     * @param forward if the Player should move forward
+     * @param backward if the Player should move backward
+     * @param left if the Player should move to the left
+     * @param right if the Player should move to the right
+     * @param jump if the Player should jump
+     * @param lookDeltaX the distance along the x-axis the Player has shifted its gaze
+     * @param lookDeltaY the distance along the y-axis the Player has shifted its gaze
+     * @param cycleBlock how many times the Player should cycle the block being held (wraps around)
+     * @param breakBlock if the Player should break a block
+     * @param placeBlock if the Player should place a block
+     */
+    void set(boolean forward, boolean backward, boolean left, boolean right, boolean jump, float lookDeltaX, float lookDeltaY, int cycleBlock, boolean breakBlock, boolean placeBlock) {
         this.forward = forward;
         this.backward = backward;
         this.left = left;
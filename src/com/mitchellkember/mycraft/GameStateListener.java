@@ -4,11 +4,37 @@ package com.mitchellkember.mycraft;
 
 /**
  * Classes that listen and respond to changes in the GameState must implement
- * this interface. This allows them to be notified when Chunks are modified.
+ * this interface. This allows them to be notified when Chunks or single blocks
+ * are modified.
  * 
  * @author Michell Kember
  * @since 10/12/2011
  */
 interface GameStateListener {
-    void gameStateChunkChanged(Chunk chunk);
+    
+    /**
+     * A listener which ignores every change, for a GameState which nothing
+     * draws, such as a server's.
+     */
+    GameStateListener NONE = new GameStateListener() {
+        @Override
+        public void gameStateChunkChanged(World world, Chunk chunk) {}
+        
+        @Override
+        public void gameStateBlockChanged(World world, int x, int y, int z, byte oldType) {}
+    };
+    
+    void gameStateChunkChanged(World world, Chunk chunk);
+    
+    /**
+     * Called when a single block has changed. The block is given by its
+     * coordinates so that nothing has to be allocated for each change.
+     * 
+     * @param world the World containing the block
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param oldType the block's type before it changed
+     */
+    void gameStateBlockChanged(World world, int x, int y, int z, byte oldType);
 }
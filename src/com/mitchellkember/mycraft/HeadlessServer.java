@@ -0,0 +1,166 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HeadlessServer runs a GameState without a window. Nothing in it touches the
+ * LWJGL Display, Keyboard or Mouse (or loads any LWJGL class at all), so it
+ * runs on machines with no display, for servers and automated performance
+ * runs. The GameState is ticked at a fixed rate on the calling thread, with
+ * no input, and every few seconds a line of statistics about the ticks is
+ * printed.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see Mycraft
+ */
+final class HeadlessServer {
+    
+    /**
+     * How often to print statistics, in seconds.
+     */
+    private static final int REPORT_INTERVAL = 5;
+    
+    /**
+     * The most ticks that will be simulated to catch up at once.
+     */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    
+    /**
+     * The input for every tick: nothing pressed and nothing moved.
+     */
+    private static final GameStateInputData NO_INPUT = new GameStateInputData(
+            false, false, false, false, false, 0, 0, 0, false, false);
+    
+    /**
+     * The GameState being run.
+     */
+    private final GameState state = new GameState(GameStateListener.NONE);
+    
+    /**
+     * The length of one tick, in milliseconds and in nanoseconds.
+     */
+    private final float tickLength;
+    private final long tickNanos;
+    
+    /**
+     * Statistics since the last report: ticks run, and the total and longest
+     * time they took in nanoseconds.
+     */
+    private int reportTicks;
+    private long reportTotalNanos, reportMaxNanos;
+    
+    /**
+     * Neighbour notifications since the last report: the number sent, the
+     * number dropped because the block was already queued, and the longest
+     * the queue got.
+     */
+    private long reportProcessed, reportCoalesced;
+    private int reportPeakDepth;
+    
+    /**
+     * Creates a new HeadlessServer with a new GameState.
+     * 
+     * @param tickRate the number of times per second to update the GameState
+     */
+    HeadlessServer(int tickRate) {
+        this.tickLength = 1000.f / tickRate;
+        this.tickNanos = TimeUnit.SECONDS.toNanos(1) / tickRate;
+    }
+    
+    /**
+     * Scatters entities through the air above the World, to give the
+     * simulation something to do.
+     * 
+     * @param count the number of entities
+     */
+    void spawnEntities(int count) {
+        Entities entities = state.getEntities();
+        Random random = new Random(count);
+        for (int i = 0; i < count && entities.size() < Entities.MAX_ENTITIES; i++) {
+            entities.create(1 + random.nextFloat() * (World.SIZE - 2), World.SIZE / 2 + random.nextFloat() * (World.SIZE / 2 - 1),
+                    1 + random.nextFloat() * (World.SIZE - 2), 0.3f, 0.9f);
+        }
+    }
+    
+    /**
+     * Runs the GameState in real time, or as fast as possible if
+     * {@code realTime} is false.
+     * 
+     * @param maxTicks the number of ticks to run, or 0 to run until the
+     *        thread is interrupted
+     * @param realTime whether to keep to the tick rate rather than running
+     *        every tick straight after the last
+     */
+    void run(long maxTicks, boolean realTime) {
+        System.out.println("Mycraft server running at " + Math.round(1000 / tickLength) + " ticks per second"
+                + (realTime ? "" : " (unthrottled)") + ", " + state.getEntities().size() + " entities.");
+        long start = System.nanoTime();
+        long nextTick = start, nextReport = start + TimeUnit.SECONDS.toNanos(REPORT_INTERVAL);
+        long ticks = 0;
+        while ((maxTicks == 0 || ticks < maxTicks) && !Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            if (realTime && now - nextTick < 0) {
+                LockSupport.parkNanos(nextTick - now);
+                continue;
+            }
+            
+            int caughtUp = 0;
+            do {
+                tick();
+                nextTick += tickNanos;
+                ticks++;
+                caughtUp++;
+            } while (realTime && now - nextTick >= 0 && caughtUp < MAX_CATCH_UP_TICKS
+                    && (maxTicks == 0 || ticks < maxTicks));
+            // Give up on ticks that could not be caught up with
+            if (realTime && now - nextTick >= 0) nextTick += ((now - nextTick) / tickNanos + 1) * tickNanos;
+            
+            if (System.nanoTime() - nextReport >= 0) {
+                report(ticks);
+                nextReport += TimeUnit.SECONDS.toNanos(REPORT_INTERVAL);
+            }
+        }
+        if (reportTicks > 0) report(ticks);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Ran %d ticks in %.2f s (%.1f ticks per second).%n", ticks, seconds, ticks / seconds);
+    }
+    
+    /**
+     * Runs one tick and records how long it took.
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        state.update(NO_INPUT, tickLength);
+        long elapsed = System.nanoTime() - start;
+        reportTicks++;
+        reportTotalNanos += elapsed;
+        reportMaxNanos = Math.max(reportMaxNanos, elapsed);
+        
+        NeighbourUpdates neighbourUpdates = state.getNeighbourUpdates();
+        reportProcessed += neighbourUpdates.getLastProcessed();
+        reportCoalesced += neighbourUpdates.getLastCoalesced();
+        reportPeakDepth = Math.max(reportPeakDepth, neighbourUpdates.getLastPeakDepth());
+    }
+    
+    /**
+     * Prints the statistics since the last report and starts new ones.
+     * 
+     * @param ticks the number of ticks run so far
+     */
+    private void report(long ticks) {
+        System.out.printf("tick %d: %d ticks, mean %.3f ms, max %.3f ms, %d entities, "
+                + "neighbour updates %d processed, %d coalesced, peak %d, %d queued%n",
+                ticks, reportTicks, reportTotalNanos / 1e6 / Math.max(1, reportTicks), reportMaxNanos / 1e6,
+                state.getEntities().size(), reportProcessed, reportCoalesced, reportPeakDepth,
+                state.getNeighbourUpdates().getDepth());
+        reportTicks = 0;
+        reportTotalNanos = reportMaxNanos = 0;
+        reportProcessed = reportCoalesced = 0;
+        reportPeakDepth = 0;
+    }
+}
@@ -0,0 +1,156 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * InputQueue carries input events from the render thread, which owns the
+ * keyboard and mouse, to the simulation thread. Each event is packed into a
+ * long: its kind, and two signed values whose meaning depends on the kind
+ * (the key and whether it went down, for example, or how far the mouse moved
+ * in X and Y). The events wait in a ring buffer which is allocated once, so
+ * passing input along creates no garbage. As with ListenerQueue, there is one
+ * writer and one reader, which only share two volatile counters.
+ * <p>
+ * Every event is kept, in order, until the reader takes it, however many
+ * frames or ticks go by. If the reader falls so far behind that the buffer
+ * fills up, further events are dropped, and the next call to
+ * {@code takeOverflow} says so, so that the reader can forget which keys it
+ * thinks are held down rather than leave one stuck.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see GameController
+ */
+final class InputQueue {
+    
+    /**
+     * The kinds of event. For a key, the values are the LWJGL key code and 1
+     * if it went down or 0 if it came up; for a mouse button, the button and
+     * likewise; for mouse movement, the distance moved in X and in Y; and for
+     * the mouse wheel, the distance it turned and 0.
+     */
+    static final int KEY = 1, BUTTON = 2, MOTION = 3, WHEEL = 4;
+    
+    /**
+     * The kind is kept in the top 8 bits, and the values in two fields of
+     * 28 bits below it.
+     */
+    private static final int KIND_SHIFT = 56, FIRST_SHIFT = 28;
+    private static final int VALUE_BITS = 28;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    
+    /**
+     * The events, in a ring buffer whose length is a power of two.
+     */
+    private final long[] events;
+    private final int mask;
+    
+    /**
+     * The number of events ever written and ever read. Only the writer
+     * changes {@code written} and only the reader changes {@code read}.
+     */
+    private volatile long written, read;
+    
+    /**
+     * Set by the writer when an event did not fit.
+     */
+    private volatile boolean overflowed;
+    
+    /**
+     * Creates a new, empty InputQueue.
+     * 
+     * @param capacity the most events which can wait at once, rounded up to a
+     *        power of two
+     */
+    InputQueue(int capacity) {
+        events = new long[Integer.highestOneBit(Math.max(2, capacity - 1)) << 1];
+        mask = events.length - 1;
+    }
+    
+    /**
+     * Adds an event, or notes that it was dropped. Call this only from the
+     * writer thread.
+     * 
+     * @param kind the kind of event
+     * @param first its first value
+     * @param second its second value
+     */
+    void add(int kind, int first, int second) {
+        long w = written;
+        if (w - read == events.length) {
+            overflowed = true;
+            return;
+        }
+        events[(int)w & mask] = ((long)kind << KIND_SHIFT) | ((first & VALUE_MASK) << FIRST_SHIFT) | (second & VALUE_MASK);
+        written = w + 1;
+    }
+    
+    /**
+     * Determines whether there is an event waiting. Call this and the other
+     * reading methods only from the reader thread.
+     * 
+     * @return true if {@code peek} has an event to return
+     */
+    boolean hasNext() {
+        return read != written;
+    }
+    
+    /**
+     * Gets the oldest waiting event without taking it. There must be one.
+     * 
+     * @return the packed event
+     */
+    long peek() {
+        return events[(int)read & mask];
+    }
+    
+    /**
+     * Takes the oldest waiting event, once it has been handled.
+     */
+    void advance() {
+        read = read + 1;
+    }
+    
+    /**
+     * Determines whether any events have been dropped since the last call,
+     * and clears the flag.
+     * 
+     * @return true if an event was dropped
+     */
+    boolean takeOverflow() {
+        if (!overflowed) return false;
+        overflowed = false;
+        return true;
+    }
+    
+    /**
+     * Gets the kind of an event.
+     * 
+     * @param event the packed event
+     * @return its kind
+     */
+    static int kind(long event) {
+        return (int)(event >>> KIND_SHIFT);
+    }
+    
+    /**
+     * Gets the first value of an event.
+     * 
+     * @param event the packed event
+     * @return its first value
+     */
+    static int first(long event) {
+        // Shift the field to the top and back to restore the sign
+        return (int)(event << (64 - KIND_SHIFT) >> (64 - VALUE_BITS));
+    }
+    
+    /**
+     * Gets the second value of an event.
+     * 
+     * @param event the packed event
+     * @return its second value
+     */
+    static int second(long event) {
+        return (int)(event << (64 - VALUE_BITS) >> (64 - VALUE_BITS));
+    }
+}
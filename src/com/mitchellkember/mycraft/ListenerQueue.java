@@ -0,0 +1,174 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ListenerQueue carries GameStateListener events from the simulation thread to
+ * the render thread, which keeps its own copy of the World so that it never
+ * reads the one the simulation is changing. The GameState calls it like any
+ * other listener; each event is packed into a long and put in a ring buffer,
+ * along with the new type of a changed block, or a copy of the blocks of a
+ * changed Chunk. The render thread later applies the events, in order, to its
+ * copy, and passes them on to the real listener about that copy. There is one
+ * writer and one reader, which only share a few volatile counters, and
+ * nothing is allocated per event.
+ * <p>
+ * Every event has to arrive for the copy to stay right, so if the render
+ * thread falls so far behind that the buffer fills up, the simulation thread
+ * waits for it to catch up. Interrupting the simulation thread stops it
+ * waiting and drops the event, which is only meant for shutting down.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see GameController
+ */
+final class ListenerQueue implements GameStateListener {
+    
+    /**
+     * The top bit marks a Chunk event; a block event keeps the new type in the
+     * bits above the packed position.
+     */
+    private static final long CHUNK_EVENT = Long.MIN_VALUE;
+    private static final int TYPE_SHIFT = PackedPosition.BITS;
+    
+    /**
+     * How long the writer sleeps at a time while the buffer is full.
+     */
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    /**
+     * The events, in a ring buffer whose length is a power of two.
+     */
+    private final long[] events;
+    private final int mask;
+    
+    /**
+     * The blocks of changed Chunks, one per Chunk event in the same order, in
+     * another ring buffer whose length is a power of two. Each is laid out
+     * like {@code Chunk.getData} flattened, Z fastest.
+     */
+    private final byte[][] chunkData;
+    private final int chunkMask;
+    
+    /**
+     * The number of events ever written and ever read. Only the writer
+     * changes {@code written} and only the reader changes {@code read}.
+     */
+    private volatile long written, read;
+    
+    /**
+     * The number of Chunk copies ever written and ever read. The writer
+     * publishes its copies through {@code written}, so only {@code chunksRead}
+     * needs to be volatile.
+     */
+    private long chunksWritten;
+    private volatile long chunksRead;
+    
+    /**
+     * Creates a new, empty ListenerQueue. The GameState reports every Chunk
+     * as changed when it is created, usually before anything drains the
+     * queue, so {@code chunkCapacity} should be at least the number of Chunks
+     * in the World.
+     * 
+     * @param capacity the most events which can wait at once, rounded up to a
+     *        power of two
+     * @param chunkCapacity the most Chunk events which can wait at once,
+     *        rounded up to a power of two
+     */
+    ListenerQueue(int capacity, int chunkCapacity) {
+        events = new long[Integer.highestOneBit(Math.max(2, capacity - 1)) << 1];
+        mask = events.length - 1;
+        chunkData = new byte[Integer.highestOneBit(Math.max(2, chunkCapacity - 1)) << 1][Chunk.SIZE * Chunk.SIZE * Chunk.SIZE];
+        chunkMask = chunkData.length - 1;
+    }
+    
+    /**
+     * Waits a little for the reader to make room.
+     * 
+     * @return false if the writer has been interrupted, and should give up
+     */
+    private static boolean waitForReader() {
+        if (Thread.currentThread().isInterrupted()) return false;
+        LockSupport.parkNanos(WAIT_NANOS);
+        return true;
+    }
+    
+    /**
+     * Adds an event, waiting for room if the buffer is full.
+     * 
+     * @param event the packed event
+     * @return false if the writer was interrupted and the event was dropped
+     */
+    private boolean add(long event) {
+        long w = written;
+        while (w - read == events.length) {
+            if (!waitForReader()) return false;
+        }
+        events[(int)w & mask] = event;
+        written = w + 1;
+        return true;
+    }
+    
+    @Override
+    public void gameStateChunkChanged(World world, Chunk chunk) {
+        long c = chunksWritten;
+        while (c - chunksRead == chunkData.length) {
+            if (!waitForReader()) return;
+        }
+        byte[] copy = chunkData[(int)c & chunkMask];
+        byte[][][] data = chunk.getData();
+        for (int x = 0; x < Chunk.SIZE; x++) {
+            for (int y = 0; y < Chunk.SIZE; y++) {
+                System.arraycopy(data[x][y], 0, copy, (x * Chunk.SIZE + y) * Chunk.SIZE, Chunk.SIZE);
+            }
+        }
+        if (add(CHUNK_EVENT | PackedPosition.pack(chunk.chunkX, chunk.chunkY, chunk.chunkZ))) {
+            chunksWritten = c + 1;
+        }
+    }
+    
+    @Override
+    public void gameStateBlockChanged(World world, int x, int y, int z, byte oldType) {
+        add(((long)(world.getBlockType(x, y, z) & 0xFF) << TYPE_SHIFT) | PackedPosition.pack(x, y, z));
+    }
+    
+    /**
+     * Applies every waiting event to {@code copy} and passes it on to
+     * {@code listener}, as an event about {@code copy}. Call this only from
+     * the reader thread.
+     * 
+     * @param copy the reader's copy of the World, which starts out empty
+     * @param listener the listener to receive the events
+     */
+    void drainTo(World copy, GameStateListener listener) {
+        long r = read, w = written;
+        for (; r < w; r++) {
+            long event = events[(int)r & mask];
+            int x = PackedPosition.unpackX(event), y = PackedPosition.unpackY(event), z = PackedPosition.unpackZ(event);
+            if ((event & CHUNK_EVENT) != 0) {
+                Chunk chunk = copy.loadChunk(x, y, z);
+                long c = chunksRead;
+                byte[] blocks = chunkData[(int)c & chunkMask];
+                int i = 0;
+                for (int bx = 0; bx < Chunk.SIZE; bx++) {
+                    for (int by = 0; by < Chunk.SIZE; by++) {
+                        for (int bz = 0; bz < Chunk.SIZE; bz++) {
+                            chunk.setBlockType(bx, by, bz, blocks[i++]);
+                        }
+                    }
+                }
+                chunksRead = c + 1;
+                listener.gameStateChunkChanged(copy, chunk);
+            } else {
+                byte oldType = copy.getBlockType(x, y, z);
+                copy.setBlockType(x, y, z, (byte)(event >>> TYPE_SHIFT));
+                listener.gameStateBlockChanged(copy, x, y, z, oldType);
+            }
+            // Make room as soon as possible in case the writer is waiting
+            read = r + 1;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Arrays;
+
+/**
+ * LongIntMap maps long keys to int values without boxing either of them. It is
+ * an open-addressing table with linear probing, which removes entries by
+ * shifting later entries back instead of leaving markers behind, so it stays
+ * fast however many times entries come and go.
+ * <p>
+ * {@code Long.MIN_VALUE} cannot be used as a key, since it marks empty slots.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ */
+final class LongIntMap {
+    
+    /**
+     * Marks an empty slot.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    /**
+     * The keys and values. The length is always a power of two.
+     */
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    
+    /**
+     * The number of entries.
+     */
+    private int size;
+    
+    /**
+     * Returned by {@code get} and {@code remove} when there is no entry.
+     */
+    private final int missing;
+    
+    /**
+     * Creates a new, empty LongIntMap.
+     * 
+     * @param missing the value to return for keys which are not in the map
+     */
+    LongIntMap(int missing) {
+        this.missing = missing;
+        keys = new long[16];
+        values = new int[16];
+        mask = 15;
+        Arrays.fill(keys, EMPTY);
+    }
+    
+    /**
+     * Gets the number of entries.
+     * 
+     * @return the number of entries
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Calculates the first slot to probe for a key.
+     * 
+     * @param key the key
+     * @return the slot
+     */
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h >>> 32) & mask;
+    }
+    
+    /**
+     * Gets the value for a key.
+     * 
+     * @param key the key
+     * @return its value, or the missing value if it is not in the map
+     */
+    int get(long key) {
+        for (int s = slot(key); ; s = (s + 1) & mask) {
+            long k = keys[s];
+            if (k == key) return values[s];
+            if (k == EMPTY) return missing;
+        }
+    }
+    
+    /**
+     * Sets the value for a key.
+     * 
+     * @param key the key
+     * @param value its new value
+     * @return its old value, or the missing value if it was not in the map
+     */
+    int put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) grow();
+        for (int s = slot(key); ; s = (s + 1) & mask) {
+            long k = keys[s];
+            if (k == key) {
+                int old = values[s];
+                values[s] = value;
+                return old;
+            }
+            if (k == EMPTY) {
+                keys[s] = key;
+                values[s] = value;
+                size++;
+                return missing;
+            }
+        }
+    }
+    
+    /**
+     * Removes a key.
+     * 
+     * @param key the key
+     * @return its value, or the missing value if it was not in the map
+     */
+    int remove(long key) {
+        int s = slot(key);
+        while (true) {
+            long k = keys[s];
+            if (k == EMPTY) return missing;
+            if (k == key) break;
+            s = (s + 1) & mask;
+        }
+        int old = values[s];
+        size--;
+        
+        // Shift back any later entry which would no longer be found past the gap
+        int gap = s;
+        for (s = (s + 1) & mask; keys[s] != EMPTY; s = (s + 1) & mask) {
+            int home = slot(keys[s]);
+            if (((s - home) & mask) >= ((s - gap) & mask)) {
+                keys[gap] = keys[s];
+                values[gap] = values[s];
+                gap = s;
+            }
+        }
+        keys[gap] = EMPTY;
+        return old;
+    }
+    
+    /**
+     * Removes every entry.
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+    
+    /**
+     * Doubles the length of the table.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int s = slot(oldKeys[i]);
+            while (keys[s] != EMPTY) s = (s + 1) & mask;
+            keys[s] = oldKeys[i];
+            values[s] = oldValues[i];
+        }
+    }
+}
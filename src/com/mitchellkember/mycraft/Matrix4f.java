@@ -0,0 +1,161 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Matrix4f is a 4x4 matrix of floats, stored in column-major order as OpenGL
+ * expects, so that it can be handed to OpenGL as it is. Like Vector's
+ * destination methods, every operation writes into an existing Matrix4f, so
+ * building matrices every frame creates no garbage.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see Camera
+ */
+final class Matrix4f {
+    
+    /**
+     * The elements, in column-major order: the element in row {@code r} and
+     * column {@code c} is {@code m[c*4 + r]}.
+     */
+    final float[] m = new float[16];
+    
+    /**
+     * Creates a new identity Matrix4f.
+     */
+    Matrix4f() {
+        setIdentity();
+    }
+    
+    /**
+     * Sets this Matrix4f to the identity matrix.
+     * 
+     * @return this Matrix4f
+     */
+    Matrix4f setIdentity() {
+        for (int i = 0; i < 16; i++) {
+            m[i] = (i % 5 == 0) ? 1 : 0;
+        }
+        return this;
+    }
+    
+    /**
+     * Sets this Matrix4f to a viewing transformation, exactly as
+     * {@code gluLookAt} would multiply onto the matrix stack.
+     * 
+     * @param eyeX the X-coordinate of the eye
+     * @param eyeY the Y-coordinate of the eye
+     * @param eyeZ the Z-coordinate of the eye
+     * @param centerX the X-coordinate of the point looked at
+     * @param centerY the Y-coordinate of the point looked at
+     * @param centerZ the Z-coordinate of the point looked at
+     * @param upX the X component of the up direction
+     * @param upY the Y component of the up direction
+     * @param upZ the Z component of the up direction
+     * @return this Matrix4f
+     */
+    Matrix4f setLookAt(float eyeX, float eyeY, float eyeZ,
+            float centerX, float centerY, float centerZ,
+            float upX, float upY, float upZ) {
+        // Forward
+        float fx = centerX - eyeX, fy = centerY - eyeY, fz = centerZ - eyeZ;
+        float length = (float)Math.sqrt(fx*fx + fy*fy + fz*fz);
+        if (length != 0) {
+            fx /= length;
+            fy /= length;
+            fz /= length;
+        }
+        
+        // Side = forward x up
+        float sx = fy*upZ - fz*upY, sy = fz*upX - fx*upZ, sz = fx*upY - fy*upX;
+        length = (float)Math.sqrt(sx*sx + sy*sy + sz*sz);
+        if (length != 0) {
+            sx /= length;
+            sy /= length;
+            sz /= length;
+        }
+        
+        // Up = side x forward
+        float ux = sy*fz - sz*fy, uy = sz*fx - sx*fz, uz = sx*fy - sy*fx;
+        
+        m[0] = sx;  m[4] = sy;  m[8] = sz;   m[12] = -(sx*eyeX + sy*eyeY + sz*eyeZ);
+        m[1] = ux;  m[5] = uy;  m[9] = uz;   m[13] = -(ux*eyeX + uy*eyeY + uz*eyeZ);
+        m[2] = -fx; m[6] = -fy; m[10] = -fz; m[14] = fx*eyeX + fy*eyeY + fz*eyeZ;
+        m[3] = 0;   m[7] = 0;   m[11] = 0;   m[15] = 1;
+        return this;
+    }
+    
+    /**
+     * Sets this Matrix4f to a perspective projection, exactly as
+     * {@code gluPerspective} would multiply onto the matrix stack.
+     * 
+     * @param fovy the vertical field of view in degrees
+     * @param aspect the width of the view divided by its height
+     * @param zNear the distance to the near clipping plane
+     * @param zFar the distance to the far clipping plane
+     * @return this Matrix4f
+     */
+    Matrix4f setPerspective(float fovy, float aspect, float zNear, float zFar) {
+        float f = (float)(1 / Math.tan(Math.toRadians(fovy) / 2));
+        float depth = zNear - zFar;
+        
+        m[0] = f / aspect; m[4] = 0; m[8] = 0;                       m[12] = 0;
+        m[1] = 0;          m[5] = f; m[9] = 0;                       m[13] = 0;
+        m[2] = 0;          m[6] = 0; m[10] = (zFar + zNear) / depth; m[14] = 2 * zFar * zNear / depth;
+        m[3] = 0;          m[7] = 0; m[11] = -1;                     m[15] = 0;
+        return this;
+    }
+    
+    /**
+     * Multiplies {@code a} by {@code b} into {@code dest}, which may be either
+     * of them. Transforming by the result is the same as transforming by
+     * {@code b} and then by {@code a}.
+     * 
+     * @param a the left-hand matrix
+     * @param b the right-hand matrix
+     * @param dest the Matrix4f to receive the product
+     * @return {@code dest}
+     */
+    static Matrix4f mul(Matrix4f a, Matrix4f b, Matrix4f dest) {
+        float[] x = a.m, y = b.m;
+        float m00 = x[0]*y[0]  + x[4]*y[1]  + x[8]*y[2]   + x[12]*y[3];
+        float m10 = x[1]*y[0]  + x[5]*y[1]  + x[9]*y[2]   + x[13]*y[3];
+        float m20 = x[2]*y[0]  + x[6]*y[1]  + x[10]*y[2]  + x[14]*y[3];
+        float m30 = x[3]*y[0]  + x[7]*y[1]  + x[11]*y[2]  + x[15]*y[3];
+        float m01 = x[0]*y[4]  + x[4]*y[5]  + x[8]*y[6]   + x[12]*y[7];
+        float m11 = x[1]*y[4]  + x[5]*y[5]  + x[9]*y[6]   + x[13]*y[7];
+        float m21 = x[2]*y[4]  + x[6]*y[5]  + x[10]*y[6]  + x[14]*y[7];
+        float m31 = x[3]*y[4]  + x[7]*y[5]  + x[11]*y[6]  + x[15]*y[7];
+        float m02 = x[0]*y[8]  + x[4]*y[9]  + x[8]*y[10]  + x[12]*y[11];
+        float m12 = x[1]*y[8]  + x[5]*y[9]  + x[9]*y[10]  + x[13]*y[11];
+        float m22 = x[2]*y[8]  + x[6]*y[9]  + x[10]*y[10] + x[14]*y[11];
+        float m32 = x[3]*y[8]  + x[7]*y[9]  + x[11]*y[10] + x[15]*y[11];
+        float m03 = x[0]*y[12] + x[4]*y[13] + x[8]*y[14]  + x[12]*y[15];
+        float m13 = x[1]*y[12] + x[5]*y[13] + x[9]*y[14]  + x[13]*y[15];
+        float m23 = x[2]*y[12] + x[6]*y[13] + x[10]*y[14] + x[14]*y[15];
+        float m33 = x[3]*y[12] + x[7]*y[13] + x[11]*y[14] + x[15]*y[15];
+        
+        float[] d = dest.m;
+        d[0] = m00;  d[1] = m10;  d[2] = m20;  d[3] = m30;
+        d[4] = m01;  d[5] = m11;  d[6] = m21;  d[7] = m31;
+        d[8] = m02;  d[9] = m12;  d[10] = m22; d[11] = m32;
+        d[12] = m03; d[13] = m13; d[14] = m23; d[15] = m33;
+        return dest;
+    }
+    
+    /**
+     * Copies this Matrix4f into {@code buffer} in column-major order, leaving
+     * the buffer ready to be read by OpenGL.
+     * 
+     * @param buffer the buffer, with room for 16 floats
+     * @return {@code buffer}
+     */
+    FloatBuffer store(FloatBuffer buffer) {
+        buffer.clear();
+        buffer.put(m);
+        buffer.flip();
+        return buffer;
+    }
+}
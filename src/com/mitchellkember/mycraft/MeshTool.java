@@ -0,0 +1,397 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.lwjgl.BufferUtils;
+
+/**
+ * MeshTool is a command line tool which meshes a world without opening a
+ * window, for measuring the output and speed of the meshers. It reports the
+ * vertices, quads, bytes and milliseconds of every Chunk, and can export the
+ * meshes as a Wavefront OBJ file or as a binary dump for regression comparison.
+ * Running it once with {@code -mesher scalar} and once with {@code -mesher binary}
+ * and the same {@code -repeat} compares the speed of the two meshers.
+ * <p>
+ * Usage: {@code MeshTool [options]}
+ * <ul>
+ * <li>{@code -load FILE} mesh a world saved with {@code World.save}</li>
+ * <li>{@code -seed N} mesh a hilly world generated from seed N</li>
+ * <li>{@code -flat} mesh the flat world the game starts with (the default)</li>
+ * <li>{@code -repeat N} mesh everything N times and report the fastest time</li>
+ * <li>{@code -mesher NAME} mesh with ChunkMesher ({@code scalar}, the default),
+ *     BinaryMesher ({@code binary}), or BinaryMesher with greedy merging
+ *     ({@code greedy})</li>
+ * <li>{@code -verify} check that every Chunk's quads cover exactly the same
+ *     faces as ChunkMesher's</li>
+ * <li>{@code -obj FILE} write the meshes to a Wavefront OBJ file</li>
+ * <li>{@code -dump FILE} write the meshes to a binary file</li>
+ * <li>{@code -quiet} only print the totals</li>
+ * </ul>
+ * The binary dump is, for each Chunk in coordinate order: its chunk X, Y and Z,
+ * the number of opaque ints followed by those ints, and then the number of
+ * translucent ints followed by those ints, all as big-endian ints.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see ChunkMesher
+ * @see BinaryMesher
+ */
+final class MeshTool {
+    
+    /**
+     * The meshers to choose from.
+     */
+    private enum Mesher { SCALAR, BINARY, GREEDY }
+    
+    /**
+     * The mesh of one Chunk, kept so that it can be exported after timing.
+     */
+    private static final class Result {
+        final Chunk chunk;
+        final int[] opaque;
+        final int[] translucent;
+        final long nanos;
+        
+        Result(Chunk chunk, int[] opaque, int[] translucent, long nanos) {
+            this.chunk = chunk;
+            this.opaque = opaque;
+            this.translucent = translucent;
+            this.nanos = nanos;
+        }
+    }
+    
+    /**
+     * Orders Chunks by their coordinates, so that output is deterministic.
+     */
+    private static final Comparator<Chunk> coordinateOrder = new Comparator<Chunk>() {
+        @Override
+        public int compare(Chunk a, Chunk b) {
+            if (a.chunkX != b.chunkX) return (a.chunkX < b.chunkX) ? -1 : 1;
+            if (a.chunkY != b.chunkY) return (a.chunkY < b.chunkY) ? -1 : 1;
+            if (a.chunkZ != b.chunkZ) return (a.chunkZ < b.chunkZ) ? -1 : 1;
+            return 0;
+        }
+    };
+    
+    /**
+     * Not instantiable.
+     */
+    private MeshTool() {}
+    
+    /**
+     * The main method.
+     * 
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        String loadFile = null, objFile = null, dumpFile = null;
+        long seed = 0;
+        boolean hills = false, quiet = false, verify = false;
+        int repeat = 1;
+        Mesher mesher = Mesher.SCALAR;
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-load")) loadFile = args[++i];
+                else if (args[i].equals("-seed")) { seed = Long.parseLong(args[++i]); hills = true; }
+                else if (args[i].equals("-flat")) hills = false;
+                else if (args[i].equals("-repeat")) repeat = Math.max(1, Integer.parseInt(args[++i]));
+                else if (args[i].equals("-mesher")) mesher = Mesher.valueOf(args[++i].toUpperCase());
+                else if (args[i].equals("-verify")) verify = true;
+                else if (args[i].equals("-obj")) objFile = args[++i];
+                else if (args[i].equals("-dump")) dumpFile = args[++i];
+                else if (args[i].equals("-quiet")) quiet = true;
+                else throw new IllegalArgumentException(args[i]);
+            }
+        } catch (RuntimeException re) {
+            System.err.println("Usage: MeshTool [-load FILE | -seed N | -flat] [-repeat N] [-mesher scalar|binary|greedy] [-verify] [-obj FILE] [-dump FILE] [-quiet]");
+            System.exit(2);
+        }
+        
+        try {
+            World world = new World();
+            if (loadFile != null) {
+                InputStream in = new BufferedInputStream(new FileInputStream(loadFile));
+                try {
+                    world.load(in);
+                } finally {
+                    in.close();
+                }
+            } else if (hills) {
+                world.generateHills(seed);
+            } else {
+                world.generateFlat();
+            }
+            
+            List<Result> results = meshWorld(world, mesher, repeat);
+            printStatistics(results, quiet);
+            if (verify && !verify(world, results)) System.exit(1);
+            if (objFile != null) exportObj(results, objFile);
+            if (dumpFile != null) exportDump(results, dumpFile);
+        } catch (IOException ioe) {
+            System.err.println(ioe);
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Meshes every Chunk in {@code world} {@code repeat} times, keeping the
+     * fastest time for each. Each round meshes the whole World, rather than
+     * meshing one Chunk {@code repeat} times before moving on to the next, so
+     * that the first Chunks are not timed while the JIT compiler is still
+     * warming up the mesher.
+     * 
+     * @param world the World to mesh
+     * @param mesher the mesher to use
+     * @param repeat how many times to mesh each Chunk
+     * @return the meshes, in coordinate order
+     */
+    private static List<Result> meshWorld(World world, Mesher mesher, int repeat) {
+        List<Chunk> chunks = new ArrayList<Chunk>(world.getChunks());
+        Collections.sort(chunks, coordinateOrder);
+        
+        IntBuffer opaque = BufferUtils.createIntBuffer(ChunkMesher.MAX_QUADS * ChunkMesher.QUAD_SIZE);
+        IntBuffer translucent = BufferUtils.createIntBuffer(ChunkMesher.MAX_QUADS * ChunkMesher.QUAD_SIZE);
+        long[] best = new long[chunks.size()];
+        Arrays.fill(best, Long.MAX_VALUE);
+        List<Result> results = new ArrayList<Result>(chunks.size());
+        for (int r = 0; r < repeat; r++) {
+            for (int c = 0; c < chunks.size(); c++) {
+                Chunk chunk = chunks.get(c);
+                opaque.clear();
+                translucent.clear();
+                long start = System.nanoTime();
+                switch (mesher) {
+                    case SCALAR:
+                        ChunkMesher.mesh(world, chunk, opaque, translucent, null);
+                        break;
+                    case BINARY:
+                        BinaryMesher.mesh(world, chunk, opaque, translucent, null, false);
+                        break;
+                    case GREEDY:
+                        BinaryMesher.mesh(world, chunk, opaque, translucent, null, true);
+                        break;
+                }
+                best[c] = Math.min(best[c], System.nanoTime() - start);
+                
+                // Every round gives the same meshes, so keep the last
+                if (r == repeat - 1) {
+                    opaque.flip();
+                    translucent.flip();
+                    int[] opaqueInts = new int[opaque.limit()];
+                    int[] translucentInts = new int[translucent.limit()];
+                    opaque.get(opaqueInts);
+                    translucent.get(translucentInts);
+                    results.add(new Result(chunk, opaqueInts, translucentInts, best[c]));
+                }
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Checks the meshes against ChunkMesher's by breaking every quad into the
+     * block faces it covers, and prints the Chunks which differ.
+     * 
+     * @param world the World the meshes were made from
+     * @param results the meshes
+     * @return true if every mesh covers the same faces
+     */
+    private static boolean verify(World world, List<Result> results) {
+        List<Result> expected = meshWorld(world, Mesher.SCALAR, 1);
+        int failures = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Result actual = results.get(i);
+            Result reference = expected.get(i);
+            if (!Arrays.equals(faceKeys(actual.opaque), faceKeys(reference.opaque))
+                    || !Arrays.equals(faceKeys(actual.translucent), faceKeys(reference.translucent))) {
+                System.out.println("Mismatch in chunk (" + actual.chunk.chunkX + ", "
+                        + actual.chunk.chunkY + ", " + actual.chunk.chunkZ + ")");
+                failures++;
+            }
+        }
+        System.out.println((failures == 0) ? "Verified against the scalar mesher"
+                : failures + " chunks differ from the scalar mesher");
+        return failures == 0;
+    }
+    
+    /**
+     * Breaks quads into the block faces they cover. Each face is packed into a
+     * long as the face's ordinal and the block's coordinates, 16 bits each.
+     * 
+     * @param data the quads, in interleaved XYZST format
+     * @return the faces, sorted
+     */
+    private static long[] faceKeys(int[] data) {
+        List<Long> keys = new ArrayList<Long>();
+        for (int q = 0; q < data.length; q += ChunkMesher.QUAD_SIZE) {
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+            for (int v = 0; v < 4; v++) {
+                int i = q + v * ChunkMesher.VERTEX_SIZE;
+                // Back to GameState coordinates
+                int x = data[i], y = data[i+1], z = -data[i+2];
+                minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+                minZ = Math.min(minZ, z); maxZ = Math.max(maxZ, z);
+            }
+            
+            // The winding gives the direction the quad faces. Inverting the z
+            // axis mirrors the quad, so in GameState coordinates the cross
+            // product of two edges points inwards.
+            int ax = data[q+5] - data[q], ay = data[q+6] - data[q+1], az = data[q+2] - data[q+7];
+            int bx = data[q+10] - data[q+5], by = data[q+11] - data[q+6], bz = data[q+7] - data[q+12];
+            int nx = -Integer.signum(ay*bz - az*by);
+            int ny = -Integer.signum(az*bx - ax*bz);
+            int nz = -Integer.signum(ax*by - ay*bx);
+            
+            Face face = null;
+            for (Face f : Face.VALUES) {
+                if (f.dx == nx && f.dy == ny && f.dz == nz) face = f;
+            }
+            if (face == null) throw new IllegalStateException("Degenerate quad");
+            
+            // The block is on the inside of the quad, below the plane for positive Faces
+            if (face.dx != 0) maxX = minX + 1;
+            if (face.dy != 0) maxY = minY + 1;
+            if (face.dz != 0) maxZ = minZ + 1;
+            if (face.dx > 0) { minX--; maxX--; }
+            if (face.dy > 0) { minY--; maxY--; }
+            if (face.dz > 0) { minZ--; maxZ--; }
+            for (int x = minX; x < maxX; x++) {
+                for (int y = minY; y < maxY; y++) {
+                    for (int z = minZ; z < maxZ; z++) {
+                        keys.add(((long)face.ordinal() << 48) | ((long)(x & 0xFFFF) << 32)
+                                | ((long)(y & 0xFFFF) << 16) | (long)(z & 0xFFFF));
+                    }
+                }
+            }
+        }
+        
+        long[] sorted = new long[keys.size()];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = keys.get(i);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+    
+    /**
+     * Prints the vertices, quads, bytes and milliseconds of each Chunk, followed
+     * by the totals.
+     * 
+     * @param results the meshes
+     * @param quiet true to only print the totals
+     */
+    private static void printStatistics(List<Result> results, boolean quiet) {
+        long vertices = 0, quads = 0, bytes = 0, nanos = 0;
+        if (!quiet) System.out.println("chunk            vertices    quads     bytes       ms");
+        for (Result result : results) {
+            int ints = result.opaque.length + result.translucent.length;
+            int v = ints / ChunkMesher.VERTEX_SIZE;
+            if (!quiet) {
+                System.out.printf("(%3d,%3d,%3d)  %10d %8d %9d %8.3f%n",
+                        result.chunk.chunkX, result.chunk.chunkY, result.chunk.chunkZ,
+                        v, v / 4, ints * 4, result.nanos / 1e6);
+            }
+            vertices += v;
+            quads += v / 4;
+            bytes += ints * 4;
+            nanos += result.nanos;
+        }
+        System.out.printf("%d chunks: %d vertices, %d quads, %d bytes, %.3f ms (%.3f ms per chunk)%n",
+                results.size(), vertices, quads, bytes, nanos / 1e6,
+                results.isEmpty() ? 0 : nanos / 1e6 / results.size());
+    }
+    
+    /**
+     * Writes the meshes to a Wavefront OBJ file, one object per Chunk. The
+     * translucent quads are written after the opaque ones in each object.
+     * 
+     * @param results the meshes
+     * @param fileName the file to write
+     * @throws IOException if the file could not be written
+     */
+    private static void exportObj(List<Result> results, String fileName) throws IOException {
+        PrintWriter out = new PrintWriter(new BufferedOutputStream(new FileOutputStream(fileName)));
+        try {
+            out.println("# Mycraft mesh export");
+            
+            int vertexCount = 0;
+            for (Result result : results) {
+                out.println("o chunk_" + result.chunk.chunkX + "_" + result.chunk.chunkY + "_" + result.chunk.chunkZ);
+                vertexCount = writeObjQuads(out, result.opaque, vertexCount);
+                vertexCount = writeObjQuads(out, result.translucent, vertexCount);
+            }
+        } finally {
+            out.close();
+        }
+        if (out.checkError()) throw new IOException("Could not write " + fileName);
+    }
+    
+    /**
+     * Writes quads in interleaved XYZST format as OBJ vertices, texture
+     * coordinates and faces. Each vertex gets its own texture coordinate, so the
+     * two share indices.
+     * 
+     * @param out where to write
+     * @param data the quads
+     * @param vertexCount the number of vertices already written
+     * @return the new number of vertices written
+     */
+    private static int writeObjQuads(PrintWriter out, int[] data, int vertexCount) {
+        for (int i = 0; i < data.length; i += ChunkMesher.VERTEX_SIZE) {
+            out.println("v " + data[i] + " " + data[i+1] + " " + data[i+2]);
+            out.println("vt " + data[i+3] + " " + data[i+4]);
+        }
+        for (int i = 0; i < data.length; i += ChunkMesher.QUAD_SIZE) {
+            out.print("f");
+            for (int v = 0; v < 4; v++) {
+                // OBJ indices start at 1
+                ++vertexCount;
+                out.print(" " + vertexCount + "/" + vertexCount);
+            }
+            out.println();
+        }
+        return vertexCount;
+    }
+    
+    /**
+     * Writes the meshes to a binary file in the format described above.
+     * 
+     * @param results the meshes
+     * @param fileName the file to write
+     * @throws IOException if the file could not be written
+     */
+    private static void exportDump(List<Result> results, String fileName) throws IOException {
+        OutputStream stream = new BufferedOutputStream(new FileOutputStream(fileName));
+        try {
+            DataOutputStream out = new DataOutputStream(stream);
+            for (Result result : results) {
+                out.writeInt(result.chunk.chunkX);
+                out.writeInt(result.chunk.chunkY);
+                out.writeInt(result.chunk.chunkZ);
+                out.writeInt(result.opaque.length);
+                for (int i : result.opaque) out.writeInt(i);
+                out.writeInt(result.translucent.length);
+                for (int i : result.translucent) out.writeInt(i);
+            }
+            out.flush();
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -6,7 +6,6 @@ import java.io.IOException;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.lwjgl.LWJGLException;
 
 /**
  * Mycraft is an open source java game that uses the LightWeight Java
@@ -35,28 +34,67 @@ final class Mycraft {
         }
     }
     
+    /**
+     * The default number of GameState updates per second.
+     */
+    private static final int DEFAULT_TICK_RATE = 60;
+    
+    /**
+     * The default limit on frames rendered per second.
+     */
+    private static final int DEFAULT_FRAME_RATE_LIMIT = 60;
+    
     /**
      * The main method.
+     * <p>
+     * Usage: {@code Mycraft [-tickrate N] [-fps N] [-taskbudget MS]}, where
+     * {@code -tickrate} sets how many times per second the world is updated
+     * and {@code -fps} limits how many frames are rendered per second (0 for
+     * no limit). The two are independent, so rendering faster does not speed
+     * up the game. {@code -taskbudget} sets how many milliseconds of each
+     * frame may be spent meshing Chunks (see FrameScheduler).
+     * <p>
+     * {@code Mycraft -server [-tickrate N] [-ticks N] [-entities N] [-unthrottled]}
+     * runs the world without a window instead (see HeadlessServer), for
+     * {@code -ticks} ticks or until it is killed, with {@code -entities}
+     * entities falling through it, and as fast as possible rather than at
+     * the tick rate if {@code -unthrottled} is given.
      * 
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        GameController controller = null;
-        
-        // Try creating the GameController
-        // Any LWJGLExceptions that occur during the initialization of LWJGL
-        // (Display, Keyboard, Mouse) will propagate up here and be caught.
+        int tickRate = DEFAULT_TICK_RATE;
+        int frameRateLimit = DEFAULT_FRAME_RATE_LIMIT;
+        float taskBudget = FrameScheduler.DEFAULT_BUDGET;
+        boolean server = false, unthrottled = false;
+        long ticks = 0;
+        int entities = 0;
         try {
-            System.out.println("Mycraft is starting up.");
-            controller = new GameController();
-            controller.run(); // begin the main loop
-        } catch (LWJGLException lwjgle) {
-            LOGGER.log(Level.SEVERE, lwjgle.toString(), lwjgle);
-        } finally {
-            if (controller != null) {
-                // Clean up
-                controller.destroy();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-tickrate")) tickRate = Integer.parseInt(args[++i]);
+                else if (args[i].equals("-fps")) frameRateLimit = Integer.parseInt(args[++i]);
+                else if (args[i].equals("-taskbudget")) taskBudget = Float.parseFloat(args[++i]);
+                else if (args[i].equals("-server")) server = true;
+                else if (args[i].equals("-ticks")) ticks = Long.parseLong(args[++i]);
+                else if (args[i].equals("-entities")) entities = Integer.parseInt(args[++i]);
+                else if (args[i].equals("-unthrottled")) unthrottled = true;
+                else throw new IllegalArgumentException(args[i]);
             }
+            if (tickRate <= 0 || frameRateLimit < 0 || !(taskBudget >= 0) || ticks < 0 || entities < 0) throw new IllegalArgumentException();
+            if (!server && (ticks != 0 || entities != 0 || unthrottled)) throw new IllegalArgumentException();
+        } catch (RuntimeException re) {
+            System.err.println("Usage: Mycraft [-tickrate N] [-fps N] [-taskbudget MS]");
+            System.err.println("       Mycraft -server [-tickrate N] [-ticks N] [-entities N] [-unthrottled]");
+            System.exit(2);
+        }
+        
+        if (server) {
+            HeadlessServer headless = new HeadlessServer(tickRate);
+            headless.spawnEntities(entities);
+            headless.run(ticks, !unthrottled);
+            return;
         }
+        // Only the windowed game loads LWJGL
+        GameController.launch(tickRate, frameRateLimit, taskBudget);
     }
 }
@@ -0,0 +1,210 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * NeighbourUpdates tells blocks that a block next to them has changed, so that
+ * they can react (a block with nothing under it might fall, for example).
+ * Reactions often change more blocks, which notify their own neighbours, and
+ * so on; calling the neighbours back directly could recurse deep enough to
+ * overflow the stack, and would notify the same block many times over.
+ * <p>
+ * Instead, notifications go into a first-in, first-out queue of packed
+ * positions, which is worked through iteratively, so a chain reaction spreads
+ * out breadth first from where it started. A position which is already
+ * waiting in the queue is not added again, so a burst of changes around one
+ * block only notifies it once. At most {@code budget} positions are notified
+ * per tick, and whatever is left stays queued for the next tick, so that a
+ * runaway reaction slows the world down gradually instead of freezing it.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see BlockBehavior
+ */
+final class NeighbourUpdates {
+    
+    /**
+     * Receives the notifications.
+     */
+    interface Handler {
+        
+        /**
+         * Tells a block that one of its neighbours has changed.
+         * 
+         * @param x the block's X-coordinate
+         * @param y the block's Y-coordinate
+         * @param z the block's Z-coordinate
+         */
+        void neighbourChanged(int x, int y, int z);
+    }
+    
+    /**
+     * The default number of notifications per tick.
+     */
+    static final int DEFAULT_BUDGET = 8192;
+    
+    /**
+     * The queued positions, as a ring buffer whose length is a power of two.
+     */
+    private long[] queue = new long[64];
+    private int head, count;
+    
+    /**
+     * The positions which are in the queue.
+     */
+    private final LongIntMap queued = new LongIntMap(0);
+    
+    /**
+     * The most notifications per tick.
+     */
+    private int budget;
+    
+    /**
+     * Statistics about the last call to {@code process}: how many positions
+     * were notified, how many notifications were dropped because the position
+     * was already queued (since the call before), and the longest the queue got.
+     */
+    private int lastProcessed, lastCoalesced, lastPeakDepth;
+    
+    /**
+     * The number of notifications dropped since the last call to {@code process}.
+     */
+    private int coalesced;
+    
+    /**
+     * Creates a new, empty NeighbourUpdates.
+     * 
+     * @param budget the most notifications per tick
+     */
+    NeighbourUpdates(int budget) {
+        setBudget(budget);
+    }
+    
+    /**
+     * Sets the most notifications per tick.
+     * 
+     * @param budget the budget, at least 1
+     */
+    void setBudget(int budget) {
+        this.budget = Math.max(1, budget);
+    }
+    
+    /**
+     * Gets the number of positions waiting to be notified.
+     * 
+     * @return the depth of the queue
+     */
+    int getDepth() {
+        return count;
+    }
+    
+    /**
+     * Gets the number of positions notified during the last call to {@code process}.
+     * 
+     * @return the number of positions
+     */
+    int getLastProcessed() {
+        return lastProcessed;
+    }
+    
+    /**
+     * Gets the number of notifications dropped because their position was
+     * already queued, between the call to {@code process} before last and the
+     * end of the last one.
+     * 
+     * @return the number of notifications
+     */
+    int getLastCoalesced() {
+        return lastCoalesced;
+    }
+    
+    /**
+     * Gets the greatest depth of the queue during the last call to {@code process}.
+     * 
+     * @return the depth
+     */
+    int getLastPeakDepth() {
+        return lastPeakDepth;
+    }
+    
+    /**
+     * Queues a notification for each of the six neighbours of a block.
+     * 
+     * @param x the changed block's X-coordinate
+     * @param y the changed block's Y-coordinate
+     * @param z the changed block's Z-coordinate
+     */
+    void notifyNeighbours(int x, int y, int z) {
+        for (Face face : Face.VALUES) {
+            add(PackedPosition.pack(x + face.dx, y + face.dy, z + face.dz));
+        }
+    }
+    
+    /**
+     * Queues a notification for a single block.
+     * 
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     */
+    void notifyBlock(int x, int y, int z) {
+        add(PackedPosition.pack(x, y, z));
+    }
+    
+    /**
+     * Adds a position to the back of the queue, unless it is already queued.
+     * 
+     * @param position the packed position
+     */
+    private void add(long position) {
+        if (queued.put(position, 1) != 0) {
+            coalesced++;
+            return;
+        }
+        if (count == queue.length) {
+            // Unroll the ring into a longer array
+            long[] longer = new long[queue.length * 2];
+            int first = Math.min(count, queue.length - head);
+            System.arraycopy(queue, head, longer, 0, first);
+            System.arraycopy(queue, 0, longer, first, count - first);
+            queue = longer;
+            head = 0;
+        }
+        queue[(head + count) & (queue.length - 1)] = position;
+        count++;
+    }
+    
+    /**
+     * Notifies queued positions in the order they were queued, including any
+     * queued by the handler meanwhile, until the queue is empty or the budget
+     * is used up.
+     * 
+     * @param handler receives the notifications
+     */
+    void process(Handler handler) {
+        int processed = 0, peak = count;
+        while (count > 0 && processed < budget) {
+            long position = queue[head];
+            head = (head + 1) & (queue.length - 1);
+            count--;
+            // Take it out first, so that the handler can queue it again
+            queued.remove(position);
+            handler.neighbourChanged(PackedPosition.unpackX(position),
+                    PackedPosition.unpackY(position), PackedPosition.unpackZ(position));
+            processed++;
+            peak = Math.max(peak, count);
+        }
+        lastProcessed = processed;
+        lastPeakDepth = peak;
+        lastCoalesced = coalesced;
+        coalesced = 0;
+    }
+    
+    /**
+     * Removes every queued notification.
+     */
+    void clear() {
+        head = count = 0;
+        queued.clear();
+    }
+}
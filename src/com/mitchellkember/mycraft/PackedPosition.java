@@ -0,0 +1,73 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * PackedPosition packs block coordinates into a single long, 18 bits per axis,
+ * so that queues and tables of positions can be kept in primitive arrays. Any
+ * coordinate from -131072 to 131071 survives packing and unpacking.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ */
+final class PackedPosition {
+    
+    /**
+     * The number of bits per coordinate.
+     */
+    static final int COORD_BITS = 18;
+    
+    /**
+     * The number of bits used by a packed position.
+     */
+    static final int BITS = 3 * COORD_BITS;
+    
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+    
+    /**
+     * Not instantiable.
+     */
+    private PackedPosition() {}
+    
+    /**
+     * Packs block coordinates into a position.
+     * 
+     * @param x the X-coordinate
+     * @param y the Y-coordinate
+     * @param z the Z-coordinate
+     * @return the packed position
+     */
+    static long pack(int x, int y, int z) {
+        return ((x & COORD_MASK) << (2 * COORD_BITS)) | ((y & COORD_MASK) << COORD_BITS) | (z & COORD_MASK);
+    }
+    
+    /**
+     * Unpacks the X-coordinate of a position.
+     * 
+     * @param position the packed position
+     * @return the X-coordinate
+     */
+    static int unpackX(long position) {
+        return (int)(position << (64 - 3 * COORD_BITS) >> (64 - COORD_BITS));
+    }
+    
+    /**
+     * Unpacks the Y-coordinate of a position.
+     * 
+     * @param position the packed position
+     * @return the Y-coordinate
+     */
+    static int unpackY(long position) {
+        return (int)(position << (64 - 2 * COORD_BITS) >> (64 - COORD_BITS));
+    }
+    
+    /**
+     * Unpacks the Z-coordinate of a position.
+     * 
+     * @param position the packed position
+     * @return the Z-coordinate
+     */
+    static int unpackZ(long position) {
+        return (int)(position << (64 - COORD_BITS) >> (64 - COORD_BITS));
+    }
+}
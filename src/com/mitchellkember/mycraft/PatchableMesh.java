@@ -0,0 +1,269 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import org.lwjgl.BufferUtils;
+
+/**
+ * PatchableMesh holds the opaque quads of one Chunk in a way that lets a single
+ * block edit be spliced into the mesh in place, instead of remeshing the whole
+ * Chunk and re-uploading all of it.
+ * <p>
+ * Every quad lives in a fixed-size slot, and each face of each block records
+ * which slot (if any) holds its quad. When a block changes, only the faces of
+ * that block and of its neighbours are recalculated. A face that appears takes
+ * a slot from the free list (or a new one at the end) and a face that
+ * disappears is overwritten with a degenerate quad and its slot is freed. The
+ * slots that changed are remembered so that only their byte ranges have to be
+ * sent to the VBO.
+ * <p>
+ * The mesh is kept in a direct buffer with some spare slots, which mirrors the
+ * VBO exactly. When it runs out of room the buffer is doubled and the whole
+ * thing must be uploaded again.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see BinaryMesher
+ */
+final class PatchableMesh {
+    
+    /**
+     * Marks a face which has no quad.
+     */
+    static final int NO_SLOT = -1;
+    
+    /**
+     * The smallest number of slots a mesh will have room for.
+     */
+    private static final int MIN_CAPACITY = 64;
+    
+    /**
+     * The Chunk this mesh belongs to.
+     */
+    private final Chunk chunk;
+    
+    /**
+     * The slot holding each face of each block, or {@code NO_SLOT}, in the
+     * format {@code faceSlots[((x * 16 + y) * 16 + z) * 6 + face.ordinal()]}.
+     */
+    private final int[] faceSlots = new int[Chunk.SIZE * Chunk.SIZE * Chunk.SIZE * 6];
+    
+    /**
+     * The quads, one slot of {@code ChunkMesher.QUAD_SIZE} ints each.
+     */
+    private IntBuffer data = BufferUtils.createIntBuffer(MIN_CAPACITY * ChunkMesher.QUAD_SIZE);
+    
+    /**
+     * The number of slots in use or on the free list. Slots from here to the
+     * end of {@code data} are spare.
+     */
+    private int slotCount;
+    
+    /**
+     * A stack of slots holding degenerate quads, ready to be reused.
+     */
+    private int[] freeSlots = new int[MIN_CAPACITY];
+    private int freeCount;
+    
+    /**
+     * Slots that have changed since they were last uploaded.
+     */
+    private int[] dirtySlots = new int[MIN_CAPACITY];
+    private int dirtyCount;
+    
+    /**
+     * True when {@code data} must be uploaded in full, because it was rebuilt
+     * or has grown.
+     */
+    private boolean fullUploadNeeded;
+    
+    /**
+     * Creates a new empty mesh for {@code chunk}.
+     * 
+     * @param chunk the Chunk this mesh belongs to
+     */
+    PatchableMesh(Chunk chunk) {
+        this.chunk = chunk;
+    }
+    
+    /**
+     * Remeshes the whole Chunk.
+     * 
+     * @param world the World containing the Chunk
+     * @param scratch a buffer with room for {@code ChunkMesher.MAX_QUADS} which
+     *        the opaque quads are meshed into before being copied
+     * @param translucent a buffer with room for {@code ChunkMesher.MAX_QUADS}
+     *        which receives the translucent quads, from position 0 to its limit
+     */
+    void rebuild(World world, IntBuffer scratch, IntBuffer translucent) {
+        scratch.clear();
+        translucent.clear();
+        BinaryMesher.mesh(world, chunk, scratch, translucent, faceSlots, false);
+        scratch.flip();
+        translucent.flip();
+        
+        slotCount = scratch.limit() / ChunkMesher.QUAD_SIZE;
+        freeCount = 0;
+        dirtyCount = 0;
+        
+        // Leave a quarter spare for later edits
+        int capacity = Math.max(MIN_CAPACITY, slotCount + slotCount / 4);
+        if (data.capacity() < capacity * ChunkMesher.QUAD_SIZE || data.capacity() > 2 * capacity * ChunkMesher.QUAD_SIZE) {
+            data = BufferUtils.createIntBuffer(capacity * ChunkMesher.QUAD_SIZE);
+        }
+        data.clear();
+        data.put(scratch);
+        while (data.hasRemaining()) data.put(0);
+        fullUploadNeeded = true;
+    }
+    
+    /**
+     * Recalculates the six faces of one block after it or one of its neighbours
+     * has changed, splicing quads in or out of their slots.
+     * 
+     * @param world the World containing the Chunk
+     * @param x the block's X-coordinate, in world coordinates inside this Chunk
+     * @param y the block's Y-coordinate, in world coordinates inside this Chunk
+     * @param z the block's Z-coordinate, in world coordinates inside this Chunk
+     */
+    void refreshBlock(World world, int x, int y, int z) {
+        boolean opaque = BlockType.isOpaque(world.getBlockType(x, y, z));
+        data.clear();
+        int base = (((x & 15) * Chunk.SIZE + (y & 15)) * Chunk.SIZE + (z & 15)) * 6;
+        
+        for (Face face : Face.VALUES) {
+            boolean visible = opaque && !BlockType.isOpaque(world.getBlockType(x+face.dx, y+face.dy, z+face.dz));
+            int slot = faceSlots[base + face.ordinal()];
+            
+            if (visible && slot == NO_SLOT) {
+                slot = allocateSlot();
+                data.position(slot * ChunkMesher.QUAD_SIZE);
+                face.put(data, x, y, z);
+                faceSlots[base + face.ordinal()] = slot;
+                markDirty(slot);
+            } else if (!visible && slot != NO_SLOT) {
+                int start = slot * ChunkMesher.QUAD_SIZE;
+                for (int i = 0; i < ChunkMesher.QUAD_SIZE; i++) data.put(start + i, 0);
+                faceSlots[base + face.ordinal()] = NO_SLOT;
+                freeSlot(slot);
+                markDirty(slot);
+            }
+        }
+    }
+    
+    /**
+     * Takes a slot from the free list, or a spare one from the end, growing the
+     * buffer if there are none.
+     * 
+     * @return the slot
+     */
+    private int allocateSlot() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+        
+        if ((slotCount + 1) * ChunkMesher.QUAD_SIZE > data.capacity()) {
+            IntBuffer grown = BufferUtils.createIntBuffer(data.capacity() * 2);
+            data.clear();
+            grown.put(data);
+            grown.clear();
+            data = grown;
+            fullUploadNeeded = true;
+        }
+        return slotCount++;
+    }
+    
+    /**
+     * Puts a slot on the free list.
+     * 
+     * @param slot the slot, which must already hold a degenerate quad
+     */
+    private void freeSlot(int slot) {
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+    
+    /**
+     * Remembers that a slot must be uploaded.
+     * 
+     * @param slot the slot
+     */
+    private void markDirty(int slot) {
+        if (fullUploadNeeded) return;
+        if (dirtyCount == dirtySlots.length) dirtySlots = Arrays.copyOf(dirtySlots, dirtyCount * 2);
+        dirtySlots[dirtyCount++] = slot;
+    }
+    
+    /**
+     * Gets the whole buffer for a full upload, if one is needed. The VBO must
+     * be given the entire capacity so that later slots fit.
+     * 
+     * @return the buffer from position 0 to its capacity, or null if only
+     *         individual slots have changed
+     */
+    IntBuffer takeFullUpload() {
+        if (!fullUploadNeeded) return null;
+        fullUploadNeeded = false;
+        dirtyCount = 0;
+        data.clear();
+        return data;
+    }
+    
+    /**
+     * Sorts the changed slots and merges neighbouring ones into runs, so that
+     * each run can be uploaded in one call. Afterwards the changed slots are
+     * forgotten.
+     * 
+     * @param runs receives pairs of first slot and slot count; must have room
+     *        for {@code 2 * getDirtyCount()} ints
+     * @return the number of runs
+     */
+    int takeDirtyRuns(int[] runs) {
+        Arrays.sort(dirtySlots, 0, dirtyCount);
+        int count = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            int slot = dirtySlots[i];
+            if (count > 0 && runs[count*2-2] + runs[count*2-1] >= slot) {
+                // Extend the previous run (the same slot may appear twice)
+                runs[count*2-1] = slot - runs[count*2-2] + 1;
+            } else {
+                runs[count*2] = slot;
+                runs[count*2+1] = 1;
+                count++;
+            }
+        }
+        dirtyCount = 0;
+        return count;
+    }
+    
+    /**
+     * Gets the number of slots changed since the last upload.
+     * 
+     * @return the number of changed slots, possibly counting a slot twice
+     */
+    int getDirtyCount() {
+        return dirtyCount;
+    }
+    
+    /**
+     * Gets a view of some slots for uploading.
+     * 
+     * @param firstSlot the first slot
+     * @param count the number of slots
+     * @return the buffer, positioned and limited to those slots
+     */
+    IntBuffer getSlots(int firstSlot, int count) {
+        data.limit((firstSlot + count) * ChunkMesher.QUAD_SIZE);
+        data.position(firstSlot * ChunkMesher.QUAD_SIZE);
+        return data;
+    }
+    
+    /**
+     * Gets the number of vertices to draw, including degenerate ones in free slots.
+     * 
+     * @return the vertex count
+     */
+    int getVertexCount() {
+        return slotCount * 4;
+    }
+}
@@ -34,9 +34,19 @@ public class Player {
     private static final float INITAL_JUMP_VELOCITY = 0.11f;
     
     /**
-     * The height of what the Player is currently standing on.
+     * Half of this Player's width along the X and Z axes.
      */
-    private float ground = 0;
+    private static final float HALF_WIDTH = 0.25f;
+    
+    /**
+     * The height of this Player's bounding box, from the feet up.
+     */
+    private static final float BOX_HEIGHT = 1.8f;
+    
+    /**
+     * True while this Player is standing on something.
+     */
+    private boolean onGround = false;
     
     /**
      * The height of this Player; this Player's Y coordinate in 3D space where
@@ -59,113 +69,78 @@ public class Player {
     }
     
     /**
-     * Used for collision detection, to determine which direction this Player is moving.
+     * Where the Camera was before the last call to {@code move}, and how far
+     * {@code move} wants this Player to go, in GameState coordinates.
      */
-    private Vector deltaPosition;
+    private final Vector previousPosition = new Vector(), deltaPosition = new Vector();
+    
+    /**
+     * Scratch Vector for reading the Camera's position.
+     */
+    private final Vector position = new Vector();
+    
+    /**
+     * Keeps this Player out of solid blocks.
+     */
+    private final BoxCollider collider = new BoxCollider(BlockFilter.NOT_AIR);
     
     /**
      * Causes this Player to jump, unless this Player is already in the air
      * (jumping or falling) in which case nothing happens.
      */
     void jump() {
-        if (height == ground) {
-            ground = 0;
-            height += 0.0001f;
+        if (onGround) {
+            onGround = false;
             velocity = INITAL_JUMP_VELOCITY;
         }
     }
     
     /**
-     * Checks for collision with blocks and moves the Camera accordingly.
+     * Checks for collision with blocks and moves the Camera accordingly. The
+     * movement calculated by {@code move} is swept through the blocks as a box
+     * and clipped where it would enter one. This Player is also kept inside
+     * the boundaries of the world.
      * 
-     * @param chunk the Chunk this Player is in
-     */
-    void collision(Chunk chunk) {
-        // Boundaries (Y boundaries are handled by the jumping code in the move method).
-        Vector position = camera.getPosition();
-        if (position.x < 0) camera.setPositionX(0);
-        else if (position.x > 16) camera.setPositionX(16);
-        if (position.z < 0) camera.setPositionZ(0);
-        else if (position.z > 16) camera.setPositionZ(16);
+     * @param world the World this Player is in
+     */
+    void collision(World world) {
+        float x = previousPosition.x, z = previousPosition.z;
+        int hits = collider.sweep(world, x, height, z, HALF_WIDTH, BOX_HEIGHT,
+                deltaPosition.x, deltaPosition.y, deltaPosition.z);
+        x += collider.moveX;
+        height += collider.moveY;
+        z += collider.moveZ;
         
-        // Right and left
-        if (deltaPosition.x > 0) {
-            if ((int)Math.round(position.x) < 16 && (int)Math.round(position.x) > position.x && ((position.z-0.25f >= 0 && chunk.getBlockType(new Block((int)Math.round(position.x), (int)(height), (int)(position.z-0.25f))) != 0)
-                    || (position.z+0.25f < 16 && chunk.getBlockType(new Block((int)Math.round(position.x), (int)(height), (int)(position.z+0.25f))) != 0)
-                    || (height + 1 < 16 && position.z-0.25f >= 0 && chunk.getBlockType(new Block((int)Math.round(position.x), (int)(height+1), (int)(position.z-0.25f))) != 0)
-                    || (height + 1 < 16 && position.z+0.25f < 16 && chunk.getBlockType(new Block((int)Math.round(position.x), (int)(height+1), (int)(position.z+0.25f))) != 0))) {
-                camera.setPositionX((int)Math.round(position.x) - 0.5f);
-            }
-        } else {
-            if ((int)Math.round(position.x)-1 >= 0 && (int)Math.round(position.x) < position.x && ((position.z-0.25f >= 0 && chunk.getBlockType(new Block((int)Math.round(position.x)-1, (int)(height), (int)(position.z-0.25f))) != 0)
-                    || (position.z+0.25f < 16 && chunk.getBlockType(new Block((int)Math.round(position.x)-1, (int)(height), (int)(position.z+0.25f))) != 0)
-                    || (height + 1 < 16 && position.z-0.25f >= 0 && chunk.getBlockType(new Block((int)Math.round(position.x)-1, (int)(height+1), (int)(position.z-0.25f))) != 0)
-                    || (height + 1 < 16 && position.z+0.25f < 16 && chunk.getBlockType(new Block((int)Math.round(position.x)-1, (int)(height+1), (int)(position.z+0.25f))) != 0))) {
-                camera.setPositionX((int)Math.round(position.x) + 0.5f);
-            }
-        }
+        // Landing on something, or hitting your head when jumping
+        onGround = (hits & BoxCollider.HIT_Y) != 0 && deltaPosition.y < 0;
+        if ((hits & BoxCollider.HIT_Y) != 0) velocity = 0;
         
-        // Forward and backward
-        if (deltaPosition.z > 0) {
-            if ((int)Math.round(position.z) < 16 && (int)Math.round(position.z) > position.z && ((position.x-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x-0.25f), (int)(height), (int)Math.round(position.z))) != 0)
-                    || (position.x+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x+0.25f), (int)(height), (int)Math.round(position.z))) != 0)
-                    || (height+1 < 16 && position.x-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x-0.25f), (int)(height+1), (int)Math.round(position.z))) != 0)
-                    || (height+1 < 16 && position.x+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x+0.25f), (int)(height+1), (int)Math.round(position.z))) != 0))) {
-                camera.setPositionZ((int)Math.ceil(position.z) - 0.5f);
-            }
-        } else {
-            if ((int)Math.round(position.z)-1 >= 0 && (int)Math.round(position.z) < position.z && ((position.x-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x-0.25f), (int)(height), (int)Math.round(position.z)-1)) != 0)
-                    || (position.x+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x+0.25f), (int)(height), (int)Math.round(position.z)-1)) != 0)
-                    || (height+1 < 16 && position.x-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x-0.25f), (int)(height+1), (int)Math.round(position.z)-1)) != 0)
-                    || (height+1 < 16 && position.x+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x+0.25f), (int)(height+1), (int)Math.round(position.z)-1)) != 0))) {
-                camera.setPositionZ((int)Math.round(position.z) + 0.5f);
-            }
+        // Boundaries
+        x = Math.max(HALF_WIDTH, Math.min(World.SIZE - HALF_WIDTH, x));
+        z = Math.max(HALF_WIDTH, Math.min(World.SIZE - HALF_WIDTH, z));
+        if (height <= 0) {
+            height = 0;
+            velocity = 0;
+            onGround = true;
+        } else if (height + CAMERA_HEIGHT > World.SIZE) {
+            height = World.SIZE - CAMERA_HEIGHT;
+            velocity = 0;
         }
         
-        // Falling
-        if (deltaPosition.y <= 0) {
-            int drop = (int)height;
-            
-            // Cast down a line until it reaches a solid block, which is the ground.
-            while (drop >= 1 && !(((int)position.x < 16 && (int)position.z < 16 && chunk.getBlockType(new Block((int)(position.x), drop-1, (int)(position.z))) != 0)
-                    || ((int)position.z < 16 && position.x+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x+0.25f), drop-1, (int)(position.z))) != 0)
-                    || ((int)position.x < 16 && position.z+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x), drop-1, (int)(position.z+0.25f))) != 0)
-                    || (position.x+0.25f < 16 && position.z+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x+0.25f), drop-1, (int)(position.z+0.25f))) != 0)
-                    || ((int)position.z < 16 && position.x-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x-0.25f), drop-1, (int)(position.z))) != 0)
-                    || ((int)position.x < 16 && position.z-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x), drop-1, (int)(position.z-0.25f))) != 0)
-                    || (position.z-0.25f >= 0 && position.x-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x-0.25f), drop-1, (int)(position.z-0.25f))) != 0)
-                    || (position.x+0.25f < 16 && position.z-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x+0.25f), drop-1, (int)(position.z-0.25f))) != 0)
-                    || (position.x-0.25f >= 0 && position.z+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x-0.25f), drop-1, (int)(position.z+0.25f))) != 0))) {
-                drop--;
-            }
-            
-            ground = drop;
-        } else {
-            // Hitting your head when jumping
-            if ((int)Math.round(position.y) < 16 && (((int)position.x < 16 && (int)position.z < 16 && chunk.getBlockType(new Block((int)(position.x), (int)Math.round(position.y), (int)(position.z))) != 0)
-                    || ((int)position.z < 16 && position.x+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x+0.25f), (int)Math.round(position.y), (int)(position.z))) != 0)
-                    || ((int)position.x < 16 && position.z+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x), (int)Math.round(position.y), (int)(position.z+0.25f))) != 0)
-                    || (position.x+0.25f < 16 && position.z+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x+0.25f), (int)Math.round(position.y), (int)(position.z+0.25f))) != 0)
-                    || ((int)position.z < 16 && position.x-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x-0.25f), (int)Math.round(position.y), (int)(position.z))) != 0)
-                    || ((int)position.x < 16 && position.z-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x), (int)Math.round(position.y), (int)(position.z-0.25f))) != 0)
-                    || (position.z-0.25f >= 0 && position.x-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x-0.25f), (int)Math.round(position.y), (int)(position.z-0.25f))) != 0)
-                    || (position.x+0.25f < 16 && position.z-0.25f >= 0 && chunk.getBlockType(new Block((int)(position.x+0.25f), (int)Math.round(position.y), (int)(position.z-0.25f))) != 0)
-                    || (position.x-0.25f >= 0 && position.z+0.25f < 16 && chunk.getBlockType(new Block((int)(position.x-0.25f), (int)Math.round(position.y), (int)(position.z+0.25f))) != 0))) {
-                // Reposition and stop upward velocity
-                height = (int)Math.ceil(position.y) - CAMERA_HEIGHT - 0.5f;
-                velocity = 0;
-            }
-        }
+        camera.setPositionX(x);
+        camera.setPositionY(height + CAMERA_HEIGHT);
+        camera.setPositionZ(z);
     }
     
     /**
      * Moves this Player and orients this Player's view according to user input.
+     * The movement is only tentative until {@code collision} is called.
      * 
      * @param input the user input
      * @param multiplier 
      */
     void move(GameStateInputData input, float multiplier) {
-        Vector previousPosition = camera.getPosition();
+        camera.getPosition(previousPosition);
         // Movement
         if (input.forward) {
             camera.moveForward(MOVE_SPEED * multiplier);
@@ -180,29 +155,17 @@ public class Player {
             camera.strafeRight(MOVE_SPEED * multiplier);
         }
         
-        if (height != ground) {
-            height += velocity * multiplier;
-            velocity += GRAVITY * multiplier;
-            
-            if (height < ground) {
-                height = ground;
-                velocity = 0;
-            } else if (height + CAMERA_HEIGHT > 16) {
-                height = 16 - CAMERA_HEIGHT;
-                velocity = 0;
-            }
-            
-            camera.setPositionY(height+CAMERA_HEIGHT);
-        }
-        
-        // Calculate the delta position
-        deltaPosition = camera.getPosition().minus(previousPosition);
+        // Calculate the delta position, with gravity always pulling down so
+        // that walking off an edge is noticed
+        velocity += GRAVITY * multiplier;
+        camera.getPosition(position);
+        deltaPosition.x = position.x - previousPosition.x;
+        deltaPosition.y = velocity * multiplier;
+        deltaPosition.z = position.z - previousPosition.z;
         
         // Orient the camera
         camera.pitch(input.lookDeltaY);
         camera.yaw(input.lookDeltaX);
-        
-        
     }
     
     /**
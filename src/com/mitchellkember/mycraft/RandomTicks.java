@@ -0,0 +1,121 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * RandomTicks gives blocks a tick at random, for slow behaviors like growth
+ * and decay which should happen now and then rather than at a set time. Each
+ * tick, a fixed number of random positions is picked in every Chunk, and the
+ * blocks there are ticked if their type receives random ticks.
+ * <p>
+ * Most Chunks have no blocks which receive random ticks, so each Chunk counts
+ * how many it has as blocks are set, and Chunks with none are skipped without
+ * picking anything. The positions come from a FastRandom per thread; a single
+ * 64-bit number gives five positions of 12 bits each.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see BlockBehavior
+ */
+final class RandomTicks {
+    
+    /**
+     * Receives the random ticks.
+     */
+    interface Handler {
+        
+        /**
+         * Runs a random tick.
+         * 
+         * @param x the block's X-coordinate
+         * @param y the block's Y-coordinate
+         * @param z the block's Z-coordinate
+         * @param type the block's type id
+         */
+        void randomTick(int x, int y, int z, byte type);
+    }
+    
+    /**
+     * The default number of positions to pick per Chunk per tick.
+     */
+    static final int DEFAULT_PER_CHUNK = 3;
+    
+    /**
+     * Each thread's random number generator.
+     */
+    private static final ThreadLocal<FastRandom> random = new ThreadLocal<FastRandom>() {
+        @Override
+        protected FastRandom initialValue() {
+            return new FastRandom(System.nanoTime() ^ Thread.currentThread().getId());
+        }
+    };
+    
+    /**
+     * The number of positions to pick per Chunk per tick.
+     */
+    private int perChunk;
+    
+    /**
+     * The number of blocks ticked during the last tick.
+     */
+    private int lastTicked;
+    
+    /**
+     * Creates a new RandomTicks.
+     * 
+     * @param perChunk the number of positions to pick per Chunk per tick
+     */
+    RandomTicks(int perChunk) {
+        setPerChunk(perChunk);
+    }
+    
+    /**
+     * Sets the number of positions to pick per Chunk per tick.
+     * 
+     * @param perChunk the number of positions, or 0 to turn random ticks off
+     */
+    void setPerChunk(int perChunk) {
+        this.perChunk = Math.max(0, perChunk);
+    }
+    
+    /**
+     * Gets the number of blocks ticked during the last call to {@code tick}.
+     * 
+     * @return the number of blocks ticked
+     */
+    int getLastTicked() {
+        return lastTicked;
+    }
+    
+    /**
+     * Picks random positions in every loaded Chunk which has any blocks that
+     * receive random ticks, and ticks those blocks.
+     * 
+     * @param world the World to tick
+     * @param handler runs the ticks
+     */
+    void tick(World world, Handler handler) {
+        FastRandom rng = random.get();
+        int ticked = 0;
+        for (Chunk chunk : world.getChunks()) {
+            if (chunk.getRandomTickCount() == 0) continue;
+            int originX = chunk.chunkX * Chunk.SIZE;
+            int originY = chunk.chunkY * Chunk.SIZE;
+            int originZ = chunk.chunkZ * Chunk.SIZE;
+            
+            long bits = 0;
+            for (int i = 0; i < perChunk; i++) {
+                if (i % 5 == 0) bits = rng.nextLong();
+                int x = (int)bits & 15, y = (int)(bits >>> 4) & 15, z = (int)(bits >>> 8) & 15;
+                bits >>>= 12;
+                
+                byte type = chunk.getBlockType(x, y, z);
+                if (BlockType.receivesRandomTicks(type)) {
+                    handler.randomTick(originX + x, originY + y, originZ + z, type);
+                    ticked++;
+                }
+            }
+        }
+        lastTicked = ticked;
+    }
+}
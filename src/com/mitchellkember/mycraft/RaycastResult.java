@@ -0,0 +1,89 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * RaycastResult receives the outcome of a raycast. It is mutable so that the
+ * same instance can be reused for every cast, and nothing is allocated per ray.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see Raycaster
+ */
+final class RaycastResult {
+    
+    /**
+     * True if the ray hit a block. The other fields are only meaningful if so.
+     */
+    boolean hit;
+    
+    /**
+     * The coordinates of the block that was hit.
+     */
+    int x, y, z;
+    
+    /**
+     * The Face of the block through which the ray entered it, or null if the
+     * ray started inside the block.
+     */
+    Face face;
+    
+    /**
+     * The distance along the ray to the point where it entered the block.
+     */
+    float distance;
+    
+    /**
+     * Records a hit.
+     * 
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param face the Face the ray entered through, or null
+     * @param distance the distance to the block
+     */
+    void set(int x, int y, int z, Face face, float distance) {
+        this.hit = true;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.face = face;
+        this.distance = distance;
+    }
+    
+    /**
+     * Records a miss.
+     */
+    void clear() {
+        hit = false;
+        face = null;
+    }
+    
+    /**
+     * Gets the X-coordinate of the cell in front of the Face that was hit, where
+     * a new block would be placed.
+     * 
+     * @return the X-coordinate
+     */
+    int placeX() {
+        return (face != null) ? x + face.dx : x;
+    }
+    
+    /**
+     * Gets the Y-coordinate of the cell in front of the Face that was hit.
+     * 
+     * @return the Y-coordinate
+     */
+    int placeY() {
+        return (face != null) ? y + face.dy : y;
+    }
+    
+    /**
+     * Gets the Z-coordinate of the cell in front of the Face that was hit.
+     * 
+     * @return the Z-coordinate
+     */
+    int placeZ() {
+        return (face != null) ? z + face.dz : z;
+    }
+}
@@ -0,0 +1,165 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Random;
+
+/**
+ * RaycastTool is a command line tool which compares casting rays one at a
+ * time with casting them as a batch. It fires random rays through a
+ * generated world and times three ways of casting them: one by one through
+ * the World itself, one by one through a WorldSnapshot, and all at once with
+ * {@code WorldSnapshot.raycastBatch}, which splits them between the worker
+ * threads. It also times taking the snapshot, and checks that every ray of
+ * the batch hits the same block as the same ray cast through the World.
+ * <p>
+ * Usage: {@code RaycastTool [options]}
+ * <ul>
+ * <li>{@code -count N} cast N rays (default 100000)</li>
+ * <li>{@code -seed N} cast through a hilly world generated from seed N
+ *     (default 42)</li>
+ * <li>{@code -flat} cast through the flat world the game starts with</li>
+ * <li>{@code -distance D} follow each ray for up to D blocks (default 64)</li>
+ * <li>{@code -repeat N} measure N times and report the fastest (default 5)</li>
+ * </ul>
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see Raycaster
+ * @see WorldSnapshot
+ */
+final class RaycastTool {
+    
+    /**
+     * Not instantiable.
+     */
+    private RaycastTool() {}
+    
+    /**
+     * The main method.
+     * 
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int count = 100000;
+        long seed = 42;
+        boolean flat = false;
+        float distance = World.SIZE;
+        int repeat = 5;
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-count")) count = Math.max(1, Integer.parseInt(args[++i]));
+                else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+                else if (args[i].equals("-flat")) flat = true;
+                else if (args[i].equals("-distance")) distance = Float.parseFloat(args[++i]);
+                else if (args[i].equals("-repeat")) repeat = Math.max(1, Integer.parseInt(args[++i]));
+                else throw new IllegalArgumentException(args[i]);
+            }
+        } catch (RuntimeException re) {
+            System.err.println("Usage: RaycastTool [-count N] [-seed N | -flat] [-distance D] [-repeat N]");
+            System.exit(2);
+        }
+        
+        World world = new World();
+        if (flat) world.generateFlat();
+        else world.generateHills(seed);
+        
+        // Rays from anywhere in the World, in any direction
+        Random random = new Random(seed);
+        float[] origins = new float[count * 3], directions = new float[count * 3];
+        for (int i = 0; i < count * 3; i++) {
+            origins[i] = random.nextFloat() * World.SIZE;
+            directions[i] = (float)random.nextGaussian();
+        }
+        RaycastResult[] expected = newResults(count), batch = newResults(count);
+        RaycastResult result = new RaycastResult();
+        
+        long bestWorld = Long.MAX_VALUE, bestSnapshot = Long.MAX_VALUE;
+        long bestCopy = Long.MAX_VALUE, bestBatch = Long.MAX_VALUE;
+        int hits = 0;
+        for (int r = 0; r < repeat; r++) {
+            long start = System.nanoTime();
+            hits = 0;
+            for (int i = 0; i < count; i++) {
+                if (Raycaster.cast(world, origins[i*3], origins[i*3+1], origins[i*3+2],
+                        directions[i*3], directions[i*3+1], directions[i*3+2],
+                        distance, BlockFilter.NOT_AIR, expected[i])) {
+                    hits++;
+                }
+            }
+            long cast = System.nanoTime();
+            WorldSnapshot snapshot = world.snapshot();
+            long copied = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                Raycaster.cast(snapshot, origins[i*3], origins[i*3+1], origins[i*3+2],
+                        directions[i*3], directions[i*3+1], directions[i*3+2],
+                        distance, BlockFilter.NOT_AIR, result);
+            }
+            long castSnapshot = System.nanoTime();
+            snapshot.raycastBatch(origins, directions, count, distance, BlockFilter.NOT_AIR, batch);
+            long castBatch = System.nanoTime();
+            
+            bestWorld = Math.min(bestWorld, cast - start);
+            bestCopy = Math.min(bestCopy, copied - cast);
+            bestSnapshot = Math.min(bestSnapshot, castSnapshot - copied);
+            bestBatch = Math.min(bestBatch, castBatch - castSnapshot);
+        }
+        
+        System.out.printf("%d rays, %d hits, up to %.0f blocks each, %d threads%n", count, hits, distance,
+                Runtime.getRuntime().availableProcessors());
+        System.out.println("method           ms   ns/ray");
+        print("world", bestWorld, count);
+        print("snapshot", bestSnapshot, count);
+        print("batch", bestBatch, count);
+        System.out.printf("snapshot copy %.2f ms; batch is %.1fx faster than the world, or %.1fx including the copy%n",
+                bestCopy / 1e6, (double)bestWorld / bestBatch, (double)bestWorld / (bestBatch + bestCopy));
+        
+        int mismatches = 0;
+        for (int i = 0; i < count; i++) {
+            if (!same(expected[i], batch[i])) mismatches++;
+        }
+        System.out.println((mismatches == 0) ? "Batch results match single casts through the World"
+                : mismatches + " rays differ from single casts through the World");
+        if (mismatches != 0) System.exit(1);
+    }
+    
+    /**
+     * Creates an array of new RaycastResults.
+     * 
+     * @param count the number of results
+     * @return the results
+     */
+    private static RaycastResult[] newResults(int count) {
+        RaycastResult[] results = new RaycastResult[count];
+        for (int i = 0; i < count; i++) {
+            results[i] = new RaycastResult();
+        }
+        return results;
+    }
+    
+    /**
+     * Prints a line of timings.
+     * 
+     * @param method how the rays were cast
+     * @param nanos the time they took, in nanoseconds
+     * @param count the number of rays
+     */
+    private static void print(String method, long nanos, int count) {
+        System.out.printf("%-12s %7.2f  %7.0f%n", method, nanos / 1e6, (double)nanos / count);
+    }
+    
+    /**
+     * Determines whether two results describe the same hit, or are both
+     * misses.
+     * 
+     * @param a one result
+     * @param b the other result
+     * @return true if they are the same
+     */
+    private static boolean same(RaycastResult a, RaycastResult b) {
+        if (a.hit != b.hit) return false;
+        if (!a.hit) return true;
+        return a.x == b.x && a.y == b.y && a.z == b.z && a.face == b.face && a.distance == b.distance;
+    }
+}
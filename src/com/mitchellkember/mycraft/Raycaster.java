@@ -0,0 +1,277 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Raycaster finds the first block along a ray that stops it, using the voxel
+ * traversal of Amanatides and Woo. Starting from the block containing the
+ * origin, it steps into whichever neighbouring block the ray reaches first, so
+ * blocks are visited strictly in order of distance and none are skipped or
+ * visited twice.
+ * <p>
+ * For each axis only two numbers are kept: the distance along the ray at which
+ * it next crosses a block boundary on that axis, and the distance between two
+ * such crossings. Each step is then a comparison and an addition, and the whole
+ * cast runs on primitive locals without allocating anything.
+ * <p>
+ * Long rays through open space would still spend most of their time stepping
+ * through air, so the BlockView is first asked how large an empty cube
+ * surrounds the current block: a whole empty (or unloaded) Chunk, an empty
+ * brick of 4 by 4 by 4 blocks, or nothing. If there is one, the ray leaps to
+ * the first block past it in a single step. A ray's cost is then roughly
+ * proportional to the occupied bricks it passes through, not to its length.
+ * <p>
+ * Batches of rays are split into slices and cast on a shared pool of worker
+ * threads. The rays of a batch must be cast through a WorldSnapshot (or some
+ * other BlockView that does not change underneath them).
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see RaycastResult
+ */
+final class Raycaster {
+    
+    /**
+     * Batches with fewer rays than this per thread are cast on the calling
+     * thread, since handing them to the pool would cost more than it saves.
+     */
+    private static final int MIN_RAYS_PER_SLICE = 256;
+    
+    /**
+     * Holds the worker threads, which are only started by the first batch.
+     */
+    private static final class Workers {
+        static final int COUNT = Runtime.getRuntime().availableProcessors();
+        static final ExecutorService executor = Executors.newFixedThreadPool(COUNT,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "Raycaster");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+    
+    /**
+     * Not instantiable.
+     */
+    private Raycaster() {}
+    
+    /**
+     * Casts a ray and finds the first block accepted by {@code filter}.
+     * 
+     * @param view the blocks to cast through
+     * @param originX the X-coordinate the ray starts at
+     * @param originY the Y-coordinate the ray starts at
+     * @param originZ the Z-coordinate the ray starts at
+     * @param dirX the X component of the ray's direction
+     * @param dirY the Y component of the ray's direction
+     * @param dirZ the Z component of the ray's direction
+     * @param maxDistance how far to follow the ray, which must be finite
+     * @param filter decides which blocks stop the ray
+     * @param result receives the hit, if any
+     * @return true if a block was hit
+     */
+    static boolean cast(BlockView view, float originX, float originY, float originZ,
+            float dirX, float dirY, float dirZ, float maxDistance, BlockFilter filter,
+            RaycastResult result) {
+        result.clear();
+        float length = (float)Math.sqrt(dirX*dirX + dirY*dirY + dirZ*dirZ);
+        if (length == 0) return false;
+        dirX /= length;
+        dirY /= length;
+        dirZ /= length;
+        
+        int x = (int)Math.floor(originX);
+        int y = (int)Math.floor(originY);
+        int z = (int)Math.floor(originZ);
+        int stepX = (dirX > 0) ? 1 : (dirX < 0) ? -1 : 0;
+        int stepY = (dirY > 0) ? 1 : (dirY < 0) ? -1 : 0;
+        int stepZ = (dirZ > 0) ? 1 : (dirZ < 0) ? -1 : 0;
+        // Distance between boundary crossings on each axis
+        float deltaX = (stepX != 0) ? Math.abs(1 / dirX) : Float.POSITIVE_INFINITY;
+        float deltaY = (stepY != 0) ? Math.abs(1 / dirY) : Float.POSITIVE_INFINITY;
+        float deltaZ = (stepZ != 0) ? Math.abs(1 / dirZ) : Float.POSITIVE_INFINITY;
+        // Distance to the next boundary crossing on each axis
+        float nextX = boundary(x, stepX, originX, deltaX);
+        float nextY = boundary(y, stepY, originY, deltaY);
+        float nextZ = boundary(z, stepZ, originZ, deltaZ);
+        
+        // The Face a block is entered through is opposite to the step
+        Face faceX = (stepX > 0) ? Face.NEG_X : Face.POS_X;
+        Face faceY = (stepY > 0) ? Face.NEG_Y : Face.POS_Y;
+        Face faceZ = (stepZ > 0) ? Face.NEG_Z : Face.POS_Z;
+        
+        Face face = null;
+        float distance = 0;
+        while (true) {
+            int shift = view.getEmptyShift(x, y, z);
+            if (shift == 0) {
+                if (filter.accept(view.getBlockType(x, y, z))) {
+                    result.set(x, y, z, face, distance);
+                    return true;
+                }
+                
+                // Step into the next block
+                if (nextX < nextY && nextX < nextZ) {
+                    x += stepX;
+                    distance = nextX;
+                    nextX += deltaX;
+                    face = faceX;
+                } else if (nextY < nextZ) {
+                    y += stepY;
+                    distance = nextY;
+                    nextY += deltaY;
+                    face = faceY;
+                } else {
+                    z += stepZ;
+                    distance = nextZ;
+                    nextZ += deltaZ;
+                    face = faceZ;
+                }
+            } else {
+                // Leap to the first block past the empty cube. The masks round
+                // down, which also works for negative coordinates.
+                int size = 1 << shift;
+                int minX = x & -size, minY = y & -size, minZ = z & -size;
+                float exitX = boundary(minX + ((stepX > 0) ? size - 1 : 0), stepX, originX, deltaX);
+                float exitY = boundary(minY + ((stepY > 0) ? size - 1 : 0), stepY, originY, deltaY);
+                float exitZ = boundary(minZ + ((stepZ > 0) ? size - 1 : 0), stepZ, originZ, deltaZ);
+                
+                // The other two coordinates come from the exit point, kept
+                // inside the cube in case of rounding
+                if (exitX < exitY && exitX < exitZ) {
+                    distance = exitX;
+                    face = faceX;
+                    x = (stepX > 0) ? minX + size : minX - 1;
+                    y = clamp((int)Math.floor(originY + dirY * distance), minY, minY + size - 1);
+                    z = clamp((int)Math.floor(originZ + dirZ * distance), minZ, minZ + size - 1);
+                } else if (exitY < exitZ) {
+                    distance = exitY;
+                    face = faceY;
+                    x = clamp((int)Math.floor(originX + dirX * distance), minX, minX + size - 1);
+                    y = (stepY > 0) ? minY + size : minY - 1;
+                    z = clamp((int)Math.floor(originZ + dirZ * distance), minZ, minZ + size - 1);
+                } else {
+                    distance = exitZ;
+                    face = faceZ;
+                    x = clamp((int)Math.floor(originX + dirX * distance), minX, minX + size - 1);
+                    y = clamp((int)Math.floor(originY + dirY * distance), minY, minY + size - 1);
+                    z = (stepZ > 0) ? minZ + size : minZ - 1;
+                }
+                nextX = boundary(x, stepX, originX, deltaX);
+                nextY = boundary(y, stepY, originY, deltaY);
+                nextZ = boundary(z, stepZ, originZ, deltaZ);
+            }
+            
+            if (distance > maxDistance) return false;
+        }
+    }
+    
+    /**
+     * Calculates the distance along a ray to where it leaves a block on one axis.
+     * 
+     * @param cell the block's coordinate on the axis
+     * @param step the direction of the ray on the axis: 1, -1 or 0
+     * @param origin the ray's origin on the axis
+     * @param delta the distance between boundary crossings on the axis
+     * @return the distance, or infinity if the ray is parallel to the axis
+     */
+    private static float boundary(int cell, int step, float origin, float delta) {
+        if (step > 0) return (cell + 1 - origin) * delta;
+        if (step < 0) return (origin - cell) * delta;
+        return Float.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Clamps {@code value} to the range from {@code min} to {@code max}.
+     * 
+     * @param value the value
+     * @param min the smallest allowed value
+     * @param max the largest allowed value
+     * @return the clamped value
+     */
+    private static int clamp(int value, int min, int max) {
+        return (value < min) ? min : (value > max) ? max : value;
+    }
+    
+    /**
+     * Casts many rays, splitting them between the worker threads when there
+     * are enough of them, and waits for all of them to finish.
+     * 
+     * @param view the blocks to cast through, which must not change meanwhile
+     * @param origins the origin of each ray, three floats per ray
+     * @param directions the direction of each ray, three floats per ray
+     * @param count the number of rays
+     * @param maxDistance how far to follow each ray, which must be finite
+     * @param filter decides which blocks stop the rays
+     * @param results receives the hit of each ray, if any
+     * @throws IllegalStateException if a worker failed, or the calling thread
+     *         was interrupted while waiting (its interrupt flag is restored);
+     *         either way {@code results} is incomplete
+     */
+    static void castBatch(final BlockView view, final float[] origins, final float[] directions,
+            int count, final float maxDistance, final BlockFilter filter, final RaycastResult[] results) {
+        int slices = Math.min(Workers.COUNT, count / MIN_RAYS_PER_SLICE);
+        if (slices <= 1) {
+            castRange(view, origins, directions, 0, count, maxDistance, filter, results);
+            return;
+        }
+        
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(slices);
+        for (int i = 0; i < slices; i++) {
+            final int from = (int)((long)count * i / slices);
+            final int to = (int)((long)count * (i+1) / slices);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    castRange(view, origins, directions, from, to, maxDistance, filter, results);
+                    return null;
+                }
+            });
+        }
+        
+        try {
+            for (Future<Void> future : Workers.executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ie) {
+            // Some slices may not have been cast, so the results are unusable
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Raycast interrupted", ie);
+        } catch (ExecutionException ee) {
+            throw new IllegalStateException("Raycast failed", ee.getCause());
+        }
+    }
+    
+    /**
+     * Casts some of the rays of a batch.
+     * 
+     * @param view the blocks to cast through
+     * @param origins the origin of each ray, three floats per ray
+     * @param directions the direction of each ray, three floats per ray
+     * @param from the first ray to cast
+     * @param to one past the last ray to cast
+     * @param maxDistance how far to follow each ray
+     * @param filter decides which blocks stop the rays
+     * @param results receives the hit of each ray, if any
+     */
+    private static void castRange(BlockView view, float[] origins, float[] directions, int from, int to,
+            float maxDistance, BlockFilter filter, RaycastResult[] results) {
+        for (int i = from; i < to; i++) {
+            cast(view, origins[i*3], origins[i*3+1], origins[i*3+2],
+                    directions[i*3], directions[i*3+1], directions[i*3+2],
+                    maxDistance, filter, results[i]);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * RegionTicker splits the world into independent regions and ticks them in
+ * parallel on a fork-join pool, so that a large world can use every core.
+ * <p>
+ * Regions are made of chunk columns, and are worked out again at the start of
+ * every tick. Every column with a Player or an entity in it is active, and
+ * claims the columns within {@code MERGE_DISTANCE} of it. Active columns whose
+ * claims overlap are in the same region, so when two groups of activity come
+ * close their regions merge, and when they move apart again the region splits.
+ * Anything in one region is then at least {@code 2 * MERGE_DISTANCE} whole
+ * columns away from anything in another, which is much further than an
+ * entity can move in one tick.
+ * <p>
+ * While regions are ticking, each one may read any block and may change its
+ * own entities, but nothing else. Anything that reaches outside the region,
+ * such as changing a block or affecting an entity in another region, must be
+ * handed to {@code Region.defer}. Deferred actions run once every region has
+ * finished, on the thread that called {@code tick}, in region order and then
+ * in the order they were deferred, so the result does not depend on how the
+ * threads were scheduled. Entities which fall out of the bottom of the World
+ * are removed this way.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see Entities
+ */
+final class RegionTicker {
+    
+    /**
+     * How many columns around an active column it claims for its region.
+     */
+    static final int MERGE_DISTANCE = 1;
+    
+    /**
+     * With fewer entities than this in all, every region is ticked on the
+     * calling thread, since handing them to the pool would cost more than it saves.
+     */
+    private static final int MIN_PARALLEL_ENTITIES = 256;
+    
+    /**
+     * The number of chunk columns along each side of the World.
+     */
+    private static final int COLUMNS = World.SIZE_CHUNKS;
+    
+    /**
+     * Holds the pool, which is only started by the first parallel tick. The
+     * worker threads of a ForkJoinPool are daemons.
+     */
+    private static final class Workers {
+        static final ForkJoinPool pool = new ForkJoinPool();
+    }
+    
+    /**
+     * A region of the world, ticked as a single task.
+     */
+    final class Region extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        /**
+         * The bounds of the columns claimed by this Region, in chunk columns
+         * (inclusive).
+         */
+        int minColumnX, minColumnZ, maxColumnX, maxColumnZ;
+        
+        /**
+         * The number of active chunk columns in this Region.
+         */
+        int columnCount;
+        
+        /**
+         * The entities of this Region are
+         * {@code regionEntities[entityStart]} up to {@code regionEntities[entityEnd]}.
+         */
+        int entityStart, entityEnd;
+        
+        /**
+         * Moves this Region's entities, so that regions never share one.
+         */
+        private final BoxCollider collider = new BoxCollider(BlockFilter.NOT_AIR);
+        
+        /**
+         * Actions to run after every Region has finished ticking.
+         */
+        private final List<Runnable> deferred = new ArrayList<Runnable>();
+        
+        /**
+         * Runs {@code action} once every Region has finished this tick. This is
+         * the only way for a Region to change anything outside itself.
+         * 
+         * @param action the action to run
+         */
+        void defer(Runnable action) {
+            deferred.add(action);
+        }
+        
+        @Override
+        protected void compute() {
+            entities.update(world, multiplier, regionEntities, entityStart, entityEnd, collider);
+            
+            // Entities which reach the floor of the World have fallen through
+            // a hole in its bottom layer, and are removed. Removing one moves
+            // another into its place, which may belong to another Region, so
+            // it has to wait.
+            final Entities entities = RegionTicker.this.entities;
+            float[] y = entities.y;
+            for (int i = entityStart; i < entityEnd; i++) {
+                int index = regionEntities[i];
+                if (y[index] > 0) continue;
+                final int handle = entities.handleAt(index);
+                defer(new Runnable() {
+                    @Override
+                    public void run() {
+                        entities.remove(handle);
+                    }
+                });
+            }
+        }
+    }
+    
+    /**
+     * The Regions, of which the first {@code regionCount} are in use this tick.
+     * The rest are kept to be reused.
+     */
+    private final List<Region> regions = new ArrayList<Region>();
+    private int regionCount;
+    
+    /**
+     * Whether each chunk column is active, and the number of the Region it
+     * belongs to, indexed by {@code columnX * COLUMNS + columnZ}.
+     */
+    private final boolean[] active = new boolean[COLUMNS * COLUMNS];
+    private final int[] owners = new int[COLUMNS * COLUMNS];
+    
+    /**
+     * Scratch queue of columns for finding overlapping groups.
+     */
+    private final int[] queue = new int[COLUMNS * COLUMNS];
+    
+    /**
+     * The Region number of each entity, and the entities sorted by Region.
+     */
+    private int[] entityRegions = new int[64];
+    private int[] regionEntities = new int[64];
+    
+    /**
+     * What is being ticked, set for the duration of {@code tick}.
+     */
+    private World world;
+    private Entities entities;
+    private float multiplier;
+    
+    /**
+     * Gets the number of Regions in the last tick.
+     * 
+     * @return the number of Regions
+     */
+    int getRegionCount() {
+        return regionCount;
+    }
+    
+    /**
+     * Gets one of the Regions of the last tick.
+     * 
+     * @param index the Region's number, from 0 to {@code getRegionCount() - 1}
+     * @return the Region
+     */
+    Region getRegion(int index) {
+        return regions.get(index);
+    }
+    
+    /**
+     * Splits the world into Regions around the Player and the entities, and
+     * ticks every Region, in parallel if there is enough to do.
+     * 
+     * @param world the World to tick
+     * @param entities the entities to tick
+     * @param playerX the X-coordinate of the Player
+     * @param playerZ the Z-coordinate of the Player
+     * @param multiplier the length of the tick in 60 FPS frames
+     */
+    void tick(World world, Entities entities, float playerX, float playerZ, float multiplier) {
+        this.world = world;
+        this.entities = entities;
+        this.multiplier = multiplier;
+        try {
+            partition(entities, playerX, playerZ);
+            
+            if (regionCount == 1 || entities.size() < MIN_PARALLEL_ENTITIES) {
+                for (int r = 0; r < regionCount; r++) {
+                    regions.get(r).compute();
+                }
+            } else {
+                for (int r = 0; r < regionCount; r++) {
+                    regions.get(r).reinitialize();
+                }
+                final List<Region> active = regions.subList(0, regionCount);
+                Workers.pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(active);
+                    }
+                });
+            }
+            
+            // Only now may anything cross from one Region into another
+            for (int r = 0; r < regionCount; r++) {
+                List<Runnable> deferred = regions.get(r).deferred;
+                for (int i = 0; i < deferred.size(); i++) {
+                    deferred.get(i).run();
+                }
+                deferred.clear();
+            }
+        } finally {
+            this.world = null;
+            this.entities = null;
+        }
+    }
+    
+    /**
+     * Calculates the chunk column containing a coordinate, kept inside the World.
+     * 
+     * @param coordinate the X- or Z-coordinate
+     * @return the column
+     */
+    private static int column(float coordinate) {
+        int column = (int)Math.floor(coordinate) >> 4;
+        return (column < 0) ? 0 : (column >= COLUMNS) ? COLUMNS - 1 : column;
+    }
+    
+    /**
+     * Works out this tick's Regions and sorts the entities into them.
+     * 
+     * @param entities the entities
+     * @param playerX the X-coordinate of the Player
+     * @param playerZ the Z-coordinate of the Player
+     */
+    private void partition(Entities entities, float playerX, float playerZ) {
+        int n = entities.size();
+        float[] x = entities.x, z = entities.z;
+        
+        Arrays.fill(active, false);
+        active[column(playerX) * COLUMNS + column(playerZ)] = true;
+        for (int i = 0; i < n; i++) {
+            active[column(x[i]) * COLUMNS + column(z[i])] = true;
+        }
+        
+        // Each group of active columns with overlapping claims is a Region
+        Arrays.fill(owners, -1);
+        regionCount = 0;
+        for (int start = 0; start < active.length; start++) {
+            if (!active[start] || owners[start] >= 0) continue;
+            if (regionCount == regions.size()) regions.add(new Region());
+            Region region = regions.get(regionCount);
+            region.minColumnX = region.minColumnZ = Integer.MAX_VALUE;
+            region.maxColumnX = region.maxColumnZ = Integer.MIN_VALUE;
+            region.columnCount = 0;
+            
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            owners[start] = regionCount;
+            while (head < tail) {
+                int c = queue[head++];
+                int cx = c / COLUMNS, cz = c % COLUMNS;
+                region.minColumnX = Math.min(region.minColumnX, Math.max(0, cx - MERGE_DISTANCE));
+                region.maxColumnX = Math.max(region.maxColumnX, Math.min(COLUMNS - 1, cx + MERGE_DISTANCE));
+                region.minColumnZ = Math.min(region.minColumnZ, Math.max(0, cz - MERGE_DISTANCE));
+                region.maxColumnZ = Math.max(region.maxColumnZ, Math.min(COLUMNS - 1, cz + MERGE_DISTANCE));
+                region.columnCount++;
+                
+                // Claims overlap when the columns are at most twice the
+                // distance apart
+                int reach = 2 * MERGE_DISTANCE;
+                int x0 = Math.max(0, cx - reach), x1 = Math.min(COLUMNS - 1, cx + reach);
+                int z0 = Math.max(0, cz - reach), z1 = Math.min(COLUMNS - 1, cz + reach);
+                for (int i = x0; i <= x1; i++) {
+                    for (int j = z0; j <= z1; j++) {
+                        int neighbour = i * COLUMNS + j;
+                        if (active[neighbour] && owners[neighbour] < 0) {
+                            owners[neighbour] = regionCount;
+                            queue[tail++] = neighbour;
+                        }
+                    }
+                }
+            }
+            regionCount++;
+        }
+        
+        // Sort the entities by Region, like a counting sort
+        if (entityRegions.length < n) {
+            entityRegions = new int[Math.max(n, entityRegions.length * 2)];
+            regionEntities = new int[entityRegions.length];
+        }
+        for (int r = 0; r < regionCount; r++) {
+            regions.get(r).entityEnd = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            int r = owners[column(x[i]) * COLUMNS + column(z[i])];
+            entityRegions[i] = r;
+            regions.get(r).entityEnd++;
+        }
+        int total = 0;
+        for (int r = 0; r < regionCount; r++) {
+            Region region = regions.get(r);
+            region.entityStart = total;
+            total += region.entityEnd;
+            region.entityEnd = region.entityStart;
+        }
+        for (int i = 0; i < n; i++) {
+            Region region = regions.get(entityRegions[i]);
+            regionEntities[region.entityEnd++] = i;
+        }
+    }
+}
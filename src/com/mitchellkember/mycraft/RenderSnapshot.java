@@ -0,0 +1,54 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * RenderSnapshot is everything the renderer needs from the GameState at the
+ * end of a tick, copied so that the simulation can carry on changing the
+ * GameState while the frame is drawn. Snapshots are passed from the
+ * simulation thread to the render thread through a TripleBuffer, and are not
+ * changed once they have been published.
+ * <p>
+ * The blocks themselves are not copied here. The render thread keeps its own
+ * copy of the World, which changes to them reach through a ListenerQueue.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see GameController
+ */
+final class RenderSnapshot {
+    
+    /**
+     * A copy of the Player's view.
+     */
+    final Camera camera = new Camera();
+    
+    /**
+     * Whether a block is selected, and its coordinates if it is.
+     */
+    boolean blockSelected;
+    int selectedX, selectedY, selectedZ;
+    
+    /**
+     * The {@code System.nanoTime} at which the tick ended.
+     */
+    long tickTime;
+    
+    /**
+     * Copies the state at the end of a tick.
+     * 
+     * @param state the GameState
+     * @param tickTime the {@code System.nanoTime} at which the tick ended
+     */
+    void capture(GameState state, long tickTime) {
+        camera.set(state.getPlayerView());
+        blockSelected = state.isBlockSelected();
+        if (blockSelected) {
+            Block block = state.getSelectedBlock();
+            selectedX = block.x;
+            selectedY = block.y;
+            selectedZ = block.z;
+        }
+        this.tickTime = tickTime;
+    }
+}
@@ -0,0 +1,427 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ScheduledTicks runs block ticks that were asked for some number of ticks in
+ * advance, such as a block that falls a moment after the block under it is
+ * broken. Each pending tick is a block position, the type the block must
+ * still have, the tick it is due on, and a priority for ordering ticks which
+ * are due together.
+ * <p>
+ * Pending ticks are kept in a hashed timing wheel: a ring of
+ * {@code WHEEL_SIZE} slots, where a tick due on tick {@code t} waits in slot
+ * {@code t % WHEEL_SIZE}. Scheduling is then a constant-time insertion, and
+ * each tick only looks at the one slot that can have anything due, skipping
+ * entries that are due on a later lap around the ring. The same block and type
+ * can only be pending once; scheduling it again while it is pending does
+ * nothing.
+ * <p>
+ * Entries are stored in parallel arrays and linked into two lists at once: the
+ * list of their wheel slot, and the list of the Chunk they are in. The second
+ * one lets a Chunk's entries be taken out when it is unloaded, kept with the
+ * time they had left, and put back when it is loaded again.
+ * <p>
+ * At most {@code budget} ticks are run per tick. Any that are due but over the
+ * budget stay pending and run first on the next tick, oldest first.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see BlockBehavior
+ */
+final class ScheduledTicks {
+    
+    /**
+     * Receives the ticks as they come due.
+     */
+    interface Handler {
+        
+        /**
+         * Runs a scheduled tick.
+         * 
+         * @param x the block's X-coordinate
+         * @param y the block's Y-coordinate
+         * @param z the block's Z-coordinate
+         * @param type the block's type id, which it still has
+         */
+        void scheduledTick(int x, int y, int z, byte type);
+    }
+    
+    /**
+     * The number of slots in the wheel, a power of two.
+     */
+    static final int WHEEL_SIZE = 256;
+    
+    /**
+     * The default number of ticks to run per tick.
+     */
+    static final int DEFAULT_BUDGET = 4096;
+    
+    /**
+     * Priorities are clamped to this range. Lower priorities run first.
+     */
+    static final int MIN_PRIORITY = -128, MAX_PRIORITY = 127;
+    
+    /**
+     * Marks the end of a list.
+     */
+    private static final int NONE = -1;
+    
+    /**
+     * The entries not yet run from unloaded Chunks, with the number of ticks
+     * each had left.
+     */
+    private static final class Saved {
+        long[] positions = new long[8];
+        byte[] types = new byte[8];
+        int[] delays = new int[8];
+        int[] priorities = new int[8];
+        int count;
+        
+        void add(long position, byte type, int delay, int priority) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+                types = Arrays.copyOf(types, count * 2);
+                delays = Arrays.copyOf(delays, count * 2);
+                priorities = Arrays.copyOf(priorities, count * 2);
+            }
+            positions[count] = position;
+            types[count] = type;
+            delays[count] = delay;
+            priorities[count] = priority;
+            count++;
+        }
+    }
+    
+    /**
+     * The packed position, type, due tick and priority of each entry.
+     */
+    private long[] positions = new long[64];
+    private byte[] types = new byte[64];
+    private long[] dues = new long[64];
+    private int[] priorities = new int[64];
+    
+    /**
+     * The wheel slot each entry is in, which is its due tick's slot unless
+     * it was carried over.
+     */
+    private int[] slots = new int[64];
+    
+    /**
+     * The links of each entry in its wheel slot's list and its Chunk's list.
+     * The next link of a free entry points to the next free entry.
+     */
+    private int[] nextInSlot = new int[64], previousInSlot = new int[64];
+    private int[] nextInChunk = new int[64], previousInChunk = new int[64];
+    
+    /**
+     * The number of entries ever used, and the first free entry.
+     */
+    private int used;
+    private int free = NONE;
+    
+    /**
+     * The first entry of each wheel slot.
+     */
+    private final int[] slotHeads = new int[WHEEL_SIZE];
+    
+    /**
+     * The entry for each block and type, and the first entry of each Chunk.
+     */
+    private final LongIntMap pending = new LongIntMap(NONE);
+    private final LongIntMap chunkHeads = new LongIntMap(NONE);
+    
+    /**
+     * The entries of unloaded Chunks, keyed like {@code chunkHeads}.
+     */
+    private final Map<Long, Saved> saved = new HashMap<Long, Saved>();
+    
+    /**
+     * The due entries of the current tick, as sort keys.
+     */
+    private long[] ready = new long[64];
+    
+    /**
+     * The most ticks to run per tick.
+     */
+    private int budget;
+    
+    /**
+     * The number of the current tick.
+     */
+    private long currentTick;
+    
+    /**
+     * The number of ticks run during the last tick, and the number of due
+     * ticks left over for the next one.
+     */
+    private int lastRun, lastCarried;
+    
+    /**
+     * Creates a new ScheduledTicks with nothing pending.
+     * 
+     * @param budget the most ticks to run per tick
+     */
+    ScheduledTicks(int budget) {
+        setBudget(budget);
+        Arrays.fill(slotHeads, NONE);
+    }
+    
+    /**
+     * Sets the most ticks to run per tick.
+     * 
+     * @param budget the budget, at least 1
+     */
+    void setBudget(int budget) {
+        this.budget = Math.max(1, budget);
+    }
+    
+    /**
+     * Gets the number of pending ticks in loaded Chunks.
+     * 
+     * @return the number of pending ticks
+     */
+    int size() {
+        return pending.size();
+    }
+    
+    /**
+     * Gets the number of ticks run during the last call to {@code tick}.
+     * 
+     * @return the number of ticks run
+     */
+    int getLastRun() {
+        return lastRun;
+    }
+    
+    /**
+     * Gets the number of due ticks that the last call to {@code tick} left
+     * for later because of the budget.
+     * 
+     * @return the number of ticks carried over
+     */
+    int getLastCarried() {
+        return lastCarried;
+    }
+    
+    /**
+     * Calculates the key of the Chunk containing a packed position.
+     * 
+     * @param position the packed position
+     * @return the key for {@code chunkHeads} and {@code saved}
+     */
+    private static long chunkKey(long position) {
+        return PackedPosition.pack(PackedPosition.unpackX(position) >> 4,
+                PackedPosition.unpackY(position) >> 4, PackedPosition.unpackZ(position) >> 4);
+    }
+    
+    /**
+     * Schedules a block tick.
+     * 
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param type the type the block must still have for the tick to run
+     * @param delay the number of ticks from now, at least 1
+     * @param priority orders ticks due together, lowest first
+     * @return false if the same block and type already had a tick pending
+     */
+    boolean schedule(int x, int y, int z, byte type, int delay, int priority) {
+        return add(PackedPosition.pack(x, y, z), type, currentTick + Math.max(1, delay), priority);
+    }
+    
+    /**
+     * Adds an entry, unless the same block and type is already pending.
+     * 
+     * @param position the packed position
+     * @param type the type id
+     * @param due the tick it is due on
+     * @param priority its priority
+     * @return false if it was already pending
+     */
+    private boolean add(long position, byte type, long due, int priority) {
+        long key = (position << 8) | (type & 0xFF);
+        if (pending.get(key) != NONE) return false;
+        
+        int e;
+        if (free != NONE) {
+            e = free;
+            free = nextInSlot[e];
+        } else {
+            if (used == positions.length) grow();
+            e = used++;
+        }
+        positions[e] = position;
+        types[e] = type;
+        dues[e] = due;
+        priorities[e] = Math.max(MIN_PRIORITY, Math.min(MAX_PRIORITY, priority));
+        pending.put(key, e);
+        linkSlot(e, (int)due & (WHEEL_SIZE - 1));
+        
+        // Put it at the front of its Chunk's list
+        long chunk = chunkKey(position);
+        int head = chunkHeads.put(chunk, e);
+        nextInChunk[e] = head;
+        previousInChunk[e] = NONE;
+        if (head != NONE) previousInChunk[head] = e;
+        return true;
+    }
+    
+    /**
+     * Doubles the length of every per-entry array.
+     */
+    private void grow() {
+        int capacity = positions.length * 2;
+        positions = Arrays.copyOf(positions, capacity);
+        types = Arrays.copyOf(types, capacity);
+        dues = Arrays.copyOf(dues, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        slots = Arrays.copyOf(slots, capacity);
+        nextInSlot = Arrays.copyOf(nextInSlot, capacity);
+        previousInSlot = Arrays.copyOf(previousInSlot, capacity);
+        nextInChunk = Arrays.copyOf(nextInChunk, capacity);
+        previousInChunk = Arrays.copyOf(previousInChunk, capacity);
+    }
+    
+    /**
+     * Puts an entry at the front of a wheel slot's list.
+     * 
+     * @param e the entry
+     * @param slot the slot
+     */
+    private void linkSlot(int e, int slot) {
+        int head = slotHeads[slot];
+        nextInSlot[e] = head;
+        previousInSlot[e] = NONE;
+        if (head != NONE) previousInSlot[head] = e;
+        slotHeads[slot] = e;
+        slots[e] = slot;
+    }
+    
+    /**
+     * Takes an entry out of its wheel slot's list.
+     * 
+     * @param e the entry
+     */
+    private void unlinkSlot(int e) {
+        int next = nextInSlot[e], previous = previousInSlot[e];
+        if (previous != NONE) nextInSlot[previous] = next;
+        else slotHeads[slots[e]] = next;
+        if (next != NONE) previousInSlot[next] = previous;
+    }
+    
+    /**
+     * Takes an entry out of its Chunk's list and the pending map, and frees
+     * it. It must already be out of its wheel slot's list.
+     * 
+     * @param e the entry
+     */
+    private void release(int e) {
+        int next = nextInChunk[e], previous = previousInChunk[e];
+        if (previous != NONE) {
+            nextInChunk[previous] = next;
+        } else if (next != NONE) {
+            chunkHeads.put(chunkKey(positions[e]), next);
+        } else {
+            chunkHeads.remove(chunkKey(positions[e]));
+        }
+        if (next != NONE) previousInChunk[next] = previous;
+        
+        pending.remove((positions[e] << 8) | (types[e] & 0xFF));
+        nextInSlot[e] = free;
+        free = e;
+    }
+    
+    /**
+     * Advances to the next tick and runs the ticks due on it, in order of due
+     * tick, then priority, up to the budget. A tick only runs if its block
+     * still has the type it was scheduled for.
+     * 
+     * @param view the blocks, to check that each block's type is unchanged
+     * @param handler runs the ticks
+     */
+    void tick(BlockView view, Handler handler) {
+        currentTick++;
+        int slot = (int)currentTick & (WHEEL_SIZE - 1);
+        
+        // Take out everything that is due, leaving later laps where they are
+        int count = 0;
+        for (int e = slotHeads[slot], next; e != NONE; e = next) {
+            next = nextInSlot[e];
+            if (dues[e] > currentTick) continue;
+            unlinkSlot(e);
+            if (count == ready.length) ready = Arrays.copyOf(ready, count * 2);
+            // Oldest first, then lowest priority, with the entry in the low bits
+            long lateness = Math.min(currentTick - dues[e], 0x7FFFFF);
+            ready[count++] = ((0x7FFFFF - lateness) << 40)
+                    | ((long)(priorities[e] - MIN_PRIORITY) << 32) | e;
+        }
+        Arrays.sort(ready, 0, count);
+        
+        int run = Math.min(count, budget);
+        int nextSlot = (slot + 1) & (WHEEL_SIZE - 1);
+        for (int i = run; i < count; i++) {
+            linkSlot((int)ready[i], nextSlot);
+        }
+        for (int i = 0; i < run; i++) {
+            int e = (int)ready[i];
+            long position = positions[e];
+            byte type = types[e];
+            // Free it first, so that the handler can schedule the block again
+            release(e);
+            int x = PackedPosition.unpackX(position);
+            int y = PackedPosition.unpackY(position);
+            int z = PackedPosition.unpackZ(position);
+            if (view.getBlockType(x, y, z) == type) handler.scheduledTick(x, y, z, type);
+        }
+        lastRun = run;
+        lastCarried = count - run;
+    }
+    
+    /**
+     * Takes out the pending ticks of a Chunk which is being unloaded, keeping
+     * them until it is loaded again. This must not be called by a Handler.
+     * 
+     * @param chunkX the Chunk's X-coordinate in chunks
+     * @param chunkY the Chunk's Y-coordinate in chunks
+     * @param chunkZ the Chunk's Z-coordinate in chunks
+     */
+    void chunkUnloaded(int chunkX, int chunkY, int chunkZ) {
+        long chunk = PackedPosition.pack(chunkX, chunkY, chunkZ);
+        int e = chunkHeads.get(chunk);
+        if (e == NONE) return;
+        
+        Saved kept = saved.get(chunk);
+        if (kept == null) {
+            kept = new Saved();
+            saved.put(chunk, kept);
+        }
+        while (e != NONE) {
+            int next = nextInChunk[e];
+            kept.add(positions[e], types[e], (int)Math.max(1, dues[e] - currentTick), priorities[e]);
+            unlinkSlot(e);
+            release(e);
+            e = next;
+        }
+    }
+    
+    /**
+     * Puts back the pending ticks of a Chunk which has been loaded again, with
+     * the same number of ticks left as when it was unloaded.
+     * 
+     * @param chunkX the Chunk's X-coordinate in chunks
+     * @param chunkY the Chunk's Y-coordinate in chunks
+     * @param chunkZ the Chunk's Z-coordinate in chunks
+     */
+    void chunkLoaded(int chunkX, int chunkY, int chunkZ) {
+        Saved kept = saved.remove(PackedPosition.pack(chunkX, chunkY, chunkZ));
+        if (kept == null) return;
+        for (int i = 0; i < kept.count; i++) {
+            add(kept.positions[i], kept.types[i], currentTick + kept.delays[i], kept.priorities[i]);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.Arrays;
+
+/**
+ * SpatialHash finds the entities near a point or a box without testing every
+ * one of them. Space is divided into a uniform grid of cubic cells, and each
+ * entity is filed under the cell containing the centre of its box. A query
+ * only looks at the entities filed under the cells it covers, so finding the
+ * neighbours of every entity costs roughly linear time instead of quadratic.
+ * <p>
+ * Only the cells that have entities in them are stored. Their coordinates are
+ * packed into a long and looked up in an open-addressing table of primitive
+ * keys, and the entities of each cell are stored together in a single int
+ * array, in the style of a counting sort. Rebuilding reuses all of these
+ * arrays, so nothing is allocated once they are large enough.
+ * <p>
+ * The hash is a picture of the Entities at the time of the last
+ * {@code rebuild}, and is normally rebuilt once per tick after they move. The
+ * results of queries are entity indices, which are only valid until an entity
+ * is created or removed.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see Entities
+ */
+final class SpatialHash {
+    
+    /**
+     * Cell coordinates are packed into 21 bits each.
+     */
+    private static final int COORD_BITS = 21;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+    
+    /**
+     * Marks an unused slot in the table. No packed key can be equal to it,
+     * because packed keys never set the top bit.
+     */
+    private static final long EMPTY = -1;
+    
+    /**
+     * One over the size of each cell along every axis.
+     */
+    private final float inverseCellSize;
+    
+    /**
+     * The open-addressing table from packed cell coordinates to cell numbers.
+     * Its length is always a power of two.
+     */
+    private long[] keys;
+    private int[] cellNumbers;
+    private int tableMask;
+    
+    /**
+     * The number of cells with entities in them.
+     */
+    private int cellCount;
+    
+    /**
+     * The entities of cell {@code c} are {@code cellEntities[cellStarts[c]]}
+     * up to (but not including) {@code cellEntities[cellStarts[c+1]]}.
+     */
+    private int[] cellStarts = new int[64];
+    private int[] cellEntities = new int[64];
+    
+    /**
+     * The cell number of each entity, kept between the two passes of {@code rebuild}.
+     */
+    private int[] entityCells = new int[64];
+    
+    /**
+     * The largest half width and height of any entity, by which queries are
+     * widened since entities are filed by their centre alone.
+     */
+    private float maxHalfWidth, maxHalfHeight;
+    
+    /**
+     * The Entities this hash was last built from.
+     */
+    private Entities entities;
+    
+    /**
+     * Creates a new, empty SpatialHash.
+     * 
+     * @param cellSize the size of each cell, best about the size of a typical
+     *        query or entity
+     */
+    SpatialHash(float cellSize) {
+        this.inverseCellSize = 1 / cellSize;
+        keys = new long[64];
+        cellNumbers = new int[64];
+        tableMask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+    
+    /**
+     * Packs cell coordinates into a key.
+     * 
+     * @param cx the cell X-coordinate
+     * @param cy the cell Y-coordinate
+     * @param cz the cell Z-coordinate
+     * @return the key
+     */
+    private static long pack(int cx, int cy, int cz) {
+        return ((cx & COORD_MASK) << (2 * COORD_BITS)) | ((cy & COORD_MASK) << COORD_BITS) | (cz & COORD_MASK);
+    }
+    
+    /**
+     * Calculates the first slot in the table to probe for a key.
+     * 
+     * @param key the packed key
+     * @return the slot
+     */
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h >>> 32) & tableMask;
+    }
+    
+    /**
+     * Converts a coordinate into a cell coordinate.
+     * 
+     * @param coordinate the coordinate
+     * @return the cell coordinate
+     */
+    private int cell(float coordinate) {
+        return (int)Math.floor(coordinate * inverseCellSize);
+    }
+    
+    /**
+     * Finds the cell number of a key.
+     * 
+     * @param key the packed key
+     * @return the cell number, or -1 if the cell has no entities
+     */
+    private int find(long key) {
+        for (int s = slot(key); ; s = (s + 1) & tableMask) {
+            long k = keys[s];
+            if (k == key) return cellNumbers[s];
+            if (k == EMPTY) return -1;
+        }
+    }
+    
+    /**
+     * Finds the cell number of a key, adding the cell if it is not there yet.
+     * 
+     * @param key the packed key
+     * @return the cell number
+     */
+    private int findOrAdd(long key) {
+        for (int s = slot(key); ; s = (s + 1) & tableMask) {
+            long k = keys[s];
+            if (k == key) return cellNumbers[s];
+            if (k == EMPTY) {
+                keys[s] = key;
+                cellNumbers[s] = cellCount;
+                return cellCount++;
+            }
+        }
+    }
+    
+    /**
+     * Files every entity under its cell, replacing whatever was there before.
+     * 
+     * @param entities the entities to file
+     */
+    void rebuild(Entities entities) {
+        this.entities = entities;
+        int n = entities.size();
+        
+        // Keep the table at most half full; there can be no more cells than entities
+        int capacity = keys.length;
+        while (capacity < n * 2) capacity *= 2;
+        if (capacity != keys.length) {
+            keys = new long[capacity];
+            cellNumbers = new int[capacity];
+            tableMask = capacity - 1;
+        }
+        Arrays.fill(keys, EMPTY);
+        cellCount = 0;
+        if (entityCells.length < n) {
+            entityCells = new int[Math.max(n, entityCells.length * 2)];
+            cellEntities = new int[entityCells.length];
+        }
+        if (cellStarts.length < n + 1) cellStarts = new int[entityCells.length + 1];
+        Arrays.fill(cellStarts, 0, n + 1, 0);
+        
+        // Find the cell of every entity and count the entities in each cell
+        float[] x = entities.x, y = entities.y, z = entities.z;
+        float[] halfWidth = entities.halfWidth, height = entities.height;
+        float widest = 0, tallest = 0;
+        for (int i = 0; i < n; i++) {
+            float halfHeight = height[i] * 0.5f;
+            int c = findOrAdd(pack(cell(x[i]), cell(y[i] + halfHeight), cell(z[i])));
+            entityCells[i] = c;
+            cellStarts[c]++;
+            widest = Math.max(widest, halfWidth[i]);
+            tallest = Math.max(tallest, halfHeight);
+        }
+        maxHalfWidth = widest;
+        maxHalfHeight = tallest;
+        
+        // Turn the counts into the end of each cell's range, then fill the
+        // ranges backwards so that they end up starting in the right place
+        int total = 0;
+        for (int c = 0; c < cellCount; c++) {
+            total += cellStarts[c];
+            cellStarts[c] = total;
+        }
+        cellStarts[cellCount] = total;
+        for (int i = n - 1; i >= 0; i--) {
+            cellEntities[--cellStarts[entityCells[i]]] = i;
+        }
+    }
+    
+    /**
+     * Finds every entity whose box overlaps the given box.
+     * 
+     * @param minX the box's minimum X-coordinate
+     * @param minY the box's minimum Y-coordinate
+     * @param minZ the box's minimum Z-coordinate
+     * @param maxX the box's maximum X-coordinate
+     * @param maxY the box's maximum Y-coordinate
+     * @param maxZ the box's maximum Z-coordinate
+     * @param results receives the indices of the entities found
+     * @return the number of entities found, which may be more than the length
+     *         of {@code results}, in which case only the first ones were stored
+     */
+    int queryBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] results) {
+        if (entities == null) return 0;
+        float[] x = entities.x, y = entities.y, z = entities.z;
+        float[] halfWidth = entities.halfWidth, height = entities.height;
+        int cx0 = cell(minX - maxHalfWidth), cx1 = cell(maxX + maxHalfWidth);
+        int cy0 = cell(minY - maxHalfHeight), cy1 = cell(maxY + maxHalfHeight);
+        int cz0 = cell(minZ - maxHalfWidth), cz1 = cell(maxZ + maxHalfWidth);
+        
+        int found = 0;
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) {
+                for (int cz = cz0; cz <= cz1; cz++) {
+                    int c = find(pack(cx, cy, cz));
+                    if (c < 0) continue;
+                    for (int j = cellStarts[c], end = cellStarts[c+1]; j < end; j++) {
+                        int i = cellEntities[j];
+                        float w = halfWidth[i];
+                        if (x[i] + w < minX || x[i] - w > maxX
+                                || y[i] + height[i] < minY || y[i] > maxY
+                                || z[i] + w < minZ || z[i] - w > maxZ) continue;
+                        if (found < results.length) results[found] = i;
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Finds every entity whose box comes within {@code radius} of a point.
+     * 
+     * @param px the point's X-coordinate
+     * @param py the point's Y-coordinate
+     * @param pz the point's Z-coordinate
+     * @param radius the distance from the point
+     * @param results receives the indices of the entities found
+     * @return the number of entities found, which may be more than the length
+     *         of {@code results}, in which case only the first ones were stored
+     */
+    int queryRadius(float px, float py, float pz, float radius, int[] results) {
+        if (entities == null) return 0;
+        float[] x = entities.x, y = entities.y, z = entities.z;
+        float[] halfWidth = entities.halfWidth, height = entities.height;
+        int cx0 = cell(px - radius - maxHalfWidth), cx1 = cell(px + radius + maxHalfWidth);
+        int cy0 = cell(py - radius - maxHalfHeight), cy1 = cell(py + radius + maxHalfHeight);
+        int cz0 = cell(pz - radius - maxHalfWidth), cz1 = cell(pz + radius + maxHalfWidth);
+        float radiusSquared = radius * radius;
+        
+        int found = 0;
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) {
+                for (int cz = cz0; cz <= cz1; cz++) {
+                    int c = find(pack(cx, cy, cz));
+                    if (c < 0) continue;
+                    for (int j = cellStarts[c], end = cellStarts[c+1]; j < end; j++) {
+                        int i = cellEntities[j];
+                        // Distance from the point to the closest point of the box
+                        float w = halfWidth[i];
+                        float dx = Math.max(Math.max(x[i] - w - px, px - x[i] - w), 0);
+                        float dy = Math.max(Math.max(y[i] - py, py - y[i] - height[i]), 0);
+                        float dz = Math.max(Math.max(z[i] - w - pz, pz - z[i] - w), 0);
+                        if (dx*dx + dy*dy + dz*dz > radiusSquared) continue;
+                        if (found < results.length) results[found] = i;
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+}
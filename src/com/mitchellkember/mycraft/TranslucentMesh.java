@@ -0,0 +1,288 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.lwjgl.BufferUtils;
+
+/**
+ * TranslucentMesh holds the translucent quads of one Chunk and keeps them
+ * sorted back to front relative to the camera, which is required for blending
+ * to look correct.
+ * <p>
+ * Re-sorting every quad every frame would not scale, so the quads are only
+ * re-sorted when the camera moves into a different block-sized cell. The
+ * centroid of each quad is calculated once, when the quads are set, and the
+ * previous order is kept between sorts. Since the camera only moves a little
+ * between sorts, that order is nearly sorted already and an insertion sort
+ * finishes in close to linear time.
+ * <p>
+ * A sort may run on a worker thread. While it does, the renderer keeps drawing
+ * the previous order from its VBO. If the Chunk is remeshed meanwhile, the new
+ * quads go into new arrays, so the render thread never waits for the worker;
+ * each set of quads has a generation number, and a sort which finishes after
+ * its generation has been replaced is thrown away.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see ChunkMesher
+ */
+final class TranslucentMesh {
+    
+    /**
+     * The arrays for one set of quads. A sort on a worker thread keeps using
+     * the Buffers it started with, even if the quads are replaced meanwhile.
+     */
+    private static final class Buffers {
+        
+        /**
+         * The quads in interleaved XYZST format, in the order they were meshed.
+         */
+        final int[] quads;
+        
+        /**
+         * The centroid of each quad in OpenGL coordinates, three floats per quad.
+         */
+        final float[] centroids;
+        
+        /**
+         * Indices into {@code quads}, ordered from farthest to nearest as of the
+         * last sort.
+         */
+        final int[] order;
+        
+        /**
+         * The squared distance from the camera to each quad, indexed like {@code order}.
+         */
+        final float[] distances;
+        
+        /**
+         * The quads written out in sorted order, ready to be uploaded.
+         */
+        final IntBuffer sortedData;
+        
+        /**
+         * The number of quads.
+         */
+        int quadCount;
+        
+        /**
+         * Creates new Buffers.
+         * 
+         * @param capacity the most quads they can hold
+         */
+        Buffers(int capacity) {
+            quads = new int[capacity * ChunkMesher.QUAD_SIZE];
+            centroids = new float[capacity * 3];
+            order = new int[capacity];
+            distances = new float[capacity];
+            sortedData = BufferUtils.createIntBuffer(capacity * ChunkMesher.QUAD_SIZE);
+        }
+    }
+    
+    /**
+     * The bits of {@code state} saying that a sort is running on a worker
+     * thread, and that {@code sortedData} holds an order that has not been
+     * uploaded yet. The generation is kept in the bits above them.
+     */
+    private static final int PENDING = 1, READY = 2;
+    private static final int GENERATION_SHIFT = 2;
+    
+    /**
+     * The current quads.
+     */
+    private Buffers buffers = new Buffers(0);
+    
+    /**
+     * The number of times the quads have been set, which is the generation of
+     * the current quads. Only the render thread uses this.
+     */
+    private int generation;
+    
+    /**
+     * The generation and the PENDING and READY bits. A worker only marks its
+     * sort READY if the generation is still the one it started with.
+     */
+    private final AtomicInteger state = new AtomicInteger();
+    
+    /**
+     * The cell the camera was in at the last sort. Starts out impossible so that
+     * the first call to {@code needsSort} returns true.
+     */
+    private int sortedCellX = Integer.MIN_VALUE, sortedCellY, sortedCellZ;
+    
+    /**
+     * Replaces the quads with newly meshed ones. If a sort is pending, it
+     * keeps its own arrays and its result is discarded.
+     * 
+     * @param data the quads, from position 0 to the buffer's limit
+     */
+    void setQuads(IntBuffer data) {
+        int quadCount = data.limit() / ChunkMesher.QUAD_SIZE;
+        if (isSortPending() || buffers.order.length < quadCount) {
+            buffers = new Buffers(quadCount);
+        }
+        Buffers b = buffers;
+        b.quadCount = quadCount;
+        data.get(b.quads, 0, data.limit());
+        
+        for (int q = 0; q < quadCount; q++) {
+            int base = q * ChunkMesher.QUAD_SIZE;
+            float cx = 0, cy = 0, cz = 0;
+            for (int v = 0; v < 4; v++) {
+                int i = base + v * ChunkMesher.VERTEX_SIZE;
+                cx += b.quads[i];
+                cy += b.quads[i+1];
+                cz += b.quads[i+2];
+            }
+            b.centroids[q*3] = cx / 4;
+            b.centroids[q*3+1] = cy / 4;
+            b.centroids[q*3+2] = cz / 4;
+            b.order[q] = q;
+        }
+        
+        // Force a sort for the new quads, discarding any unuploaded old order
+        // and any pending sort of the old quads
+        sortedCellX = Integer.MIN_VALUE;
+        generation++;
+        state.set(generation << GENERATION_SHIFT);
+    }
+    
+    /**
+     * Gets the number of translucent quads.
+     * 
+     * @return the quad count
+     */
+    int getQuadCount() {
+        return buffers.quadCount;
+    }
+    
+    /**
+     * Determines whether the camera has moved into a different cell since the
+     * last sort.
+     * 
+     * @param position the camera's position in OpenGL coordinates
+     * @return true if the quads should be re-sorted
+     */
+    boolean needsSort(Vector position) {
+        return buffers.quadCount > 0
+                && ((int)Math.floor(position.x) != sortedCellX
+                || (int)Math.floor(position.y) != sortedCellY
+                || (int)Math.floor(position.z) != sortedCellZ);
+    }
+    
+    /**
+     * Records the cell the camera is in for the sort about to be done.
+     * 
+     * @param x the camera's X-coordinate in OpenGL coordinates
+     * @param y the camera's Y-coordinate in OpenGL coordinates
+     * @param z the camera's Z-coordinate in OpenGL coordinates
+     */
+    private void setSortedCell(float x, float y, float z) {
+        sortedCellX = (int)Math.floor(x);
+        sortedCellY = (int)Math.floor(y);
+        sortedCellZ = (int)Math.floor(z);
+    }
+    
+    /**
+     * Starts sorting the quads on a worker thread. The sort does nothing
+     * until the returned task is run.
+     * 
+     * @param x the camera's X-coordinate in OpenGL coordinates
+     * @param y the camera's Y-coordinate in OpenGL coordinates
+     * @param z the camera's Z-coordinate in OpenGL coordinates
+     * @return the task which sorts the quads, to be run on the worker thread
+     */
+    Runnable beginAsyncSort(final float x, final float y, final float z) {
+        setSortedCell(x, y, z);
+        final Buffers b = buffers;
+        final int started = generation << GENERATION_SHIFT;
+        state.set(started | PENDING);
+        return new Runnable() {
+            @Override
+            public void run() {
+                sort(b, x, y, z);
+                // Fails if the quads were replaced meanwhile
+                state.compareAndSet(started | PENDING, started | READY);
+            }
+        };
+    }
+    
+    /**
+     * Determines whether a worker thread is sorting this mesh.
+     * 
+     * @return true if a sort is pending
+     */
+    boolean isSortPending() {
+        return (state.get() & PENDING) != 0;
+    }
+    
+    /**
+     * Sorts the quads back to front relative to {@code x}, {@code y}, {@code z}
+     * on this thread, and writes them into the sorted data buffer.
+     * 
+     * @param x the camera's X-coordinate in OpenGL coordinates
+     * @param y the camera's Y-coordinate in OpenGL coordinates
+     * @param z the camera's Z-coordinate in OpenGL coordinates
+     */
+    void sort(float x, float y, float z) {
+        setSortedCell(x, y, z);
+        sort(buffers, x, y, z);
+        state.set((generation << GENERATION_SHIFT) | READY);
+    }
+    
+    /**
+     * Sorts some quads back to front and writes them into their sorted data
+     * buffer.
+     * 
+     * @param b the quads
+     * @param x the camera's X-coordinate in OpenGL coordinates
+     * @param y the camera's Y-coordinate in OpenGL coordinates
+     * @param z the camera's Z-coordinate in OpenGL coordinates
+     */
+    private static void sort(Buffers b, float x, float y, float z) {
+        int quadCount = b.quadCount;
+        int[] order = b.order;
+        float[] distances = b.distances;
+        for (int i = 0; i < quadCount; i++) {
+            int q = order[i] * 3;
+            float dx = b.centroids[q] - x;
+            float dy = b.centroids[q+1] - y;
+            float dz = b.centroids[q+2] - z;
+            distances[i] = dx*dx + dy*dy + dz*dz;
+        }
+        
+        // Insertion sort, farthest first. The previous order is nearly sorted.
+        for (int i = 1; i < quadCount; i++) {
+            int q = order[i];
+            float d = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] < d) {
+                order[j+1] = order[j];
+                distances[j+1] = distances[j];
+                j--;
+            }
+            order[j+1] = q;
+            distances[j+1] = d;
+        }
+        
+        b.sortedData.clear();
+        for (int i = 0; i < quadCount; i++) {
+            b.sortedData.put(b.quads, order[i] * ChunkMesher.QUAD_SIZE, ChunkMesher.QUAD_SIZE);
+        }
+        b.sortedData.flip();
+    }
+    
+    /**
+     * Takes the sorted quads if a sort of the current quads has finished since
+     * the last call.
+     * 
+     * @return the sorted quads to upload, or null if nothing has changed
+     */
+    IntBuffer takeSortedData() {
+        int ready = (generation << GENERATION_SHIFT) | READY;
+        if (!state.compareAndSet(ready, generation << GENERATION_SHIFT)) return null;
+        return buffers.sortedData;
+    }
+}
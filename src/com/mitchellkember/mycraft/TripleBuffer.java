@@ -0,0 +1,111 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TripleBuffer hands the latest of a series of values from one thread to
+ * another without either of them ever waiting. There are three values: the
+ * writer fills in the back one, the reader reads the front one, and the third
+ * sits in the middle. Publishing swaps the back value with the middle one, and
+ * the reader swaps the middle one with the front when it wants something newer.
+ * The swaps are a single compare-and-set of which value is where, so the
+ * writer always has a value to itself to fill in, and the reader always has a
+ * complete one to read. If the writer publishes faster than the reader reads,
+ * the values in between are simply overwritten.
+ * <p>
+ * There must be only one writer thread and one reader thread.
+ * 
+ * @param <T> the type of the values
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ */
+final class TripleBuffer<T> {
+    
+    /**
+     * The state packs the index of the back value into bits 0-1, the middle
+     * into bits 2-3 and the front into bits 4-5. {@code FRESH} is set when the
+     * middle value has been published since the reader last took one.
+     */
+    private static final int BACK = 0, MIDDLE = 2, FRONT = 4;
+    private static final int FRESH = 1 << 6;
+    
+    /**
+     * The three values. The state refers to them as 0, 1 and 2.
+     */
+    private final T value0, value1, value2;
+    
+    /**
+     * Where each value is, and whether the middle one is fresh.
+     */
+    private final AtomicInteger state = new AtomicInteger((0 << BACK) | (1 << MIDDLE) | (2 << FRONT));
+    
+    /**
+     * Creates a new TripleBuffer of three values, which must be distinct. The
+     * first is where the writer starts, and the last is what the reader sees
+     * until something has been published.
+     * 
+     * @param first the value the writer starts with
+     * @param second the value in the middle to begin with
+     * @param third the value the reader starts with
+     */
+    TripleBuffer(T first, T second, T third) {
+        if (first == second || second == third || first == third) {
+            throw new IllegalArgumentException("The values of a TripleBuffer must be distinct");
+        }
+        value0 = first;
+        value1 = second;
+        value2 = third;
+    }
+    
+    /**
+     * Gets one of the three values.
+     * 
+     * @param index 0, 1 or 2
+     * @return the value
+     */
+    private T value(int index) {
+        return (index == 0) ? value0 : (index == 1) ? value1 : value2;
+    }
+    
+    /**
+     * Gets the value for the writer to fill in. It belongs to the writer until
+     * the next call to {@code publish}.
+     * 
+     * @return the back value
+     */
+    T getBack() {
+        return value((state.get() >> BACK) & 3);
+    }
+    
+    /**
+     * Publishes the back value, making it the one the reader gets next, and
+     * gives the writer another value to fill in.
+     */
+    void publish() {
+        while (true) {
+            int s = state.get();
+            int back = (s >> BACK) & 3, middle = (s >> MIDDLE) & 3, front = (s >> FRONT) & 3;
+            int next = (middle << BACK) | (back << MIDDLE) | (front << FRONT) | FRESH;
+            if (state.compareAndSet(s, next)) return;
+        }
+    }
+    
+    /**
+     * Gets the most recently published value, or the same value as last time
+     * if nothing has been published since. It belongs to the reader until the
+     * next call to this method.
+     * 
+     * @return the front value
+     */
+    T acquire() {
+        while (true) {
+            int s = state.get();
+            if ((s & FRESH) == 0) return value((s >> FRONT) & 3);
+            int back = (s >> BACK) & 3, middle = (s >> MIDDLE) & 3, front = (s >> FRONT) & 3;
+            int next = (back << BACK) | (front << MIDDLE) | (middle << FRONT);
+            if (state.compareAndSet(s, next)) return value(middle);
+        }
+    }
+}
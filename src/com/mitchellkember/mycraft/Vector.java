@@ -7,6 +7,11 @@ package com.mitchellkember.mycraft;
  * two of most operations, one mutating the current Vector and another returning
  * a new one (e.g. add/plus, sub/minus, scale/scaled). It also provides a
  * convenient method for axis rotations.
+ * <p>
+ * Every operation that returns a new Vector also has a version which writes
+ * its result into a destination Vector instead, for code that runs every
+ * frame and should not create garbage. The destination may be one of the
+ * operands.
  *
  * @author Mitchell Kember
  * @since 08/12/2011
@@ -48,6 +53,31 @@ final class Vector {
         this(0, 0, 0);
     }
     
+    /**
+     * Sets the components of this Vector.
+     * 
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     * @return this Vector
+     */
+    Vector set(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+    
+    /**
+     * Sets the components of this Vector to those of {@code vec}.
+     * 
+     * @param vec the Vector to copy
+     * @return this Vector
+     */
+    Vector set(Vector vec) {
+        return set(vec.x, vec.y, vec.z);
+    }
+    
     /**
      * Calculates the magnitude (length) of this Vector.
      * 
@@ -124,9 +154,21 @@ final class Vector {
      * @return the cross product
      */
     static Vector cross(Vector u, Vector v) {
-        return new Vector(u.y*v.z - u.z*v.y,
-                          u.z*v.x - u.x*v.z,
-                          u.x*v.y - u.y*v.x);
+        return cross(u, v, new Vector());
+    }
+    
+    /**
+     * Calculates the cross product of {@code u} and {@code v} into {@code dest}.
+     * 
+     * @param u a Vector
+     * @param v another Vector
+     * @param dest the Vector to receive the cross product
+     * @return {@code dest}
+     */
+    static Vector cross(Vector u, Vector v, Vector dest) {
+        return dest.set(u.y*v.z - u.z*v.y,
+                        u.z*v.x - u.x*v.z,
+                        u.x*v.y - u.y*v.x);
     }
     
     /**
@@ -148,7 +190,18 @@ final class Vector {
      * @return the sum
      */
     Vector plus(Vector vec) {
-        return new Vector(x+vec.x, y+vec.y, z+vec.z);
+        return plus(vec, new Vector());
+    }
+    
+    /**
+     * Calculates the sum of this Vector and {@code vec} into {@code dest}.
+     * 
+     * @param vec the addend
+     * @param dest the Vector to receive the sum
+     * @return {@code dest}
+     */
+    Vector plus(Vector vec, Vector dest) {
+        return dest.set(x+vec.x, y+vec.y, z+vec.z);
     }
     
     /**
@@ -159,7 +212,18 @@ final class Vector {
      * @return the difference
      */
     Vector minus(Vector vec) {
-        return new Vector(x-vec.x, y-vec.y, z-vec.z);
+        return minus(vec, new Vector());
+    }
+    
+    /**
+     * Calculates the difference of this Vector and {@code vec} into {@code dest}.
+     * 
+     * @param vec the subtrahend
+     * @param dest the Vector to receive the difference
+     * @return {@code dest}
+     */
+    Vector minus(Vector vec, Vector dest) {
+        return dest.set(x-vec.x, y-vec.y, z-vec.z);
     }
     
     /**
@@ -170,7 +234,19 @@ final class Vector {
      * @return the scaled Vector
      */
     Vector scaled(float s) {
-        return new Vector(x*s, y*s, z*s);
+        return scaled(s, new Vector());
+    }
+    
+    /**
+     * Calculates this vector scaled by the scalar value {@code s} into
+     * {@code dest}.
+     * 
+     * @param s the multiplier
+     * @param dest the Vector to receive the scaled Vector
+     * @return {@code dest}
+     */
+    Vector scaled(float s, Vector dest) {
+        return dest.set(x*s, y*s, z*s);
     }
     
     /**
@@ -180,9 +256,20 @@ final class Vector {
      * @return the unit Vector
      */
     Vector normalized() {
+        return normalized(new Vector());
+    }
+    
+    /**
+     * Calculates the normalized version of this Vector into {@code dest}. A
+     * zero Vector stays zero.
+     * 
+     * @param dest the Vector to receive the unit Vector
+     * @return {@code dest}
+     */
+    Vector normalized(Vector dest) {
         float mag = magnitude();
-        if (mag == 0) return new Vector();
-        return new Vector(x/mag, y/mag, z/mag); 
+        if (mag == 0) return dest.set(0, 0, 0);
+        return dest.set(x/mag, y/mag, z/mag);
     }
     
     /**
@@ -195,14 +282,32 @@ final class Vector {
      * @return the rotated Vector
      */
     static Vector axisRotation(Vector vec, Vector axis, float angle) {
-        Vector nAxis = axis.normalized();
+        return axisRotation(vec, axis, angle, new Vector());
+    }
+    
+    /**
+     * Rotates {@code vec} about an arbitrary {@code axis} by {@code angle}
+     * radians into {@code dest}, which may be {@code vec} itself.
+     * 
+     * @param vec the Vector to rotate
+     * @param axis the arbitrary axis to rotate about
+     * @param angle the angle in radians to rotate
+     * @param dest the Vector to receive the rotated Vector
+     * @return {@code dest}
+     */
+    static Vector axisRotation(Vector vec, Vector axis, float angle, Vector dest) {
+        float mag = axis.magnitude();
+        float ax = (mag == 0) ? 0 : axis.x/mag;
+        float ay = (mag == 0) ? 0 : axis.y/mag;
+        float az = (mag == 0) ? 0 : axis.z/mag;
         
         float c = (float)Math.cos(angle);
         float s = (float)Math.sin(angle);
+        float dot = ax*vec.x + ay*vec.y + az*vec.z;
         
-        return new Vector(nAxis.x*(nAxis.x*vec.x + nAxis.y*vec.y + nAxis.z*vec.z)*(1.f-c) + vec.x*c + (-nAxis.z*vec.y + nAxis.y*vec.z)*s,
-                          nAxis.y*(nAxis.x*vec.x + nAxis.y*vec.y + nAxis.z*vec.z)*(1.f-c) + vec.y*c + ( nAxis.z*vec.x - nAxis.x*vec.z)*s,
-                          nAxis.z*(nAxis.x*vec.x + nAxis.y*vec.y + nAxis.z*vec.z)*(1.f-c) + vec.z*c + (-nAxis.y*vec.x + nAxis.x*vec.y)*s);
+        return dest.set(ax*dot*(1.f-c) + vec.x*c + (-az*vec.y + ay*vec.z)*s,
+                        ay*dot*(1.f-c) + vec.y*c + ( az*vec.x - ax*vec.z)*s,
+                        az*dot*(1.f-c) + vec.z*c + (-ay*vec.x + ax*vec.y)*s);
     }
     
     /**
@@ -212,6 +317,16 @@ final class Vector {
      * @return the Vector
      */
     Vector invertedZ() {
-        return new Vector(x, y, -z);
+        return invertedZ(new Vector());
+    }
+    
+    /**
+     * Copies this Vector into {@code dest} with its Z-axis inverted.
+     * 
+     * @param dest the Vector to receive the copy
+     * @return {@code dest}
+     */
+    Vector invertedZ(Vector dest) {
+        return dest.set(x, y, -z);
     }
 }
@@ -0,0 +1,95 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.nio.IntBuffer;
+
+/**
+ * VertexWriter defines the layout of a mesh vertex and writes vertices
+ * straight into the direct buffer that will be uploaded to a VBO, field by
+ * field, without building them up in a temporary array first.
+ * <p>
+ * It plays the part of a struct view over the buffer, like LWJGL's
+ * {@code MappedObject}. {@code MappedObject} itself can't be used here: its
+ * fields only work after {@code MappedObjectClassLoader} has rewritten the
+ * bytecode, which needs the ASM library (not bundled with LWJGL) and a
+ * {@code URLClassLoader} as the system class loader (not the case on newer
+ * JVMs). Absolute puts at fixed field offsets give the same single pass over
+ * memory.
+ * <p>
+ * Vertices can also be written to an int array in the same layout, for
+ * meshers which stage many quads and hand them to the buffer in one bulk put.
+ *
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see ChunkMesher
+ */
+final class VertexWriter {
+    
+    /**
+     * Offset of the X, Y and Z position fields, in ints.
+     */
+    static final int POSITION_OFFSET = 0;
+    
+    /**
+     * Offset of the S and T texture coordinate fields, in ints.
+     */
+    static final int TEXCOORD_OFFSET = 3;
+    
+    /**
+     * The number of ints making up a single vertex (interleaved XYZST).
+     */
+    static final int SIZE = 5;
+    
+    /**
+     * The size of a single vertex in bytes, which is the stride for OpenGL.
+     */
+    static final int SIZEOF = SIZE * 4;
+    
+    /**
+     * Not instantiable.
+     */
+    private VertexWriter() {}
+    
+    /**
+     * Writes one vertex into {@code buffer} at vertex index {@code view},
+     * without changing the buffer's position.
+     * 
+     * @param buffer the buffer to write to
+     * @param view the index of the vertex, in vertices
+     * @param x the X-coordinate
+     * @param y the Y-coordinate
+     * @param z the Z-coordinate
+     * @param s the S texture coordinate
+     * @param t the T texture coordinate
+     */
+    static void put(IntBuffer buffer, int view, int x, int y, int z, int s, int t) {
+        int i = view * SIZE;
+        buffer.put(i + POSITION_OFFSET, x);
+        buffer.put(i + POSITION_OFFSET + 1, y);
+        buffer.put(i + POSITION_OFFSET + 2, z);
+        buffer.put(i + TEXCOORD_OFFSET, s);
+        buffer.put(i + TEXCOORD_OFFSET + 1, t);
+    }
+    
+    /**
+     * Writes one vertex into {@code array} at vertex index {@code view}, in
+     * the same layout as in a buffer.
+     * 
+     * @param array the array to write to
+     * @param view the index of the vertex, in vertices
+     * @param x the X-coordinate
+     * @param y the Y-coordinate
+     * @param z the Z-coordinate
+     * @param s the S texture coordinate
+     * @param t the T texture coordinate
+     */
+    static void put(int[] array, int view, int x, int y, int z, int s, int t) {
+        int i = view * SIZE;
+        array[i + POSITION_OFFSET] = x;
+        array[i + POSITION_OFFSET + 1] = y;
+        array[i + POSITION_OFFSET + 2] = z;
+        array[i + TEXCOORD_OFFSET] = s;
+        array[i + TEXCOORD_OFFSET + 1] = t;
+    }
+}
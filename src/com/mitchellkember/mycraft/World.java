@@ -0,0 +1,317 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * World is the collection of all loaded Chunks in the Mycraft world. It maps
+ * world block coordinates onto the Chunk which contains them, so that the rest
+ * of GameState never needs to care where one Chunk ends and the next begins.
+ * Blocks outside of any loaded Chunk are treated as air.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see Chunk
+ */
+final class World implements BlockView {
+    
+    /**
+     * The number of Chunks along each side of the generated world.
+     */
+    static final int SIZE_CHUNKS = 4;
+    
+    /**
+     * The number of blocks along each side of the generated world.
+     */
+    static final int SIZE = SIZE_CHUNKS * Chunk.SIZE;
+    
+    /**
+     * Identifies a file written by {@code save}.
+     */
+    private static final int FILE_MAGIC = 0x4D435746; // "MCWF"
+    
+    /**
+     * The loaded Chunks, keyed by their packed chunk coordinates.
+     * 
+     * @see #key
+     */
+    private final Map<Long, Chunk> chunks = new HashMap<Long, Chunk>();
+    
+    /**
+     * Packs chunk coordinates into a single long, 21 bits per axis.
+     * 
+     * @param chunkX the X-coordinate in chunks
+     * @param chunkY the Y-coordinate in chunks
+     * @param chunkZ the Z-coordinate in chunks
+     * @return the key for the {@code chunks} map
+     */
+    private static long key(int chunkX, int chunkY, int chunkZ) {
+        return ((long)(chunkX & 0x1FFFFF) << 42)
+                | ((long)(chunkY & 0x1FFFFF) << 21)
+                | (long)(chunkZ & 0x1FFFFF);
+    }
+    
+    /**
+     * Loads a cube of {@code SIZE_CHUNKS} empty Chunks per side.
+     */
+    private void createChunks() {
+        for (int cx = 0; cx < SIZE_CHUNKS; cx++) {
+            for (int cy = 0; cy < SIZE_CHUNKS; cy++) {
+                for (int cz = 0; cz < SIZE_CHUNKS; cz++) {
+                    chunks.put(key(cx, cy, cz), new Chunk(cx, cy, cz));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Generates a flat world: a cube of {@code SIZE_CHUNKS} Chunks per side with
+     * a ground layer of blocks at the bottom.
+     */
+    void generateFlat() {
+        createChunks();
+        
+        // Place a ground layer of blocks
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                setBlockType(x, 0, z, BlockType.DIRT);
+            }
+        }
+    }
+    
+    /**
+     * Generates rolling hills in a cube of {@code SIZE_CHUNKS} Chunks per side,
+     * with the occasional pillar of glass. The same {@code seed} always produces
+     * the same world, which makes this useful for measurements.
+     * 
+     * @param seed the random seed
+     */
+    void generateHills(long seed) {
+        createChunks();
+        
+        Random random = new Random(seed);
+        // A few sine waves with random frequencies and phases
+        final int waves = 4;
+        float[] frequency = new float[waves * 2];
+        float[] phase = new float[waves * 2];
+        for (int i = 0; i < waves * 2; i++) {
+            frequency[i] = 0.02f + random.nextFloat() * 0.15f;
+            phase[i] = random.nextFloat() * 2 * (float)Math.PI;
+        }
+        
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                float h = 0;
+                for (int i = 0; i < waves; i++) {
+                    h += Math.sin(x * frequency[i*2] + phase[i*2]) + Math.sin(z * frequency[i*2+1] + phase[i*2+1]);
+                }
+                // h is in [-2 * waves, 2 * waves]
+                int height = (int)(SIZE / 4 + h * SIZE / (8 * waves));
+                for (int y = 0; y <= height; y++) {
+                    setBlockType(x, y, z, BlockType.DIRT);
+                }
+                if (random.nextInt(200) == 0) {
+                    for (int y = height + 1; y < Math.min(SIZE, height + 5); y++) {
+                        setBlockType(x, y, z, BlockType.GLASS);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes every loaded Chunk to {@code out}. The stream is not closed.
+     * 
+     * @param out the stream to write to
+     * @throws IOException if the stream could not be written to
+     */
+    void save(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(FILE_MAGIC);
+        data.writeInt(chunks.size());
+        for (Chunk chunk : chunks.values()) {
+            data.writeInt(chunk.chunkX);
+            data.writeInt(chunk.chunkY);
+            data.writeInt(chunk.chunkZ);
+            byte[][][] blocks = chunk.getData();
+            for (int x = 0; x < Chunk.SIZE; x++) {
+                for (int y = 0; y < Chunk.SIZE; y++) {
+                    data.write(blocks[x][y]);
+                }
+            }
+        }
+        data.flush();
+    }
+    
+    /**
+     * Loads the Chunks written by {@code save} from {@code in}, replacing any
+     * that are already loaded at the same coordinates. The stream is not closed.
+     * 
+     * @param in the stream to read from
+     * @throws IOException if the stream could not be read or is not a world file
+     */
+    void load(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != FILE_MAGIC) {
+            throw new IOException("Not a Mycraft world file");
+        }
+        
+        int count = data.readInt();
+        byte[] column = new byte[Chunk.SIZE];
+        for (int i = 0; i < count; i++) {
+            Chunk chunk = new Chunk(data.readInt(), data.readInt(), data.readInt());
+            for (int x = 0; x < Chunk.SIZE; x++) {
+                for (int y = 0; y < Chunk.SIZE; y++) {
+                    data.readFully(column);
+                    for (int z = 0; z < Chunk.SIZE; z++) {
+                        chunk.setBlockType(x, y, z, column[z]);
+                    }
+                }
+            }
+            chunks.put(key(chunk.chunkX, chunk.chunkY, chunk.chunkZ), chunk);
+        }
+    }
+    
+    /**
+     * Gets the Chunk at the specified chunk coordinates.
+     * 
+     * @param chunkX the X-coordinate in chunks
+     * @param chunkY the Y-coordinate in chunks
+     * @param chunkZ the Z-coordinate in chunks
+     * @return the Chunk, or null if it is not loaded
+     */
+    Chunk getChunk(int chunkX, int chunkY, int chunkZ) {
+        return chunks.get(key(chunkX, chunkY, chunkZ));
+    }
+    
+    /**
+     * Gets the Chunk at the specified chunk coordinates, loading an empty one
+     * there first if none is loaded.
+     * 
+     * @param chunkX the X-coordinate in chunks
+     * @param chunkY the Y-coordinate in chunks
+     * @param chunkZ the Z-coordinate in chunks
+     * @return the Chunk
+     */
+    Chunk loadChunk(int chunkX, int chunkY, int chunkZ) {
+        Chunk chunk = getChunk(chunkX, chunkY, chunkZ);
+        if (chunk == null) {
+            chunk = new Chunk(chunkX, chunkY, chunkZ);
+            chunks.put(key(chunkX, chunkY, chunkZ), chunk);
+        }
+        return chunk;
+    }
+    
+    /**
+     * Gets the Chunk containing the block at the specified world coordinates.
+     * 
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @return the Chunk, or null if it is not loaded
+     */
+    Chunk getChunkContaining(int x, int y, int z) {
+        return getChunk(x >> 4, y >> 4, z >> 4);
+    }
+    
+    /**
+     * Gets all of the loaded Chunks.
+     * 
+     * @return the Chunks, in no particular order
+     */
+    Collection<Chunk> getChunks() {
+        return chunks.values();
+    }
+    
+    /**
+     * Get a block's type.
+     * 
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @return its type id, or 0 (air) if its Chunk is not loaded
+     */
+    @Override
+    public byte getBlockType(int x, int y, int z) {
+        Chunk chunk = getChunkContaining(x, y, z);
+        if (chunk == null) return 0;
+        return chunk.getBlockType(x & 15, y & 15, z & 15);
+    }
+    
+    @Override
+    public int getEmptyShift(int x, int y, int z) {
+        Chunk chunk = getChunkContaining(x, y, z);
+        if (chunk == null || chunk.isEmpty()) return 4;
+        long brick = 1L << Chunk.brickIndex(x & 15, y & 15, z & 15);
+        return ((chunk.getOccupiedBricks() & brick) == 0) ? Chunk.BRICK_SHIFT : 0;
+    }
+    
+    /**
+     * Casts a ray through the loaded Chunks and finds the first block accepted
+     * by {@code filter}. The ray may cross any number of Chunk boundaries.
+     * 
+     * @param origin where the ray starts, in world coordinates
+     * @param direction the ray's direction, which need not be normalized
+     * @param maxDistance how far to follow the ray
+     * @param filter decides which blocks stop the ray
+     * @param result receives the hit, if any
+     * @return true if a block was hit
+     * @see Raycaster#cast
+     */
+    boolean raycast(Vector origin, Vector direction, float maxDistance, BlockFilter filter, RaycastResult result) {
+        return Raycaster.cast(this, origin.x, origin.y, origin.z, direction.x, direction.y, direction.z,
+                maxDistance, filter, result);
+    }
+    
+    /**
+     * Takes an immutable copy of the loaded blocks, which can be read (and
+     * raycast through in parallel) from any thread while this World changes.
+     * 
+     * @return the snapshot
+     */
+    WorldSnapshot snapshot() {
+        return new WorldSnapshot(this);
+    }
+    
+    /**
+     * Get a block's type.
+     * 
+     * @param block the location of the block, in world coordinates
+     * @return its type id, or 0 (air) if its Chunk is not loaded
+     */
+    byte getBlockType(Block block) {
+        return getBlockType(block.x, block.y, block.z);
+    }
+    
+    /**
+     * Set a block's type. Nothing happens if its Chunk is not loaded.
+     * 
+     * @param x the block's X-coordinate
+     * @param y the block's Y-coordinate
+     * @param z the block's Z-coordinate
+     * @param type its new type id
+     */
+    void setBlockType(int x, int y, int z, byte type) {
+        Chunk chunk = getChunkContaining(x, y, z);
+        if (chunk != null) chunk.setBlockType(x & 15, y & 15, z & 15, type);
+    }
+    
+    /**
+     * Set a block's type. Nothing happens if its Chunk is not loaded.
+     * 
+     * @param block the location of the block, in world coordinates
+     * @param type its new type id
+     */
+    void setBlockType(Block block, byte type) {
+        setBlockType(block.x, block.y, block.z, type);
+    }
+}
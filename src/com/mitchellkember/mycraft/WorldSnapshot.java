@@ -0,0 +1,134 @@
+// Copyright 2012 Mitchell Kember. Subject to the MIT License.
+
+package com.mitchellkember.mycraft;
+
+/**
+ * WorldSnapshot is an immutable copy of the blocks of a World, taken at one
+ * moment. Any number of threads can read it while the World itself goes on
+ * changing, which is what makes it safe to raycast in parallel.
+ * <p>
+ * The Chunks are copied into flat arrays, laid out densely over the box of
+ * chunk coordinates that contains all loaded Chunks, so a lookup is a couple
+ * of shifts and two array reads rather than a hash map lookup.
+ * 
+ * @author Mitchell Kember
+ * @since 19/10/2026
+ * @see World#snapshot
+ */
+final class WorldSnapshot implements BlockView {
+    
+    /**
+     * The smallest chunk coordinates of the box, and its size in Chunks.
+     */
+    private final int minX, minY, minZ, sizeX, sizeY, sizeZ;
+    
+    /**
+     * The blocks of each Chunk in the box, in the format
+     * {@code chunks[(cx * sizeY + cy) * sizeZ + cz][(x * 16 + y) * 16 + z]},
+     * or null where no Chunk is loaded or the Chunk is empty.
+     */
+    private final byte[][] chunks;
+    
+    /**
+     * The occupied bricks of each Chunk in the box, as given by
+     * {@code Chunk.getOccupiedBricks}.
+     */
+    private final long[] occupiedBricks;
+    
+    /**
+     * Copies the blocks of {@code world}.
+     * 
+     * @param world the World to copy
+     */
+    WorldSnapshot(World world) {
+        int loX = Integer.MAX_VALUE, loY = Integer.MAX_VALUE, loZ = Integer.MAX_VALUE;
+        int hiX = Integer.MIN_VALUE, hiY = Integer.MIN_VALUE, hiZ = Integer.MIN_VALUE;
+        for (Chunk chunk : world.getChunks()) {
+            loX = Math.min(loX, chunk.chunkX); hiX = Math.max(hiX, chunk.chunkX);
+            loY = Math.min(loY, chunk.chunkY); hiY = Math.max(hiY, chunk.chunkY);
+            loZ = Math.min(loZ, chunk.chunkZ); hiZ = Math.max(hiZ, chunk.chunkZ);
+        }
+        if (loX > hiX) {
+            // Nothing is loaded
+            loX = loY = loZ = 0;
+            hiX = hiY = hiZ = -1;
+        }
+        
+        minX = loX;
+        minY = loY;
+        minZ = loZ;
+        sizeX = hiX - loX + 1;
+        sizeY = hiY - loY + 1;
+        sizeZ = hiZ - loZ + 1;
+        chunks = new byte[sizeX * sizeY * sizeZ][];
+        occupiedBricks = new long[chunks.length];
+        
+        for (Chunk chunk : world.getChunks()) {
+            if (chunk.isEmpty()) continue;
+            byte[] blocks = new byte[Chunk.SIZE * Chunk.SIZE * Chunk.SIZE];
+            byte[][][] data = chunk.getData();
+            for (int x = 0; x < Chunk.SIZE; x++) {
+                for (int y = 0; y < Chunk.SIZE; y++) {
+                    System.arraycopy(data[x][y], 0, blocks, (x * Chunk.SIZE + y) * Chunk.SIZE, Chunk.SIZE);
+                }
+            }
+            int cx = chunk.chunkX - minX, cy = chunk.chunkY - minY, cz = chunk.chunkZ - minZ;
+            chunks[(cx * sizeY + cy) * sizeZ + cz] = blocks;
+            occupiedBricks[(cx * sizeY + cy) * sizeZ + cz] = chunk.getOccupiedBricks();
+        }
+    }
+    
+    @Override
+    public byte getBlockType(int x, int y, int z) {
+        int cx = (x >> 4) - minX, cy = (y >> 4) - minY, cz = (z >> 4) - minZ;
+        if (cx < 0 || cx >= sizeX || cy < 0 || cy >= sizeY || cz < 0 || cz >= sizeZ) return 0;
+        byte[] blocks = chunks[(cx * sizeY + cy) * sizeZ + cz];
+        if (blocks == null) return 0;
+        return blocks[((x & 15) * Chunk.SIZE + (y & 15)) * Chunk.SIZE + (z & 15)];
+    }
+    
+    @Override
+    public int getEmptyShift(int x, int y, int z) {
+        int cx = (x >> 4) - minX, cy = (y >> 4) - minY, cz = (z >> 4) - minZ;
+        if (cx < 0 || cx >= sizeX || cy < 0 || cy >= sizeY || cz < 0 || cz >= sizeZ) return 4;
+        int i = (cx * sizeY + cy) * sizeZ + cz;
+        if (chunks[i] == null) return 4;
+        long brick = 1L << Chunk.brickIndex(x & 15, y & 15, z & 15);
+        return ((occupiedBricks[i] & brick) == 0) ? Chunk.BRICK_SHIFT : 0;
+    }
+    
+    /**
+     * Casts a ray through this snapshot.
+     * 
+     * @param origin where the ray starts
+     * @param direction the ray's direction, which need not be normalized
+     * @param maxDistance how far to follow the ray
+     * @param filter decides which blocks stop the ray
+     * @param result receives the hit, if any
+     * @return true if a block was hit
+     * @see Raycaster#cast
+     */
+    boolean raycast(Vector origin, Vector direction, float maxDistance, BlockFilter filter, RaycastResult result) {
+        return Raycaster.cast(this, origin.x, origin.y, origin.z, direction.x, direction.y, direction.z,
+                maxDistance, filter, result);
+    }
+    
+    /**
+     * Casts many rays through this snapshot in parallel, returning once all of
+     * them are done.
+     * 
+     * @param origins the origin of each ray, three floats per ray
+     * @param directions the direction of each ray, three floats per ray
+     * @param count the number of rays
+     * @param maxDistance how far to follow each ray
+     * @param filter decides which blocks stop the rays
+     * @param results receives the hit of each ray, if any
+     * @throws IllegalStateException if the rays could not all be cast,
+     *         including when the calling thread is interrupted
+     * @see Raycaster#castBatch
+     */
+    void raycastBatch(float[] origins, float[] directions, int count, float maxDistance,
+            BlockFilter filter, RaycastResult[] results) {
+        Raycaster.castBatch(this, origins, directions, count, maxDistance, filter, results);
+    }
+}